@@ -0,0 +1,1452 @@
+package com.docindex.cli;
+
+import com.docindex.core.DocumentExtractor;
+import com.docindex.core.ExtractionLimits;
+import com.docindex.extraction.CachingExtractor;
+import com.docindex.extraction.DirectoryWatcher;
+import com.docindex.extraction.ExtractionCache;
+import com.docindex.extraction.FileSniffer;
+import com.docindex.extraction.FileStateCatalog;
+import com.docindex.extraction.FileWalker;
+import com.docindex.extraction.ForkedExtractor;
+import com.docindex.extraction.IgnoreRules;
+import com.docindex.extraction.OcrCostControls;
+import com.docindex.extraction.OcrService;
+import com.docindex.extraction.ProfileSelector;
+import com.docindex.extraction.Quarantine;
+import com.docindex.extraction.SizeLimits;
+import com.docindex.extraction.TikaExtractor;
+import com.docindex.index.IndexCheckpoint;
+import com.docindex.index.LuceneIndexer;
+import com.docindex.index.SearchClient;
+import com.docindex.index.SearchServer;
+import com.docindex.index.SearchService;
+import com.docindex.model.DocumentInfo;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 文件索引 CLI 工具
+ */
+@Command(
+    name = "docindex",
+    mixinStandardHelpOptions = true,
+    version = "1.0.0",
+    description = "Document indexing and search tool using Tika and Lucene",
+    subcommands = {
+        DocIndexCli.IndexCommand.class,
+        SearchCli.SearchCommand.class,
+        SearchCli.ListCommand.class,
+        SearchCli.StatsCommand.class,
+        DocIndexCli.ReadCommand.class,
+        SearchCli.ServeCommand.class,
+        DocIndexCli.SweepCommand.class,
+        DocIndexCli.WatchCommand.class,
+        DocIndexCli.ClearCommand.class,
+        DocIndexCli.CacheCommand.class,
+        DocIndexCli.ExtractWorkerCommand.class
+    }
+)
+public class DocIndexCli implements Callable<Integer> {
+
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    @Option(names = {"-i", "--index-dir"}, description = "Index directory path", defaultValue = "./index-data")
+    protected String indexDir;
+
+    @Override
+    public Integer call() {
+        CommandLine.usage(this, System.out);
+        return 0;
+    }
+
+    public static void main(String[] args) {
+        // search 摘要與 serve 的 read 使用 Tika（第一次需要時才初始化）
+        int exitCode = new CommandLine(new DocIndexCli(), SearchCli.factory(TikaExtractor.perThreadReader())).execute(args);
+        System.exit(exitCode);
+    }
+
+    // ========== 索引命令 ==========
+    @Command(name = "index", description = "Index documents from a directory or file")
+    static class IndexCommand implements Callable<Integer> {
+
+        @Parameters(index = "0", arity = "0..1", description = "Path to file or directory to index (optional with --resume)")
+        private String sourcePath;
+
+        @Option(names = {"-i", "--index-dir"}, description = "Index directory path", defaultValue = "./index-data")
+        private String indexDir;
+
+        @Option(names = {"-r", "--recursive"}, description = "Recursively index subdirectories", defaultValue = "true")
+        private boolean recursive;
+
+        @Option(names = {"--json"}, description = "Output as JSON")
+        private boolean jsonOutput;
+
+        @Option(names = {"-m", "--max-size"}, description = "Maximum file size in MB to index (skip larger files)", defaultValue = "20")
+        private int maxSizeMB;
+
+        @Option(names = {"--max-size-for"}, description = "Per-type size cap in MB, by extension or category (office, text, code, archive, image), e.g. pdf=100 image=5")
+        private Map<String, Integer> maxSizeForType = new LinkedHashMap<>();
+
+        @Option(names = {"--exclude"}, description = "Exclude glob in .docindexignore syntax (repeatable)")
+        private List<String> excludes = new ArrayList<>();
+
+        @Option(names = {"--include"}, description = "Only index files matching this glob (repeatable)")
+        private List<String> includes = new ArrayList<>();
+
+        @Option(names = {"--no-default-ignores"}, description = "Do not skip .git, node_modules and other VCS/dependency/cache folders")
+        private boolean noDefaultIgnores;
+
+        @Option(names = {"--no-sniff"}, description = "Decide by extension only; do not check file headers for binary, encrypted or mislabelled files")
+        private boolean noSniff;
+
+        @Option(names = {"-t", "--threads"}, description = "Number of extraction threads (default: number of CPU cores)")
+        private int threads = Runtime.getRuntime().availableProcessors();
+
+        @Option(names = {"--ocr-threads"}, description = "Threads for the separate OCR (image) lane, 0 to share the main queue (default: cores/2)")
+        private int ocrThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        @Option(names = {"--walk-threads"}, description = "Directory walk parallelism (use >1 on NFS/SMB mounts)", defaultValue = "1")
+        private int walkThreads;
+
+        @Option(names = {"--full"}, description = "Ignore the file catalog and re-extract every file")
+        private boolean fullReindex;
+
+        @Option(names = {"--sweep"}, description = "Remove indexed documents whose files no longer exist under the source path")
+        private boolean sweep;
+
+        @Option(names = {"--resume"}, description = "Continue an interrupted run from its last checkpoint")
+        private boolean resume;
+
+        @Option(names = {"--checkpoint-docs"}, description = "Commit a checkpoint every N indexed files (0 to disable)", defaultValue = "1000")
+        private int checkpointDocs;
+
+        @Option(names = {"--checkpoint-mb"}, description = "Commit a checkpoint every N MB of indexed files (0 to disable)", defaultValue = "512")
+        private long checkpointMB;
+
+        @Option(names = {"--checkpoint-interval"}, description = "Commit a checkpoint every N seconds (0 to disable)", defaultValue = "300")
+        private long checkpointSeconds;
+
+        @Option(names = {"--pdf-parallel-pages"}, description = "Extract PDFs with at least N pages as parallel page ranges (0 to disable)", defaultValue = "300")
+        private int pdfParallelPages;
+
+        @Option(names = {"--pdf-threads"}, description = "Threads shared by page-parallel PDF extraction (default: number of CPU cores)")
+        private int pdfThreads = Runtime.getRuntime().availableProcessors();
+
+        @Option(names = {"--pdf-temp-file-mb"}, description = "Buffer PDFs larger than N MB in temp files instead of heap (0 to disable)", defaultValue = "64")
+        private long pdfTempFileMB;
+
+        @Option(names = {"--no-pdf-ocr"}, description = "Do not OCR PDF pages that have no text layer")
+        private boolean noPdfOcr;
+
+        @Option(names = {"--ocr-dpi"}, description = "Resolution used to render scanned PDF pages for OCR", defaultValue = "300")
+        private float ocrDpi;
+
+        @Option(names = {"--ocr-min-size"}, description = "Skip OCR for images narrower or shorter than N pixels", defaultValue = "" + OcrCostControls.DEFAULT_MIN_SIZE)
+        private int ocrMinSize;
+
+        @Option(names = {"--ocr-max-side"}, description = "Downscale images whose longer side exceeds N pixels before OCR (0 to disable)", defaultValue = "" + OcrCostControls.DEFAULT_MAX_SIDE)
+        private int ocrMaxSide;
+
+        @Option(names = {"--profile"}, description = "Extraction profile: fast (text layer only, no OCR or embedded images), balanced (OCR images and scanned PDF pages, skip embedded images) or full", defaultValue = "full")
+        private String profile;
+
+        @Option(names = {"--profile-for"}, description = "Per-path extraction profile by glob (.docindexignore syntax, relative to the indexed folder; a matching folder applies to everything below it), e.g. archive=fast scans/**=full")
+        private Map<String, String> profileFor = new LinkedHashMap<>();
+
+        @Option(names = {"--max-chars"}, description = "Keep at most N characters of text per document (0 for no limit)", defaultValue = "" + ExtractionLimits.DEFAULT_MAX_CHARS)
+        private int maxChars;
+
+        @Option(names = {"--max-embedded-depth"}, description = "Do not parse documents nested deeper than N levels in archives/attachments (0 for no limit)", defaultValue = "" + ExtractionLimits.DEFAULT_MAX_EMBEDDED_DEPTH)
+        private int maxEmbeddedDepth;
+
+        @Option(names = {"--max-embedded"}, description = "Parse at most N embedded documents per file (0 for no limit)", defaultValue = "" + ExtractionLimits.DEFAULT_MAX_EMBEDDED)
+        private int maxEmbedded;
+
+        @Option(names = {"--max-expansion"}, description = "Stop once text exceeds N characters per input byte, beyond the first 1M characters (0 for no limit)", defaultValue = "" + ExtractionLimits.DEFAULT_MAX_EXPANSION)
+        private int maxExpansion;
+
+        @Option(names = {"--cache-dir"}, description = "Extraction cache directory (default: ~/.cache/docindex/extract)")
+        private String cacheDir;
+
+        @Option(names = {"--cache-max-mb"}, description = "Prune the extraction cache to N MB after indexing", defaultValue = "2048")
+        private long cacheMaxMB;
+
+        @Option(names = {"--no-cache"}, description = "Do not read or write the extraction cache")
+        private boolean noCache;
+
+        @Option(names = {"--isolate"}, description = "Extract in child JVMs with a per-file timeout and heap cap")
+        private boolean isolate;
+
+        @Option(names = {"--timeout"}, description = "Per-file extraction timeout in seconds (with --isolate)", defaultValue = "120")
+        private long timeoutSeconds;
+
+        @Option(names = {"--worker-heap"}, description = "Child JVM max heap in MB (with --isolate)", defaultValue = "1024")
+        private int workerHeapMB;
+
+        @Option(names = {"--worker-max-files"}, description = "Restart each child JVM after N files (with --isolate)", defaultValue = "500")
+        private int workerMaxFiles;
+
+        @Option(names = {"--retry-quarantined"}, description = "Retry files that previously timed out or crashed a worker")
+        private boolean retryQuarantined;
+
+        private static final int PROGRESS_BAR_WIDTH = 30;
+        // 中斷（Ctrl-C / SIGTERM）時的結束碼
+        private static final int EXIT_INTERRUPTED = 130;
+
+        private FileWalker walker;
+        private FileWalker counter;
+        private volatile IndexPipeline activePipeline;
+        private volatile boolean walkFinished;
+        private volatile boolean countFinished;
+        private volatile boolean interrupted;
+
+        @Override
+        public Integer call() {
+            try {
+                Path indexPath = Paths.get(indexDir).toAbsolutePath();
+                SizeLimits sizeLimits = SizeLimits.of(maxSizeMB * 1024L * 1024L, maxSizeForType);
+
+                // 上次提交的進度：判斷是否有中斷的作業
+                IndexCheckpoint previous = Files.isDirectory(indexPath) ? IndexCheckpoint.read(indexPath) : null;
+                boolean resuming = resume && previous != null && previous.isIncomplete();
+                if (resume && !resuming && !jsonOutput) {
+                    System.out.println("沒有中斷的索引作業，執行一般增量索引");
+                }
+                if (sourcePath == null && !resuming) {
+                    System.err.println("Error: Missing path to index (required unless resuming an interrupted run)");
+                    return 1;
+                }
+
+                Path source = sourcePath != null ? Paths.get(sourcePath).toAbsolutePath() : Paths.get(previous.getSource());
+                if (resuming && !source.toString().equals(previous.getSource())) {
+                    System.err.println("Error: Interrupted run was indexing " + previous.getSource() + ", not " + source);
+                    return 1;
+                }
+                if (!resume && previous != null && previous.isIncomplete() && !jsonOutput) {
+                    System.out.println("上次索引作業未完成（" + previous.getSource() + "），可使用 --resume 繼續");
+                }
+                IndexCheckpoint checkpoint = resuming
+                    ? previous.resume()
+                    : IndexCheckpoint.start(source.toString(), fullReindex);
+
+                // 確保索引目錄存在
+                Files.createDirectories(indexPath);
+
+                TikaExtractor extractor = new TikaExtractor();
+
+                // 先前逾時或造成子程序當掉的檔案
+                Quarantine quarantine = Quarantine.load(indexPath);
+
+                // 增量索引：載入檔案狀態目錄（繼續中斷的作業時，目錄中已有完成的檔案，不可清除）
+                FileStateCatalog catalog = FileStateCatalog.load(indexPath);
+                // 索引檔已被刪除時，目錄已不可信
+                if ((fullReindex && !resuming) || !LuceneIndexer.indexExists(indexPath)) {
+                    catalog.clear();
+                }
+
+                if (!Files.exists(source)) {
+                    System.err.println("Path does not exist: " + sourcePath);
+                    return 1;
+                }
+                ProfileSelector profiles = ProfileSelector.of(source, profile, profileFor);
+
+                if (!jsonOutput) {
+                    System.out.println("索引目錄: " + source);
+                    System.out.println("索引檔: " + indexPath);
+                    if (resuming) {
+                        System.out.println("繼續中斷的作業: 已索引 " + checkpoint.getPreviousIndexed() + " 個檔案");
+                    }
+                    System.out.println("最大檔案: " + maxSizeMB + " MB"
+                        + (maxSizeForType.isEmpty() ? "" : " " + maxSizeForType));
+                    System.out.println("提取模式: " + profiles.getDefaultProfile().getKey()
+                        + (profileFor.isEmpty() ? "" : " " + profiles.getRules()));
+                    System.out.println("執行緒數: " + threads + (walkThreads > 1 ? "（走訪 " + walkThreads + "）" : "")
+                        + (ocrThreads > 0 ? "（OCR " + ocrThreads + "）" : ""));
+                    if (isolate) {
+                        System.out.println("隔離提取: 子程序 " + workerHeapMB + " MB, 逾時 " + timeoutSeconds + " 秒");
+                    }
+                    if (quarantine.size() > 0 && !retryQuarantined) {
+                        System.out.println("隔離清單: " + quarantine.size() + " 個檔案將略過（--retry-quarantined 重新嘗試）");
+                    }
+                    System.out.println();
+                }
+
+                // 排除規則：預設排除 + 命令列 + 各層 .docindexignore
+                IgnoreRules ignoreRules = IgnoreRules.forRoot(source, !noDefaultIgnores, excludes, includes);
+
+                // 走訪與提取同時進行；另一個執行緒只計算檔案總數供進度條使用
+                // 只有實際走訪會檢查檔頭，計數走訪不讀取檔案內容
+                walker = new FileWalker(recursive, sizeLimits, extractor::isSupported, catalog)
+                    .setParallelism(walkThreads)
+                    .setIgnoreRules(ignoreRules)
+                    .setSniffer(noSniff ? null : new FileSniffer())
+                    .setProfiles(profiles);
+                counter = new FileWalker(recursive, sizeLimits, extractor::isSupported, catalog)
+                    .setParallelism(walkThreads)
+                    .setIgnoreRules(ignoreRules)
+                    .setProfiles(profiles);
+                Thread countThread = new Thread(() -> {
+                    try {
+                        counter.walk(source, (file, attrs) -> { });
+                        countFinished = true;
+                    } catch (Exception e) {
+                        // 計數失敗不影響索引，進度條改用已走訪數量
+                    }
+                }, "index-counter");
+                countThread.setDaemon(true);
+                if (!jsonOutput) {
+                    countThread.start();
+                }
+
+                int indexedCount;
+                int errorCount;
+                int unchangedCount;
+                int removedCount = 0;
+                long sweepMillis = 0;
+                int checkpointCount = 0;
+                int quarantinedCount = 0;
+                Error fatal;
+                List<IndexPipeline.LaneStats> laneStats;
+                List<IndexPipeline.ProfileStats> profileStats;
+                IndexPipeline.MemoryStats memoryStats;
+                // 所有提取執行緒共用，相同的圖片在整批索引中只辨識一次（--isolate 時各子程序各自計算）
+                OcrCostControls ocrControls = new OcrCostControls(ocrMinSize, ocrMaxSide,
+                    OcrCostControls.DEFAULT_MIN_ENTROPY, OcrCostControls.DEFAULT_CACHE_ENTRIES);
+                ExtractionCache extractionCache = noCache ? null
+                    : new ExtractionCache(cacheDirectory(cacheDir), cacheMaxMB * 1024L * 1024L);
+                ExtractionCache.PruneResult cachePruned = null;
+                ExtractionLimits limits = new ExtractionLimits(maxChars, maxEmbeddedDepth, maxEmbedded, maxExpansion);
+                int truncatedCount = 0;
+                AtomicInteger processed = new AtomicInteger();
+                String[] currentDir = {""};
+
+                try (LuceneIndexer indexer = new LuceneIndexer(indexPath)) {
+                    indexer.openWriter();
+
+                    IndexPipeline.Listener listener = (file, outcome) -> {
+                        int done = processed.incrementAndGet();
+                        if (jsonOutput) {
+                            return;
+                        }
+                        synchronized (currentDir) {
+                            String fileDir = file.getParent().toString();
+                            // 更新目錄顯示
+                            if (!fileDir.equals(currentDir[0])) {
+                                currentDir[0] = fileDir;
+                                // 清除進度條那行，顯示目錄
+                                System.out.print("\r\033[K");
+                                String displayDir = truncatePath(currentDir[0], 60);
+                                System.out.println("📁 " + displayDir);
+                            }
+                            // 更新進度條
+                            printProgress(done, estimatedTotal(), !walkFinished && !countFinished,
+                                file.getFileName().toString());
+                        }
+                    };
+
+                    // 開始前先提交一次，讓中途當機時也能辨識這次作業
+                    commitWithCatalog(indexer, catalog, checkpoint.toUserData(IndexCheckpoint.STATUS_RUNNING, 0));
+
+                    // 未安裝 Tesseract 時圖檔不做 OCR，也不排進 OCR 通道
+                    OcrService ocrService = new OcrService(ocrControls);
+                    Supplier<? extends DocumentExtractor> extractors;
+                    ExecutorService pagePool = null;
+                    ExecutorService pageOcrPool = null;
+                    if (isolate) {
+                        List<String> workerArgs = new ArrayList<>(List.of(ForkedExtractor.WORKER_COMMAND,
+                            "--pdf-parallel-pages", String.valueOf(pdfParallelPages),
+                            "--pdf-threads", String.valueOf(pdfThreads),
+                            "--pdf-temp-file-mb", String.valueOf(pdfTempFileMB),
+                            "--ocr-threads", String.valueOf(ocrThreads),
+                            "--ocr-dpi", String.valueOf(ocrDpi),
+                            "--ocr-min-size", String.valueOf(ocrMinSize),
+                            "--ocr-max-side", String.valueOf(ocrMaxSide),
+                            "--max-chars", String.valueOf(maxChars),
+                            "--max-embedded-depth", String.valueOf(maxEmbeddedDepth),
+                            "--max-embedded", String.valueOf(maxEmbedded),
+                            "--max-expansion", String.valueOf(maxExpansion),
+                            "--profile", profile,
+                            "--profile-root", source.toString()));
+                        for (Map.Entry<String, String> rule : profiles.getRules().entrySet()) {
+                            workerArgs.add("--profile-for");
+                            workerArgs.add(rule.getKey() + "=" + rule.getValue());
+                        }
+                        if (noPdfOcr) {
+                            workerArgs.add("--no-pdf-ocr");
+                        }
+                        List<String> workerCommand = ForkedExtractor.javaCommand(
+                            workerHeapMB, DocIndexCli.class.getName(), workerArgs.toArray(new String[0]));
+                        Path workerLog = indexPath.resolve("worker.log");
+                        extractors = () -> new ForkedExtractor(workerCommand, timeoutSeconds * 1000L, workerMaxFiles, workerLog);
+                    } else {
+                        // 所有提取執行緒共用同一個分頁池與 OCR 池，同時處理多個大型 PDF 時不會超額建立執行緒
+                        pagePool = pdfParallelPages > 0 ? newPool("pdf-page-", pdfThreads) : null;
+                        OcrService pageOcr = noPdfOcr ? null : ocrService;
+                        pageOcrPool = pageOcr != null && pageOcr.isAvailable()
+                            ? newPool("pdf-ocr-", Math.max(1, ocrThreads)) : null;
+                        extractors = pdfExtractors(ocrControls, limits, profiles, pdfTempFileMB * 1024L * 1024L, pagePool,
+                            pdfThreads, pdfParallelPages, pageOcrPool != null ? pageOcr : null, pageOcrPool,
+                            Math.max(1, ocrThreads), ocrDpi);
+                    }
+                    if (extractionCache != null) {
+                        extractors = cached(extractors, extractionCache,
+                            extractionVariant(profiles, !noPdfOcr, ocrDpi, ocrMinSize, ocrMaxSide, limits));
+                    }
+                    IndexPipeline pipeline = new IndexPipeline(indexer, extractors, catalog, threads, ocrThreads, listener)
+                        .setQuarantine(quarantine, !retryQuarantined)
+                        .setProfiles(profiles)
+                        .setImageOcr(ocrService.isAvailable());
+                    activePipeline = pipeline;
+
+                    // Ctrl-C / SIGTERM：停止走訪、丟棄尚未開始的檔案，等待主執行緒提交後才結束
+                    CountDownLatch stopped = new CountDownLatch(1);
+                    Thread shutdownHook = new Thread(() -> {
+                        interrupted = true;
+                        walker.cancel();
+                        counter.cancel();
+                        pipeline.cancel();
+                        try {
+                            stopped.await(60, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            // 結束中，忽略
+                        }
+                    }, "index-shutdown");
+                    Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+                    // 依文件數、位元組數或時間定期提交 checkpoint
+                    Checkpointer checkpointer = new Checkpointer(indexer, catalog, checkpoint, pipeline, quarantine);
+                    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread t = new Thread(r, "index-checkpoint");
+                        t.setDaemon(true);
+                        return t;
+                    });
+                    scheduler.scheduleWithFixedDelay(checkpointer::maybeCheckpoint, 1, 1, TimeUnit.SECONDS);
+
+                    try {
+                        try {
+                            walker.walk(source, pipeline::submit);
+                            walkFinished = true;
+                            counter.cancel();
+                            pipeline.awaitCompletion();
+                        } finally {
+                            scheduler.shutdown();
+                            scheduler.awaitTermination(60, TimeUnit.SECONDS);
+                            if (pagePool != null) {
+                                pagePool.shutdownNow();
+                            }
+                            if (pageOcrPool != null) {
+                                pageOcrPool.shutdownNow();
+                            }
+                        }
+                        indexedCount = pipeline.getIndexedCount();
+                        errorCount = pipeline.getErrorCount();
+                        unchangedCount = (int) walker.getStats().getUnchanged() + pipeline.getUnchangedCount();
+                        checkpointCount = checkpointer.count;
+                        quarantinedCount = pipeline.getQuarantinedCount();
+                        truncatedCount = pipeline.getTruncatedCount();
+                        laneStats = pipeline.getLaneStats();
+                        profileStats = pipeline.getProfileStats();
+                        memoryStats = pipeline.getMemoryStats();
+                        // 工作執行緒遇到 Error（例如 OutOfMemoryError）時，這次索引記為中斷，之後可用 --resume 補上
+                        fatal = pipeline.getFatalError();
+                        if (extractionCache != null && extractionCache.getWrites() > 0) {
+                            cachePruned = extractionCache.prune();
+                        }
+
+                        // 清除已從磁碟消失的文件（中斷時不執行，否則未走訪的部分也會被當成已消失）
+                        if (sweep && !interrupted && fatal == null) {
+                            long sweepStart = System.currentTimeMillis();
+                            removedCount = indexer.deleteStaleDocuments(source.toString(), path -> isMissing(path, catalog));
+                            sweepMillis = System.currentTimeMillis() - sweepStart;
+                        }
+
+                        String status = interrupted || fatal != null
+                            ? IndexCheckpoint.STATUS_INTERRUPTED : IndexCheckpoint.STATUS_COMPLETE;
+                        commitWithCatalog(indexer, catalog, checkpoint.toUserData(status, indexedCount));
+                        quarantine.save();
+                    } finally {
+                        stopped.countDown();
+                        if (!interrupted) {
+                            try {
+                                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                            } catch (IllegalStateException e) {
+                                // 已在結束程序中
+                            }
+                        }
+                    }
+
+                    // 完成後清除進度條
+                    if (!jsonOutput) {
+                        System.out.print("\r\033[K");
+                        System.out.println(interrupted || fatal != null ? "\n⏸  索引已中斷，進度已保存" : "\n✅ 索引完成！");
+                    }
+                }
+
+                int totalFiles = (int) walker.getStats().getAccepted();
+                // 索引走訪會被提取速度拖慢（背壓），計數走訪完成時以它的數據代表純走訪速度
+                FileWalker.Stats walkStats = countFinished ? counter.getStats() : walker.getStats();
+
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("status", fatal != null ? "failed" : interrupted ? "interrupted" : "success");
+                if (fatal != null) {
+                    result.put("error", fatal.toString());
+                }
+                result.put("runId", checkpoint.getRunId());
+                result.put("resumed", resuming);
+                result.put("indexedCount", indexedCount);
+                result.put("totalFiles", totalFiles);
+                result.put("unchangedCount", unchangedCount);
+                result.put("errorCount", errorCount);
+                result.put("quarantinedCount", quarantinedCount);
+                result.put("quarantineSize", quarantine.size());
+                result.put("truncatedCount", truncatedCount);
+                if (sweep) {
+                    result.put("removedCount", removedCount);
+                    result.put("sweepMillis", sweepMillis);
+                }
+                result.put("ignoredCount", walkStats.getIgnored());
+                result.put("prunedDirs", walkStats.getPrunedDirs());
+                result.put("tooLargeCount", walkStats.getTooLarge());
+                // 檔頭檢查只在索引走訪進行
+                FileWalker.Stats sniffStats = walker.getStats();
+                Map<String, Object> sniffed = new LinkedHashMap<>();
+                for (FileSniffer.Reason reason : FileSniffer.Reason.values()) {
+                    sniffed.put(reason.getKey(), sniffStats.getSniffed(reason));
+                }
+                result.put("sniffedCount", sniffed);
+                result.put("checkpointCount", checkpointCount);
+                Map<String, Object> lanes = new LinkedHashMap<>();
+                for (IndexPipeline.LaneStats lane : laneStats) {
+                    Map<String, Object> laneResult = new LinkedHashMap<>();
+                    laneResult.put("threads", lane.getThreads());
+                    laneResult.put("completed", lane.getCompleted());
+                    laneResult.put("busyMillis", lane.getBusyMillis());
+                    laneResult.put("filesPerSecond", Math.round(lane.getFilesPerSecond() * 10) / 10.0);
+                    lanes.put(lane.getName(), laneResult);
+                }
+                result.put("lanes", lanes);
+                Map<String, Object> profileResults = new LinkedHashMap<>();
+                for (IndexPipeline.ProfileStats stats : profileStats) {
+                    Map<String, Object> profileResult = new LinkedHashMap<>();
+                    profileResult.put("documents", stats.getDocuments());
+                    profileResult.put("bytes", stats.getBytes());
+                    profileResult.put("extractMillis", stats.getExtractMillis());
+                    profileResult.put("filesPerSecond", Math.round(stats.getFilesPerSecond() * 10) / 10.0);
+                    profileResult.put("megabytesPerSecond", Math.round(stats.getMegabytesPerSecond() * 10) / 10.0);
+                    profileResults.put(stats.getName(), profileResult);
+                }
+                result.put("profiles", profileResults);
+                if (memoryStats.getDocuments() > 0) {
+                    Map<String, Object> memory = new LinkedHashMap<>();
+                    memory.put("averageAllocatedMB", toMB(memoryStats.getAverageBytes()));
+                    memory.put("peakAllocatedMB", toMB(memoryStats.getPeakBytes()));
+                    memory.put("peakFile", memoryStats.getPeakFile() != null ? memoryStats.getPeakFile().toString() : null);
+                    result.put("documentMemory", memory);
+                }
+                if (extractionCache != null) {
+                    Map<String, Object> cacheResult = new LinkedHashMap<>();
+                    cacheResult.put("hits", extractionCache.getHits());
+                    cacheResult.put("misses", extractionCache.getMisses());
+                    cacheResult.put("prunedEntries", cachePruned != null ? cachePruned.getRemoved() : 0);
+                    result.put("extractionCache", cacheResult);
+                }
+                if (ocrControls.getImages() > 0) {
+                    Map<String, Object> ocr = new LinkedHashMap<>();
+                    ocr.put("recognized", ocrControls.getRecognized());
+                    ocr.put("cacheHits", ocrControls.getCacheHits());
+                    ocr.put("skippedSmall", ocrControls.getSkippedSmall());
+                    ocr.put("skippedBlank", ocrControls.getSkippedBlank());
+                    ocr.put("downscaled", ocrControls.getDownscaled());
+                    ocr.put("ocrMillis", ocrControls.getOcrMillis());
+                    result.put("ocr", ocr);
+                }
+                result.put("walkEntries", walkStats.getVisited());
+                result.put("walkMillis", walkStats.getElapsedMillis());
+                result.put("walkEntriesPerSecond", Math.round(walkStats.getEntriesPerSecond()));
+                result.put("indexPath", indexPath.toString());
+
+                if (jsonOutput) {
+                    System.out.println(gson.toJson(result));
+                } else {
+                    System.out.println("成功索引: " + indexedCount + " 個檔案");
+                    if (unchangedCount > 0) {
+                        System.out.println("未變更: " + unchangedCount + " 個檔案");
+                    }
+                    if (errorCount > 0) {
+                        System.out.println("失敗: " + errorCount + " 個檔案");
+                    }
+                    if (quarantinedCount > 0) {
+                        System.out.println("隔離略過: " + quarantinedCount + " 個檔案");
+                    }
+                    if (truncatedCount > 0) {
+                        System.out.println("內容截斷: " + truncatedCount + " 個檔案（達到提取上限，只索引前段）");
+                    }
+                    if (sweep) {
+                        System.out.println("移除過期: " + removedCount + " 個文件 (" + sweepMillis + " ms)");
+                    }
+                    if (walkStats.getIgnored() > 0 || walkStats.getPrunedDirs() > 0) {
+                        System.out.println("排除: " + walkStats.getIgnored() + " 個檔案, "
+                            + walkStats.getPrunedDirs() + " 個目錄");
+                    }
+                    if (walkStats.getTooLarge() > 0) {
+                        System.out.println("超過大小上限: " + walkStats.getTooLarge() + " 個檔案");
+                    }
+                    if (sniffStats.getSniffed() > 0) {
+                        System.out.println(String.format("檔頭檢查略過: 二進位 %d, 加密 %d, 副檔名不符 %d, 壓縮檔無文件 %d, 無法辨識 %d",
+                            sniffStats.getSniffed(FileSniffer.Reason.BINARY),
+                            sniffStats.getSniffed(FileSniffer.Reason.ENCRYPTED),
+                            sniffStats.getSniffed(FileSniffer.Reason.MISMATCH),
+                            sniffStats.getSniffed(FileSniffer.Reason.NO_DOCUMENTS),
+                            sniffStats.getSniffed(FileSniffer.Reason.UNRECOGNIZED)));
+                    }
+                    System.out.println(String.format("走訪: %d 個項目, %d ms (%.0f 項目/秒)",
+                        walkStats.getVisited(), walkStats.getElapsedMillis(), walkStats.getEntriesPerSecond()));
+                    if (laneStats.size() > 1) {
+                        for (IndexPipeline.LaneStats lane : laneStats) {
+                            System.out.println(String.format("通道 %s: %d 個檔案, %d 執行緒, %.1f 檔案/秒",
+                                lane.getName(), lane.getCompleted(), lane.getThreads(), lane.getFilesPerSecond()));
+                        }
+                    }
+                    for (IndexPipeline.ProfileStats stats : profileStats) {
+                        System.out.println(String.format("提取模式 %s: %d 個檔案, %.1f MB, 每執行緒 %.1f 檔案/秒, %.1f MB/秒",
+                            stats.getName(), stats.getDocuments(), toMB(stats.getBytes()),
+                            stats.getFilesPerSecond(), stats.getMegabytesPerSecond()));
+                    }
+                    if (extractionCache != null && extractionCache.getHits() + extractionCache.getMisses() > 0) {
+                        System.out.println("提取快取: 命中 " + extractionCache.getHits()
+                            + ", 未命中 " + extractionCache.getMisses()
+                            + (cachePruned != null && cachePruned.getRemoved() > 0
+                                ? ", 清理 " + cachePruned.getRemoved() + " 個項目" : ""));
+                    }
+                    if (ocrControls.getImages() > 0) {
+                        System.out.println(String.format("OCR: 辨識 %d 張影像 (%d ms), 快取命中 %d, 略過過小 %d, 略過空白 %d, 縮小 %d",
+                            ocrControls.getRecognized(), ocrControls.getOcrMillis(), ocrControls.getCacheHits(),
+                            ocrControls.getSkippedSmall(), ocrControls.getSkippedBlank(), ocrControls.getDownscaled()));
+                    }
+                    if (memoryStats.getDocuments() > 0 && memoryStats.getPeakFile() != null) {
+                        System.out.println(String.format("單檔堆積配置: 平均 %.1f MB, 最大 %.1f MB (%s)",
+                            toMB(memoryStats.getAverageBytes()), toMB(memoryStats.getPeakBytes()),
+                            memoryStats.getPeakFile().getFileName()));
+                    }
+                    System.out.println("索引路徑: " + indexPath);
+                    if (interrupted || fatal != null) {
+                        System.out.println("使用 --resume 從最後的 checkpoint 繼續");
+                    }
+                }
+
+                if (fatal != null) {
+                    System.err.println("Error: " + fatal);
+                    return 1;
+                }
+                return interrupted ? EXIT_INTERRUPTED : 0;
+            } catch (Exception e) {
+                System.err.println("Error: " + e.getMessage());
+                e.printStackTrace();
+                return 1;
+            }
+        }
+
+        /**
+         * 定期 checkpoint：達到文件數、位元組數或時間任一門檻時提交
+         */
+        private final class Checkpointer {
+            private final LuceneIndexer indexer;
+            private final FileStateCatalog catalog;
+            private final IndexCheckpoint checkpoint;
+            private final IndexPipeline pipeline;
+            private final Quarantine quarantine;
+            private int lastDocs;
+            private long lastBytes;
+            private long lastMillis = System.currentTimeMillis();
+            private volatile int count;
+
+            Checkpointer(LuceneIndexer indexer, FileStateCatalog catalog, IndexCheckpoint checkpoint,
+                         IndexPipeline pipeline, Quarantine quarantine) {
+                this.indexer = indexer;
+                this.catalog = catalog;
+                this.checkpoint = checkpoint;
+                this.pipeline = pipeline;
+                this.quarantine = quarantine;
+            }
+
+            void maybeCheckpoint() {
+                int docs = pipeline.getIndexedCount();
+                long bytes = pipeline.getIndexedBytes();
+                long now = System.currentTimeMillis();
+                if (docs == lastDocs) {
+                    return;
+                }
+                boolean due = (checkpointDocs > 0 && docs - lastDocs >= checkpointDocs)
+                    || (checkpointMB > 0 && bytes - lastBytes >= checkpointMB * 1024L * 1024L)
+                    || (checkpointSeconds > 0 && now - lastMillis >= checkpointSeconds * 1000L);
+                if (!due) {
+                    return;
+                }
+                try {
+                    commitWithCatalog(indexer, catalog, checkpoint.toUserData(IndexCheckpoint.STATUS_RUNNING, docs));
+                    quarantine.save();
+                    lastDocs = docs;
+                    lastBytes = bytes;
+                    lastMillis = now;
+                    count++;
+                } catch (Exception e) {
+                    System.err.println("Checkpoint failed: " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * 目前已知的檔案總數（走訪完成前為估計值）
+         */
+        private long estimatedTotal() {
+            long walked = walker.getStats().getAccepted();
+            if (walkFinished) {
+                return walked;
+            }
+            return Math.max(walked, counter.getStats().getAccepted());
+        }
+
+        private void printProgress(int current, long total, boolean scanning, String fileName) {
+            double progress = total > 0 ? Math.min(1.0, (double) current / total) : 0;
+            int percent = (int) (progress * 100);
+            int filled = (int) (progress * PROGRESS_BAR_WIDTH);
+            int empty = PROGRESS_BAR_WIDTH - filled;
+
+            StringBuilder bar = new StringBuilder();
+            // 清除整行並移到行首
+            bar.append("\r\033[K");
+            bar.append(String.format("%3d%% ", percent));
+            for (int i = 0; i < filled; i++) bar.append("█");
+            for (int i = 0; i < empty; i++) bar.append("░");
+            // 仍在掃描時總數後加上 +
+            bar.append(String.format(" [%d/%d%s] ", current, total, scanning ? "+" : ""));
+
+            // 各通道排隊中的檔案數（只有 OCR 通道時才顯示）
+            IndexPipeline pipeline = activePipeline;
+            if (pipeline != null) {
+                for (IndexPipeline.LaneStats lane : pipeline.getLaneStats()) {
+                    if (!"text".equals(lane.getName()) && lane.getQueueDepth() > 0) {
+                        bar.append(lane.getName().toUpperCase()).append(':').append(lane.getQueueDepth()).append(' ');
+                    }
+                }
+            }
+
+            // 截斷檔名以適應終端寬度
+            String displayName = truncateString(fileName, 25);
+            bar.append(displayName);
+
+            // 填充空白確保覆蓋舊內容
+            int padding = 80 - bar.length();
+            for (int i = 0; i < padding && i < 20; i++) bar.append(" ");
+
+            System.out.print(bar.toString());
+            System.out.flush();
+        }
+
+        private String truncateString(String str, int maxLen) {
+            if (str.length() <= maxLen) return str;
+            return str.substring(0, maxLen - 3) + "...";
+        }
+
+        private String truncatePath(String path, int maxLen) {
+            if (path.length() <= maxLen) return path;
+            // 從路徑開頭截斷，保留結尾
+            return "..." + path.substring(path.length() - maxLen + 3);
+        }
+    }
+
+    /**
+     * 檢查已索引的檔案是否已從磁碟消失（消失時一併移出檔案狀態目錄）
+     */
+    private static boolean isMissing(String filePath, FileStateCatalog catalog) {
+        if (Files.isRegularFile(Paths.get(filePath))) {
+            return false;
+        }
+        catalog.remove(filePath);
+        return true;
+    }
+
+    // ========== 讀取命令 ==========
+    @Command(name = "read", description = "Read content of a specific document by path")
+    static class ReadCommand implements Callable<Integer> {
+
+        @Parameters(index = "0", description = "File path to read")
+        private String filePath;
+
+        @Option(names = {"--json"}, description = "Output as JSON")
+        private boolean jsonOutput;
+
+        @Option(names = {"-l", "--limit"}, description = "Limit content length", defaultValue = "5000")
+        private int limit;
+
+        @Option(names = {"-i", "--index-dir"}, description = "Index directory whose serve daemon (if running) extracts the file", defaultValue = "./index-data")
+        private String indexDir;
+
+        @Option(names = {"--no-daemon"}, description = "Extract in this process even if a serve daemon is running")
+        private boolean noDaemon;
+
+        @Override
+        public Integer call() {
+            try {
+                Path path = Paths.get(filePath).toAbsolutePath();
+
+                if (!Files.exists(path)) {
+                    System.err.println("File does not exist: " + filePath);
+                    return 1;
+                }
+
+                JsonObject params = new JsonObject();
+                params.addProperty("path", path.toString());
+                params.addProperty("limit", limit);
+                JsonObject output = SearchCli.callDaemon(Paths.get(indexDir).toAbsolutePath(), noDaemon, "read", params);
+                if (output == null) {
+                    TikaExtractor extractor = new TikaExtractor(limit);
+                    DocumentInfo doc = extractor.extract(path);
+                    output = gson.toJsonTree(SearchService.toReadResult(doc)).getAsJsonObject();
+                }
+
+                if (jsonOutput) {
+                    System.out.println(gson.toJson(output));
+                } else {
+                    System.out.println("File: " + SearchCli.jsonString(output, "fileName"));
+                    System.out.println("Path: " + SearchCli.jsonString(output, "filePath"));
+                    System.out.println("Type: " + SearchCli.jsonString(output, "contentType"));
+                    System.out.println("Size: " + output.get("fileSize").getAsLong() + " bytes");
+                    System.out.println("\n--- Content ---\n");
+                    System.out.println(SearchCli.jsonString(output, "content"));
+                }
+
+                return 0;
+            } catch (Exception e) {
+                System.err.println("Error: " + e.getMessage());
+                return 1;
+            }
+        }
+    }
+
+    // ========== 清除過期文件命令 ==========
+    @Command(name = "sweep", description = "Remove indexed documents whose files no longer exist")
+    static class SweepCommand implements Callable<Integer> {
+
+        @Parameters(index = "0", arity = "0..1", description = "Only sweep documents under this path (default: whole index)")
+        private String sourcePath;
+
+        @Option(names = {"-i", "--index-dir"}, description = "Index directory path", defaultValue = "./index-data")
+        private String indexDir;
+
+        @Option(names = {"--json"}, description = "Output as JSON")
+        private boolean jsonOutput;
+
+        @Override
+        public Integer call() {
+            try {
+                Path indexPath = Paths.get(indexDir).toAbsolutePath();
+
+                if (!Files.exists(indexPath)) {
+                    System.err.println("Index directory does not exist: " + indexDir);
+                    return 1;
+                }
+
+                String prefix = sourcePath != null ? Paths.get(sourcePath).toAbsolutePath().toString() : "";
+                FileStateCatalog catalog = FileStateCatalog.load(indexPath);
+
+                long start = System.currentTimeMillis();
+                int removedCount;
+                try (LuceneIndexer indexer = new LuceneIndexer(indexPath)) {
+                    removedCount = indexer.deleteStaleDocuments(prefix, path -> isMissing(path, catalog));
+                    indexer.commit();
+                }
+                catalog.save();
+                long elapsedMillis = System.currentTimeMillis() - start;
+
+                if (jsonOutput) {
+                    Map<String, Object> output = new LinkedHashMap<>();
+                    output.put("status", "success");
+                    output.put("removedCount", removedCount);
+                    output.put("elapsedMillis", elapsedMillis);
+                    output.put("indexPath", indexPath.toString());
+                    System.out.println(gson.toJson(output));
+                } else {
+                    System.out.println("Removed " + removedCount + " stale documents in " + elapsedMillis + " ms");
+                }
+
+                return 0;
+            } catch (Exception e) {
+                System.err.println("Error: " + e.getMessage());
+                return 1;
+            }
+        }
+    }
+
+    // ========== 監看命令 ==========
+    @Command(name = "watch", description = "Watch a directory and keep the index up to date")
+    static class WatchCommand implements Callable<Integer> {
+
+        // 本程序回應查詢的執行緒數（與 serve 預設相同）
+        private static final int WATCH_SERVE_THREADS = 4;
+
+        @Parameters(index = "0", description = "Directory to watch")
+        private String sourcePath;
+
+        @Option(names = {"-i", "--index-dir"}, description = "Index directory path", defaultValue = "./index-data")
+        private String indexDir;
+
+        @Option(names = {"-m", "--max-size"}, description = "Maximum file size in MB to index (skip larger files)", defaultValue = "20")
+        private int maxSizeMB;
+
+        @Option(names = {"--max-size-for"}, description = "Per-type size cap in MB, by extension or category (office, text, code, archive, image), e.g. pdf=100 image=5")
+        private Map<String, Integer> maxSizeForType = new LinkedHashMap<>();
+
+        @Option(names = {"--exclude"}, description = "Exclude glob in .docindexignore syntax (repeatable)")
+        private List<String> excludes = new ArrayList<>();
+
+        @Option(names = {"--include"}, description = "Only index files matching this glob (repeatable)")
+        private List<String> includes = new ArrayList<>();
+
+        @Option(names = {"--no-default-ignores"}, description = "Do not skip .git, node_modules and other VCS/dependency/cache folders")
+        private boolean noDefaultIgnores;
+
+        @Option(names = {"--no-sniff"}, description = "Decide by extension only; do not check file headers for binary, encrypted or mislabelled files")
+        private boolean noSniff;
+
+        @Option(names = {"-t", "--threads"}, description = "Number of extraction threads (default: number of CPU cores)")
+        private int threads = Runtime.getRuntime().availableProcessors();
+
+        @Option(names = {"--ocr-threads"}, description = "Threads for the separate OCR (image) lane, 0 to share the main queue (default: cores/2)")
+        private int ocrThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        @Option(names = {"--no-pdf-ocr"}, description = "Do not OCR PDF pages that have no text layer")
+        private boolean noPdfOcr;
+
+        @Option(names = {"--ocr-dpi"}, description = "Resolution used to render scanned PDF pages for OCR", defaultValue = "300")
+        private float ocrDpi;
+
+        @Option(names = {"--profile"}, description = "Extraction profile: fast (text layer only, no OCR or embedded images), balanced (OCR images and scanned PDF pages, skip embedded images) or full", defaultValue = "full")
+        private String profile;
+
+        @Option(names = {"--profile-for"}, description = "Per-path extraction profile by glob (.docindexignore syntax, relative to the watched folder; a matching folder applies to everything below it), e.g. archive=fast scans/**=full")
+        private Map<String, String> profileFor = new LinkedHashMap<>();
+
+        @Option(names = {"--cache-dir"}, description = "Extraction cache directory (default: ~/.cache/docindex/extract)")
+        private String cacheDir;
+
+        @Option(names = {"--no-cache"}, description = "Do not read or write the extraction cache")
+        private boolean noCache;
+
+        @Option(names = {"--debounce-ms"}, description = "Quiet period before a changed file is indexed", defaultValue = "500")
+        private long debounceMillis;
+
+        @Option(names = {"--refresh-ms"}, description = "How often searches served by this process see new changes, in milliseconds", defaultValue = "1000")
+        private long refreshMillis;
+
+        @Option(names = {"--commit-interval"}, description = "Commit interval in seconds", defaultValue = "30")
+        private long commitSeconds;
+
+        @Option(names = {"--no-serve"}, description = "Do not answer search/list/stats/read from this process; other processes then see changes only after each commit")
+        private boolean noServe;
+
+        @Override
+        public Integer call() {
+            try {
+                Path source = Paths.get(sourcePath).toAbsolutePath();
+                Path indexPath = Paths.get(indexDir).toAbsolutePath();
+                SizeLimits sizeLimits = SizeLimits.of(maxSizeMB * 1024L * 1024L, maxSizeForType);
+
+                if (!Files.isDirectory(source)) {
+                    System.err.println("Directory does not exist: " + sourcePath);
+                    return 1;
+                }
+                Files.createDirectories(indexPath);
+
+                FileStateCatalog catalog = FileStateCatalog.load(indexPath);
+                if (!LuceneIndexer.indexExists(indexPath)) {
+                    catalog.clear();
+                }
+                TikaExtractor filter = new TikaExtractor();
+                FileSniffer sniffer = noSniff ? null : new FileSniffer();
+                ProfileSelector profiles = ProfileSelector.of(source, profile, profileFor);
+
+                System.out.println("監看目錄: " + source);
+                System.out.println("索引檔: " + indexPath);
+                System.out.println("按 Ctrl-C 結束");
+                System.out.println();
+
+                LuceneIndexer indexer = new LuceneIndexer(indexPath);
+                indexer.openWriter();
+                indexer.getSearcherManager();
+
+                // 以近即時搜尋器回應查詢：search / list / stats / read 經由 serve.json 改用本程序，
+                // 新檔案在 --refresh-ms 內即可搜尋，不必等到下一次提交
+                SearchServer server = noServe ? null : startWatchServer(indexPath, indexer);
+
+                OcrService ocrService = new OcrService();
+                OcrService pageOcr = noPdfOcr ? null : ocrService;
+                ExecutorService pageOcrPool = pageOcr != null && pageOcr.isAvailable()
+                    ? newPool("pdf-ocr-", Math.max(1, ocrThreads)) : null;
+                Supplier<? extends DocumentExtractor> extractors = pdfExtractors(OcrCostControls.defaults(),
+                    ExtractionLimits.defaults(), profiles, TikaExtractor.DEFAULT_PDF_TEMP_FILE_THRESHOLD, null, 0, 0,
+                    pageOcr, pageOcrPool, Math.max(1, ocrThreads), ocrDpi);
+                if (!noCache) {
+                    // 監看模式不清理快取，由 index 或 cache prune 處理
+                    extractors = cached(extractors, new ExtractionCache(cacheDirectory(cacheDir), ExtractionCache.DEFAULT_MAX_BYTES),
+                        extractionVariant(profiles, !noPdfOcr, ocrDpi, OcrCostControls.DEFAULT_MIN_SIZE,
+                            OcrCostControls.DEFAULT_MAX_SIDE, ExtractionLimits.defaults()));
+                }
+
+                IndexPipeline pipeline = new IndexPipeline(indexer, extractors, catalog, threads, ocrThreads, (file, outcome) -> {
+                    if (outcome == IndexPipeline.Outcome.INDEXED) {
+                        System.out.println("✅ " + file);
+                    } else if (outcome == IndexPipeline.Outcome.FAILED) {
+                        System.out.println("❌ " + file);
+                    }
+                });
+                // 監看模式在程序內提取，只略過先前已隔離的檔案
+                pipeline.setQuarantine(Quarantine.load(indexPath), true)
+                    .setProfiles(profiles)
+                    .setImageOcr(ocrService.isAvailable());
+
+                DirectoryWatcher.Handler handler = new DirectoryWatcher.Handler() {
+                    @Override
+                    public void onFileChanged(Path file, BasicFileAttributes attrs) {
+                        if (attrs.size() > sizeLimits.maxSizeFor(file)) {
+                            return;
+                        }
+                        if (!filter.isSupported(file) && (sniffer == null || !FileSniffer.needsSniffing(file))) {
+                            return;
+                        }
+                        if (catalog.isUnchanged(file.toString(), attrs, profiles.catalogVersion(file))) {
+                            return;
+                        }
+                        if (sniffer != null && sniffer.sniff(file, attrs) != null) {
+                            return;
+                        }
+                        try {
+                            pipeline.submit(file, attrs);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+
+                    @Override
+                    public void onDeleted(Path path) {
+                        removeMissing(path);
+                    }
+
+                    @Override
+                    public void onRescanned(Path dir) {
+                        removeMissing(dir);
+                    }
+
+                    private void removeMissing(Path path) {
+                        try {
+                            int removed = indexer.deleteStaleDocuments(path.toString(), p -> isMissing(p, catalog));
+                            if (removed > 0) {
+                                System.out.println("🗑  " + path + " (" + removed + ")");
+                            }
+                        } catch (IOException e) {
+                            System.err.println("Failed to remove " + path + ": " + e.getMessage());
+                        }
+                    }
+                };
+
+                DirectoryWatcher watcher = new DirectoryWatcher(source, handler, debounceMillis)
+                    .setIgnoreRules(IgnoreRules.forRoot(source, !noDefaultIgnores, excludes, includes));
+
+                // 定期重新整理搜尋器（本程序回應的查詢近即時可見）與提交（其他程序可見、可從中斷恢復）
+                ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "watch-scheduler");
+                    t.setDaemon(true);
+                    return t;
+                });
+                scheduler.scheduleWithFixedDelay(() -> {
+                    try {
+                        indexer.refreshSearcher();
+                    } catch (Exception e) {
+                        System.err.println("Refresh failed: " + e.getMessage());
+                    }
+                }, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+                scheduler.scheduleWithFixedDelay(() -> {
+                    try {
+                        commitWithCatalog(indexer, catalog);
+                    } catch (Exception e) {
+                        System.err.println("Commit failed: " + e.getMessage());
+                    }
+                }, commitSeconds, commitSeconds, TimeUnit.SECONDS);
+
+                // Ctrl-C / SIGTERM：停止監看並等待主執行緒完成最後一次提交
+                CountDownLatch stopped = new CountDownLatch(1);
+                Thread shutdownHook = new Thread(() -> {
+                    try {
+                        watcher.close();
+                        stopped.await(60, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        // 結束中，忽略
+                    }
+                }, "watch-shutdown");
+                Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+                try {
+                    watcher.run();
+                } finally {
+                    if (server != null) {
+                        server.close();
+                    }
+                    scheduler.shutdownNow();
+                    pipeline.close();
+                    commitWithCatalog(indexer, catalog);
+                    indexer.close();
+                    System.out.println("\n監看已停止，變更已提交");
+                    stopped.countDown();
+                }
+
+                if (pipeline.getFatalError() != null) {
+                    System.err.println("Error: " + pipeline.getFatalError());
+                    return 1;
+                }
+                return 0;
+            } catch (Exception e) {
+                System.err.println("Error: " + e.getMessage());
+                return 1;
+            }
+        }
+
+        /**
+         * 在本程序開啟搜尋服務（已有其他服務在執行時不開啟，回傳 null）
+         *
+         * 收到 shutdown（例如 serve --stop）時只停止回應查詢，監看繼續執行。
+         */
+        private SearchServer startWatchServer(Path indexPath, LuceneIndexer indexer) throws IOException {
+            SearchClient running = SearchClient.find(indexPath);
+            if (running != null) {
+                System.out.println("搜尋服務已在執行 (pid " + running.getPid() + ")，查詢只會看到提交後的變更");
+                System.out.println();
+                return null;
+            }
+            SearchServer server = new SearchServer(SearchService.attach(indexPath, indexer, TikaExtractor.perThreadReader()));
+            server.startHttp(0, WATCH_SERVE_THREADS);
+            Thread closer = new Thread(() -> {
+                try {
+                    server.awaitShutdown(0);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                server.close();
+            }, "watch-serve");
+            closer.setDaemon(true);
+            closer.start();
+            System.out.println("搜尋服務: http://127.0.0.1:" + server.getPort() + SearchServer.RPC_PATH
+                + "（search / list / stats / read 會自動改用此服務）");
+            System.out.println();
+            return server;
+        }
+    }
+
+    /**
+     * 位元組轉 MB（保留一位小數）
+     */
+    private static double toMB(long bytes) {
+        return Math.round(bytes / (1024.0 * 1024.0) * 10) / 10.0;
+    }
+
+    /**
+     * 提取快取目錄（未指定時使用預設目錄）
+     */
+    private static Path cacheDirectory(String cacheDir) {
+        return cacheDir != null ? Paths.get(cacheDir).toAbsolutePath() : ExtractionCache.defaultDirectory();
+    }
+
+    /**
+     * 影響提取結果的設定，作為提取快取鍵的一部分（提取模式依檔案路徑決定）
+     */
+    private static Function<Path, String> extractionVariant(ProfileSelector profiles, boolean pdfOcr, float ocrDpi,
+                                                            int ocrMinSize, int ocrMaxSide, ExtractionLimits limits) {
+        String settings = ";pdfOcr=" + pdfOcr + ";ocrDpi=" + ocrDpi
+            + ";ocrMinSize=" + ocrMinSize + ";ocrMaxSide=" + ocrMaxSide
+            + ";" + limits.describe();
+        return file -> "v" + profiles.catalogVersion(file) + settings;
+    }
+
+    /**
+     * 在提取器工廠外包一層磁碟快取
+     */
+    private static Supplier<DocumentExtractor> cached(Supplier<? extends DocumentExtractor> extractors,
+                                                      ExtractionCache cache, Function<Path, String> variant) {
+        return () -> new CachingExtractor(extractors.get(), cache, variant);
+    }
+
+    /**
+     * 建立 TikaExtractor 工廠（pagePool / ocrPool 為 null 時停用對應功能）
+     */
+    private static Supplier<TikaExtractor> pdfExtractors(OcrCostControls ocrControls, ExtractionLimits limits,
+                                                             ProfileSelector profiles, long pdfTempFileBytes,
+                                                             ExecutorService pagePool, int pdfThreads, int pdfParallelPages,
+                                                             OcrService ocr, ExecutorService ocrPool, int ocrThreads, float ocrDpi) {
+        return () -> {
+            TikaExtractor extractor = new TikaExtractor(-1, ocrControls)
+                .setLimits(limits)
+                .setProfiles(profiles)
+                .setPdfTempFileThreshold(pdfTempFileBytes);
+            if (pagePool != null) {
+                extractor.setPageParallelism(pagePool, pdfThreads, pdfParallelPages);
+            }
+            if (ocrPool != null) {
+                extractor.setPageOcr(ocr, ocrPool, ocrThreads, ocrDpi);
+            }
+            return extractor;
+        };
+    }
+
+    /**
+     * 建立 PDF 分頁提取 / 掃描頁 OCR 用的執行緒池
+     */
+    private static ExecutorService newPool(String threadPrefix, int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, threadPrefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 提交索引並寫回檔案狀態目錄（複本在提交前取得，確保目錄不會超前於索引）
+     */
+    private static void commitWithCatalog(LuceneIndexer indexer, FileStateCatalog catalog) throws IOException {
+        Map<String, FileStateCatalog.Entry> snapshot = catalog.snapshot();
+        indexer.commit();
+        catalog.save(snapshot);
+    }
+
+    /**
+     * 同上，並在提交中寫入作業進度
+     */
+    private static void commitWithCatalog(LuceneIndexer indexer, FileStateCatalog catalog,
+                                          Map<String, String> userData) throws IOException {
+        Map<String, FileStateCatalog.Entry> snapshot = catalog.snapshot();
+        indexer.commit(userData);
+        catalog.save(snapshot);
+    }
+
+    // ========== 提取子程序（--isolate 內部使用） ==========
+    @Command(name = ForkedExtractor.WORKER_COMMAND, hidden = true,
+        description = "Serve extraction requests over stdin/stdout (used by index --isolate)")
+    static class ExtractWorkerCommand implements Callable<Integer> {
+
+        @Option(names = {"--pdf-parallel-pages"}, defaultValue = "0")
+        private int pdfParallelPages;
+
+        @Option(names = {"--pdf-threads"}, defaultValue = "1")
+        private int pdfThreads;
+
+        @Option(names = {"--pdf-temp-file-mb"}, defaultValue = "64")
+        private long pdfTempFileMB;
+
+        @Option(names = {"--no-pdf-ocr"})
+        private boolean noPdfOcr;
+
+        @Option(names = {"--ocr-threads"}, defaultValue = "1")
+        private int ocrThreads;
+
+        @Option(names = {"--ocr-dpi"}, defaultValue = "300")
+        private float ocrDpi;
+
+        @Option(names = {"--ocr-min-size"}, defaultValue = "" + OcrCostControls.DEFAULT_MIN_SIZE)
+        private int ocrMinSize;
+
+        @Option(names = {"--ocr-max-side"}, defaultValue = "" + OcrCostControls.DEFAULT_MAX_SIDE)
+        private int ocrMaxSide;
+
+        @Option(names = {"--max-chars"}, defaultValue = "" + ExtractionLimits.DEFAULT_MAX_CHARS)
+        private int maxChars;
+
+        @Option(names = {"--max-embedded-depth"}, defaultValue = "" + ExtractionLimits.DEFAULT_MAX_EMBEDDED_DEPTH)
+        private int maxEmbeddedDepth;
+
+        @Option(names = {"--max-embedded"}, defaultValue = "" + ExtractionLimits.DEFAULT_MAX_EMBEDDED)
+        private int maxEmbedded;
+
+        @Option(names = {"--max-expansion"}, defaultValue = "" + ExtractionLimits.DEFAULT_MAX_EXPANSION)
+        private int maxExpansion;
+
+        @Option(names = {"--profile"}, defaultValue = "full")
+        private String profile;
+
+        @Option(names = {"--profile-for"})
+        private Map<String, String> profileFor = new LinkedHashMap<>();
+
+        @Option(names = {"--profile-root"}, defaultValue = ".")
+        private String profileRoot;
+
+        @Override
+        public Integer call() {
+            try {
+                ExecutorService pagePool = pdfParallelPages > 0 ? newPool("pdf-page-", pdfThreads) : null;
+                OcrCostControls ocrControls = new OcrCostControls(ocrMinSize, ocrMaxSide,
+                    OcrCostControls.DEFAULT_MIN_ENTROPY, OcrCostControls.DEFAULT_CACHE_ENTRIES);
+                OcrService ocr = noPdfOcr ? null : new OcrService(ocrControls);
+                ExecutorService ocrPool = ocr != null && ocr.isAvailable()
+                    ? newPool("pdf-ocr-", Math.max(1, ocrThreads)) : null;
+                ExtractionLimits limits = new ExtractionLimits(maxChars, maxEmbeddedDepth, maxEmbedded, maxExpansion);
+                ProfileSelector profiles = ProfileSelector.of(Paths.get(profileRoot), profile, profileFor);
+                ForkedExtractor.serve(System.in, System.out, pdfExtractors(ocrControls, limits, profiles,
+                    pdfTempFileMB * 1024L * 1024L, pagePool, pdfThreads, pdfParallelPages, ocr, ocrPool, Math.max(1, ocrThreads), ocrDpi));
+                return 0;
+            } catch (Exception e) {
+                System.err.println("Error: " + e.getMessage());
+                return 1;
+            }
+        }
+    }
+
+    // ========== 提取快取命令 ==========
+    @Command(name = "cache", description = "Inspect or prune the extraction cache",
+        subcommands = {CacheStatsCommand.class, CachePruneCommand.class})
+    static class CacheCommand implements Callable<Integer> {
+
+        @Override
+        public Integer call() {
+            new CommandLine(this).usage(System.out);
+            return 0;
+        }
+    }
+
+    @Command(name = "stats", description = "Show extraction cache size and entry count")
+    static class CacheStatsCommand implements Callable<Integer> {
+
+        @Option(names = {"--cache-dir"}, description = "Extraction cache directory (default: ~/.cache/docindex/extract)")
+        private String cacheDir;
+
+        @Option(names = {"--json"}, description = "Output as JSON")
+        private boolean jsonOutput;
+
+        @Override
+        public Integer call() {
+            try {
+                ExtractionCache cache = new ExtractionCache(cacheDirectory(cacheDir), ExtractionCache.DEFAULT_MAX_BYTES);
+                ExtractionCache.Stats stats = cache.stats();
+
+                if (jsonOutput) {
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("cacheDir", cache.getDirectory().toString());
+                    result.put("entries", stats.getEntries());
+                    result.put("sizeMB", toMB(stats.getBytes()));
+                    result.put("oldestAccess", stats.getOldestAccess() != null ? stats.getOldestAccess().toString() : null);
+                    result.put("newestAccess", stats.getNewestAccess() != null ? stats.getNewestAccess().toString() : null);
+                    System.out.println(gson.toJson(result));
+                } else {
+                    System.out.println("快取目錄: " + cache.getDirectory());
+                    System.out.println("項目數: " + stats.getEntries());
+                    System.out.println(String.format("大小: %.1f MB", toMB(stats.getBytes())));
+                    if (stats.getOldestAccess() != null) {
+                        System.out.println("最久未使用: " + SearchCli.DATE_FORMAT.format(stats.getOldestAccess().toInstant()));
+                        System.out.println("最近使用: " + SearchCli.DATE_FORMAT.format(stats.getNewestAccess().toInstant()));
+                    }
+                }
+                return 0;
+            } catch (Exception e) {
+                System.err.println("Error: " + e.getMessage());
+                return 1;
+            }
+        }
+    }
+
+    @Command(name = "prune", description = "Evict least recently used extraction cache entries")
+    static class CachePruneCommand implements Callable<Integer> {
+
+        @Option(names = {"--cache-dir"}, description = "Extraction cache directory (default: ~/.cache/docindex/extract)")
+        private String cacheDir;
+
+        @Option(names = {"--max-mb"}, description = "Keep the cache under N MB (0 removes everything)", defaultValue = "2048")
+        private long maxMB;
+
+        @Option(names = {"--json"}, description = "Output as JSON")
+        private boolean jsonOutput;
+
+        @Override
+        public Integer call() {
+            try {
+                ExtractionCache cache = new ExtractionCache(cacheDirectory(cacheDir), maxMB * 1024L * 1024L);
+                ExtractionCache.PruneResult pruned = cache.prune();
+
+                if (jsonOutput) {
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("cacheDir", cache.getDirectory().toString());
+                    result.put("removedEntries", pruned.getRemoved());
+                    result.put("freedMB", toMB(pruned.getFreedBytes()));
+                    System.out.println(gson.toJson(result));
+                } else {
+                    System.out.println(String.format("移除 %d 個項目，釋放 %.1f MB",
+                        pruned.getRemoved(), toMB(pruned.getFreedBytes())));
+                }
+                return 0;
+            } catch (Exception e) {
+                System.err.println("Error: " + e.getMessage());
+                return 1;
+            }
+        }
+    }
+
+    // ========== 清除命令 ==========
+    @Command(name = "clear", description = "Clear all indexed documents")
+    static class ClearCommand implements Callable<Integer> {
+
+        @Option(names = {"-i", "--index-dir"}, description = "Index directory path", defaultValue = "./index-data")
+        private String indexDir;
+
+        @Option(names = {"-f", "--force"}, description = "Force clear without confirmation")
+        private boolean force;
+
+        @Override
+        public Integer call() {
+            try {
+                Path indexPath = Paths.get(indexDir).toAbsolutePath();
+
+                if (!Files.exists(indexPath)) {
+                    System.out.println("Index directory does not exist.");
+                    return 0;
+                }
+
+                if (!force) {
+                    System.out.print("Are you sure you want to clear all indexed documents? (y/N): ");
+                    Scanner scanner = new Scanner(System.in);
+                    String response = scanner.nextLine().trim().toLowerCase();
+                    if (!response.equals("y") && !response.equals("yes")) {
+                        System.out.println("Cancelled.");
+                        return 0;
+                    }
+                }
+
+                try (LuceneIndexer indexer = new LuceneIndexer(indexPath)) {
+                    indexer.clearIndex();
+                }
+                FileStateCatalog.delete(indexPath);
+                System.out.println("Index cleared successfully.");
+
+                return 0;
+            } catch (Exception e) {
+                System.err.println("Error: " + e.getMessage());
+                return 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,622 @@
+package com.docindex.cli;
+
+import com.docindex.core.DocumentExtractor;
+import com.docindex.core.ExtractionLimits;
+import com.docindex.extraction.AllocationTracker;
+import com.docindex.extraction.ExtractionProfile;
+import com.docindex.extraction.FileStateCatalog;
+import com.docindex.extraction.ProfileSelector;
+import com.docindex.extraction.Quarantine;
+import com.docindex.extraction.TikaExtractor;
+import com.docindex.extraction.WorkerFailureException;
+import com.docindex.index.LuceneIndexer;
+import com.docindex.model.DocumentInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 多執行緒索引管線
+ *
+ * 走訪端 → 有界佇列 → N 個提取工作執行緒 → 共用的 IndexWriter。
+ * 每個工作執行緒擁有自己的 DocumentExtractor（程序內的 TikaExtractor 或子程序的 ForkedExtractor），
+ * 佇列滿時 submit() 會阻塞，讓記憶體中同時存在的文件數量維持在固定上限。
+ *
+ * 設定隔離清單時，已隔離的檔案直接略過，子程序逾時或異常結束的檔案會加入清單。
+ *
+ * ocrThreads 大於 0 時，實際需要 OCR 的圖檔（提取模式會辨識圖檔且已安裝 Tesseract）走獨立的通道（自己的佇列與執行緒上限），
+ * 一般文件不會排在耗時的 OCR 後面。兩個佇列都有上限，submit() 只在目標通道的佇列滿時阻塞。
+ *
+ * 設定提取模式時，檔案狀態目錄記錄各檔案模式對應的提取器版本，並分別統計各模式的提取吞吐量。
+ */
+public class IndexPipeline implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(IndexPipeline.class);
+
+    /**
+     * 待處理檔案（含走訪時已讀取的屬性）
+     */
+    private static final class Task {
+        final Path file;
+        final BasicFileAttributes attrs;
+
+        Task(Path file, BasicFileAttributes attrs) {
+            this.file = file;
+            this.attrs = attrs;
+        }
+    }
+
+    // 結束標記
+    private static final Task POISON = new Task(null, null);
+
+    // OCR 通道每個工作執行緒可預先排隊的檔案數：比一般通道深，走訪端遇到連續的圖檔時仍能繼續送出一般文件
+    private static final int OCR_QUEUE_PER_THREAD = 64;
+
+    /**
+     * 單一檔案處理結果
+     */
+    public enum Outcome {
+        INDEXED,
+        UNCHANGED,    // 內容雜湊與目錄相同，未重新提取
+        QUARANTINED,  // 在隔離清單中，略過
+        FAILED
+    }
+
+    /**
+     * 單一檔案處理結果回呼（由工作執行緒呼叫，實作需自行處理同步）
+     */
+    public interface Listener {
+        void onFile(Path file, Outcome outcome);
+    }
+
+    /**
+     * 通道統計
+     */
+    public static final class LaneStats {
+        private final String name;
+        private final int threads;
+        private final int queueDepth;
+        private final int completed;
+        private final long busyMillis;
+        private final long elapsedMillis;
+
+        LaneStats(String name, int threads, int queueDepth, int completed, long busyMillis, long elapsedMillis) {
+            this.name = name;
+            this.threads = threads;
+            this.queueDepth = queueDepth;
+            this.completed = completed;
+            this.busyMillis = busyMillis;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public String getName() { return name; }
+        public int getThreads() { return threads; }
+        /** 排隊中（尚未開始）的檔案數 */
+        public int getQueueDepth() { return queueDepth; }
+        public int getCompleted() { return completed; }
+        /** 所有工作執行緒處理檔案的累計時間 */
+        public long getBusyMillis() { return busyMillis; }
+
+        /** 吞吐量（檔案/秒，以管線開始後的實際時間計算） */
+        public double getFilesPerSecond() {
+            return elapsedMillis > 0 ? completed * 1000.0 / elapsedMillis : 0;
+        }
+    }
+
+    /**
+     * 提取模式統計（以提取所花的時間計算，不含排隊與寫入索引）
+     */
+    public static final class ProfileStats {
+        private final String name;
+        private final int documents;
+        private final long bytes;
+        private final long extractMillis;
+
+        ProfileStats(String name, int documents, long bytes, long extractMillis) {
+            this.name = name;
+            this.documents = documents;
+            this.bytes = bytes;
+            this.extractMillis = extractMillis;
+        }
+
+        public String getName() { return name; }
+        public int getDocuments() { return documents; }
+        public long getBytes() { return bytes; }
+        /** 所有工作執行緒提取這個模式的文件的累計時間 */
+        public long getExtractMillis() { return extractMillis; }
+
+        /** 每個工作執行緒的吞吐量（檔案/秒） */
+        public double getFilesPerSecond() {
+            return extractMillis > 0 ? documents * 1000.0 / extractMillis : 0;
+        }
+
+        /** 每個工作執行緒的吞吐量（MB/秒） */
+        public double getMegabytesPerSecond() {
+            return extractMillis > 0 ? bytes * 1000.0 / (1024 * 1024) / extractMillis : 0;
+        }
+    }
+
+    /**
+     * 提取模式的累計量
+     */
+    private static final class ProfileCounter {
+        final AtomicInteger documents = new AtomicInteger();
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicLong nanos = new AtomicLong();
+    }
+
+    /**
+     * 單一文件提取期間的堆積配置量（JVM 不支援時 documents 為 0）
+     */
+    public static final class MemoryStats {
+        private final int documents;
+        private final long totalBytes;
+        private final long peakBytes;
+        private final Path peakFile;
+
+        MemoryStats(int documents, long totalBytes, long peakBytes, Path peakFile) {
+            this.documents = documents;
+            this.totalBytes = totalBytes;
+            this.peakBytes = peakBytes;
+            this.peakFile = peakFile;
+        }
+
+        /** 有量測到的文件數 */
+        public int getDocuments() { return documents; }
+        /** 單一文件的最大配置量 */
+        public long getPeakBytes() { return peakBytes; }
+        /** 配置量最大的文件 */
+        public Path getPeakFile() { return peakFile; }
+
+        public long getAverageBytes() {
+            return documents > 0 ? totalBytes / documents : 0;
+        }
+    }
+
+    /**
+     * 排程通道：自己的佇列與工作執行緒
+     */
+    private final class Lane {
+        final String name;
+        final BlockingQueue<Task> queue;
+        final List<Thread> workers = new ArrayList<>();
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicLong busyNanos = new AtomicLong();
+
+        Lane(String name, BlockingQueue<Task> queue, int threads, String threadPrefix) {
+            this.name = name;
+            this.queue = queue;
+            for (int i = 0; i < threads; i++) {
+                Thread worker = new Thread(() -> runWorker(this), threadPrefix + (i + 1));
+                worker.setDaemon(true);
+                workers.add(worker);
+            }
+        }
+
+        void start() {
+            for (Thread worker : workers) {
+                worker.start();
+            }
+        }
+
+        LaneStats stats() {
+            return new LaneStats(name, workers.size(), queue.size(), completed.get(),
+                busyNanos.get() / 1_000_000, (System.nanoTime() - startNanos) / 1_000_000);
+        }
+    }
+
+    private final LuceneIndexer indexer;
+    private final Supplier<? extends DocumentExtractor> extractorFactory;
+    private final FileStateCatalog catalog;
+    private final Listener listener;
+    private final long startNanos = System.nanoTime();
+    private final Lane textLane;
+    private final Lane ocrLane;  // null 表示不分通道
+
+    private final AtomicInteger indexedCount = new AtomicInteger();
+    private final AtomicInteger errorCount = new AtomicInteger();
+    private final AtomicInteger unchangedCount = new AtomicInteger();
+    private final AtomicInteger quarantinedCount = new AtomicInteger();
+    private final AtomicInteger truncatedCount = new AtomicInteger();
+    private final AtomicLong indexedBytes = new AtomicLong();
+    private final Map<ExtractionProfile, ProfileCounter> profileCounters = new EnumMap<>(ExtractionProfile.class);
+    private int measuredDocuments;
+    private long allocatedBytes;
+    private long peakAllocatedBytes;
+    private Path peakAllocatedFile;
+    private volatile boolean finished;
+    private volatile boolean cancelled;
+    private volatile Error fatalError;
+    private volatile Quarantine quarantine;
+    private volatile boolean skipQuarantined;
+    private volatile ProfileSelector profiles = ProfileSelector.uniform(ExtractionProfile.DEFAULT);
+    private volatile boolean imageOcr = true;
+
+    public IndexPipeline(LuceneIndexer indexer, Supplier<? extends DocumentExtractor> extractorFactory, int threads,
+                         Listener listener) {
+        this(indexer, extractorFactory, null, threads, 0, listener);
+    }
+
+    /**
+     * @param catalog 檔案狀態目錄；不為 null 時會比對內容雜湊並在索引後更新目錄
+     */
+    public IndexPipeline(LuceneIndexer indexer, Supplier<? extends DocumentExtractor> extractorFactory,
+                         FileStateCatalog catalog, int threads, Listener listener) {
+        this(indexer, extractorFactory, catalog, threads, 0, listener);
+    }
+
+    /**
+     * @param threads    一般文件的工作執行緒數
+     * @param ocrThreads OCR 通道的工作執行緒數（0 表示圖檔與一般文件共用同一個佇列）
+     */
+    public IndexPipeline(LuceneIndexer indexer, Supplier<? extends DocumentExtractor> extractorFactory,
+                         FileStateCatalog catalog, int threads, int ocrThreads, Listener listener) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be >= 1: " + threads);
+        }
+        if (ocrThreads < 0) {
+            throw new IllegalArgumentException("ocrThreads must be >= 0: " + ocrThreads);
+        }
+        this.indexer = indexer;
+        this.extractorFactory = extractorFactory;
+        this.catalog = catalog;
+        this.listener = listener;
+        for (ExtractionProfile profile : ExtractionProfile.values()) {
+            profileCounters.put(profile, new ProfileCounter());
+        }
+        // 每個工作執行緒最多預先排隊兩個檔案
+        this.textLane = new Lane("text", new ArrayBlockingQueue<>(threads * 2), threads, "index-worker-");
+        this.ocrLane = ocrThreads > 0
+            ? new Lane("ocr", new ArrayBlockingQueue<>(ocrThreads * OCR_QUEUE_PER_THREAD), ocrThreads, "ocr-worker-")
+            : null;
+
+        textLane.start();
+        if (ocrLane != null) {
+            ocrLane.start();
+        }
+    }
+
+    /**
+     * 設定隔離清單（應在送出第一個檔案前呼叫）
+     *
+     * @param skipQuarantined false 時仍會重新嘗試已隔離的檔案，成功後移出清單
+     */
+    public IndexPipeline setQuarantine(Quarantine quarantine, boolean skipQuarantined) {
+        this.quarantine = quarantine;
+        this.skipQuarantined = skipQuarantined;
+        return this;
+    }
+
+    /**
+     * 設定各路徑的提取模式（應與提取器使用相同的設定，並在送出第一個檔案前呼叫）
+     */
+    public IndexPipeline setProfiles(ProfileSelector profiles) {
+        this.profiles = profiles;
+        return this;
+    }
+
+    /**
+     * 設定圖檔 OCR 是否可用（未安裝 Tesseract 時圖檔只取元數據，不必排進 OCR 通道；應在送出第一個檔案前呼叫）
+     */
+    public IndexPipeline setImageOcr(boolean imageOcr) {
+        this.imageOcr = imageOcr;
+        return this;
+    }
+
+    /**
+     * 送出待索引檔案（佇列已滿時阻塞）
+     */
+    public void submit(Path file) throws InterruptedException {
+        submit(file, null);
+    }
+
+    /**
+     * 送出待索引檔案，attrs 為走訪時已讀取的屬性（可為 null；檔案所屬通道的佇列已滿時阻塞）
+     */
+    public void submit(Path file, BasicFileAttributes attrs) throws InterruptedException {
+        if (finished) {
+            throw new IllegalStateException("Pipeline already finished");
+        }
+        if (cancelled) {
+            return;
+        }
+        lane(file).queue.put(new Task(file, attrs));
+    }
+
+    /**
+     * 只有實際會做 OCR 的圖檔走 OCR 通道（例如 fast 模式的圖檔很快就處理完，留在一般通道）
+     */
+    private Lane lane(Path file) {
+        if (ocrLane == null || !imageOcr || !TikaExtractor.isOcrBound(file)) {
+            return textLane;
+        }
+        return profiles.profileFor(file).isImageOcr() ? ocrLane : textLane;
+    }
+
+    /**
+     * 中止：丟棄尚未開始的檔案，正在處理的檔案仍會完成（可由其他執行緒呼叫）
+     *
+     * 之後的 submit() 直接忽略，仍需呼叫 awaitCompletion() 等待工作執行緒結束。
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Lane lane : lanes()) {
+            lane.queue.clear();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 工作執行緒遇到的第一個 Error（沒有時為 null）；不為 null 時這次索引不能視為完整
+     */
+    public Error getFatalError() {
+        return fatalError;
+    }
+
+    /**
+     * 不再送出新檔案，等待所有工作執行緒處理完畢
+     */
+    public void awaitCompletion() throws InterruptedException {
+        if (!finished) {
+            finished = true;
+            for (Lane lane : lanes()) {
+                for (int i = 0; i < lane.workers.size(); i++) {
+                    lane.queue.put(POISON);
+                }
+            }
+        }
+        for (Lane lane : lanes()) {
+            for (Thread worker : lane.workers) {
+                worker.join();
+            }
+        }
+    }
+
+    private List<Lane> lanes() {
+        return ocrLane != null ? List.of(textLane, ocrLane) : List.of(textLane);
+    }
+
+    /**
+     * 各通道的佇列深度與吞吐量
+     */
+    public List<LaneStats> getLaneStats() {
+        List<LaneStats> stats = new ArrayList<>();
+        for (Lane lane : lanes()) {
+            stats.add(lane.stats());
+        }
+        return stats;
+    }
+
+    public int getIndexedCount() { return indexedCount.get(); }
+
+    public int getErrorCount() { return errorCount.get(); }
+
+    public int getUnchangedCount() { return unchangedCount.get(); }
+
+    public int getQuarantinedCount() { return quarantinedCount.get(); }
+
+    /** 因提取上限而只索引部分內容的文件數 */
+    public int getTruncatedCount() { return truncatedCount.get(); }
+
+    /** 已索引檔案的總大小（位元組） */
+    public long getIndexedBytes() { return indexedBytes.get(); }
+
+    /**
+     * 有提取過文件的各提取模式統計
+     */
+    public List<ProfileStats> getProfileStats() {
+        List<ProfileStats> stats = new ArrayList<>();
+        for (Map.Entry<ExtractionProfile, ProfileCounter> entry : profileCounters.entrySet()) {
+            ProfileCounter counter = entry.getValue();
+            if (counter.documents.get() > 0) {
+                stats.add(new ProfileStats(entry.getKey().getKey(), counter.documents.get(), counter.bytes.get(),
+                    counter.nanos.get() / 1_000_000));
+            }
+        }
+        return stats;
+    }
+
+    public synchronized MemoryStats getMemoryStats() {
+        return new MemoryStats(measuredDocuments, allocatedBytes, peakAllocatedBytes, peakAllocatedFile);
+    }
+
+    private void runWorker(Lane lane) {
+        DocumentExtractor extractor;
+        try {
+            extractor = extractorFactory.get();
+        } catch (RuntimeException | Error e) {
+            // 無法建立提取器時仍要消化佇列（全部計為失敗），否則 submit() 與 awaitCompletion() 會永遠阻塞
+            logger.warn("Failed to create extractor for {}: {}", Thread.currentThread().getName(), e.toString());
+            if (e instanceof Error) {
+                fail((Error) e);
+            }
+            processTasks(null, lane);
+            return;
+        }
+        try (extractor) {
+            processTasks(extractor, lane);
+        } catch (Exception e) {
+            logger.debug("Failed to close extractor", e);
+        }
+    }
+
+    /**
+     * 處理佇列中的檔案直到收到結束標記
+     *
+     * 單一檔案引發的 Error（例如格式異常的文件讓解析器 StackOverflowError 或 OutOfMemoryError）
+     * 計為失敗，工作執行緒不會因此消失讓通道卡住；第一個 Error 保留給 getFatalError()。
+     * OutOfMemoryError 等 VirtualMachineError 之後 JVM 與共用的 IndexWriter 都可能已經損壞，
+     * 隨即中止管線；StackOverflowError 只影響拋出的執行緒，堆疊回收後繼續處理下一個檔案。
+     *
+     * @param extractor null 表示提取器建立失敗，所有檔案計為失敗
+     */
+    private void processTasks(DocumentExtractor extractor, Lane lane) {
+        while (true) {
+            Task task;
+            try {
+                task = lane.queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                task = POISON;
+            }
+            if (task == POISON) {
+                return;
+            }
+            if (cancelled) {
+                continue;
+            }
+
+            Path file = task.file;
+            Outcome outcome;
+            long start = System.nanoTime();
+            try {
+                outcome = extractor != null ? process(extractor, file, task.attrs) : Outcome.FAILED;
+            } catch (WorkerFailureException e) {
+                outcome = Outcome.FAILED;
+                // 中止時子程序也會收到 SIGINT，此時的失敗與檔案無關
+                Quarantine q = quarantine;
+                if (q != null && !cancelled) {
+                    q.add(file, e.getReason().name(), e.getMessage());
+                }
+            } catch (Exception e) {
+                outcome = Outcome.FAILED;
+                logger.debug("Failed to index {}", file, e);
+            } catch (Error e) {
+                outcome = Outcome.FAILED;
+                logger.warn("Error while indexing {}: {}", file, e.toString());
+                fail(e);
+            }
+
+            switch (outcome) {
+                case INDEXED: indexedCount.incrementAndGet(); break;
+                case UNCHANGED: unchangedCount.incrementAndGet(); break;
+                case QUARANTINED: quarantinedCount.incrementAndGet(); break;
+                default: errorCount.incrementAndGet();
+            }
+            lane.busyNanos.addAndGet(System.nanoTime() - start);
+            lane.completed.incrementAndGet();
+
+            if (listener != null) {
+                try {
+                    listener.onFile(file, outcome);
+                } catch (RuntimeException e) {
+                    logger.warn("Listener failed for {}", file, e);
+                }
+            }
+        }
+    }
+
+    private synchronized void fail(Error e) {
+        if (fatalError == null) {
+            fatalError = e;
+        }
+        if (e instanceof VirtualMachineError && !(e instanceof StackOverflowError)) {
+            cancel();
+        }
+    }
+
+    private Outcome process(DocumentExtractor extractor, Path file, BasicFileAttributes attrs) throws Exception {
+        if (attrs == null || attrs.isSymbolicLink()) {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        }
+        String filePath = file.toAbsolutePath().toString();
+        Quarantine q = quarantine;
+        if (q != null && skipQuarantined && q.isQuarantined(filePath, attrs)) {
+            return Outcome.QUARANTINED;
+        }
+
+        if (catalog == null) {
+            index(extract(extractor, file, attrs, null));
+            indexedBytes.addAndGet(attrs.size());
+            if (q != null) {
+                q.remove(filePath);
+            }
+            return Outcome.INDEXED;
+        }
+
+        String contentHash = FileStateCatalog.hashFile(file);
+        String version = profiles.catalogVersion(file);
+
+        // 只有修改時間改變（例如 touch、複製還原）但內容相同時不重新提取
+        FileStateCatalog.Entry previous = catalog.get(filePath);
+        if (previous != null
+                && contentHash.equals(previous.getContentHash())
+                && version.equals(previous.getExtractorVersion())) {
+            catalog.put(filePath, new FileStateCatalog.Entry(attrs.size(), attrs.lastModifiedTime().toMillis(),
+                contentHash, version));
+            return Outcome.UNCHANGED;
+        }
+
+        index(extract(extractor, file, attrs, contentHash));
+        catalog.put(filePath, new FileStateCatalog.Entry(attrs.size(), attrs.lastModifiedTime().toMillis(),
+            contentHash, version));
+        indexedBytes.addAndGet(attrs.size());
+        if (q != null) {
+            q.remove(filePath);
+        }
+        return Outcome.INDEXED;
+    }
+
+    /**
+     * 寫入索引後釋放全文來源（子程序結果的暫存檔）
+     */
+    private void index(DocumentInfo doc) throws IOException {
+        try {
+            indexer.indexDocument(doc);
+        } finally {
+            doc.releaseContent();
+        }
+    }
+
+    /**
+     * 提取並記錄這個文件配置的堆積量
+     */
+    private DocumentInfo extract(DocumentExtractor extractor, Path file, BasicFileAttributes attrs,
+                                 String contentHash) throws Exception {
+        AllocationTracker.takeDelegated();
+        long before = AllocationTracker.currentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        DocumentInfo doc = extractor.extract(file, attrs, contentHash);
+        ProfileCounter counter = profileCounters.get(profiles.profileFor(file));
+        counter.documents.incrementAndGet();
+        counter.bytes.addAndGet(attrs.size());
+        counter.nanos.addAndGet(System.nanoTime() - start);
+        if (doc.getMetadata(ExtractionLimits.METADATA_KEY) != null) {
+            truncatedCount.incrementAndGet();
+        }
+        if (before >= 0) {
+            long allocated = AllocationTracker.currentThreadAllocatedBytes() - before + AllocationTracker.takeDelegated();
+            recordAllocation(file, allocated);
+        }
+        return doc;
+    }
+
+    private synchronized void recordAllocation(Path file, long bytes) {
+        measuredDocuments++;
+        allocatedBytes += bytes;
+        if (bytes > peakAllocatedBytes) {
+            peakAllocatedBytes = bytes;
+            peakAllocatedFile = file;
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        awaitCompletion();
+    }
+}
@@ -0,0 +1,541 @@
+package com.docindex.cli;
+
+import com.docindex.core.DocumentReader;
+import com.docindex.index.SearchClient;
+import com.docindex.index.SearchServer;
+import com.docindex.index.SearchService;
+import com.docindex.model.SearchResult;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 只查詢既有索引的 CLI（doc-indexer-search 精簡版的進入點）
+ *
+ * search / list / stats / serve 只依賴 Lucene、Gson 與 picocli，完整版 DocIndexCli 使用同樣的命令。
+ * 精簡版沒有 Tika：摘要只來自索引（舊版索引的文件沒有摘要），常駐服務不提供 read。
+ */
+@Command(
+    name = "docindex",
+    mixinStandardHelpOptions = true,
+    version = "1.0.0",
+    description = "Search-only client for document indexes built by doc-indexer",
+    subcommands = {
+        SearchCli.SearchCommand.class,
+        SearchCli.ListCommand.class,
+        SearchCli.StatsCommand.class,
+        SearchCli.ServeCommand.class
+    }
+)
+public class SearchCli implements Callable<Integer> {
+
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    // 搜尋結果清單（由 JSON 轉回，常駐服務與本程序共用同一段輸出邏輯）
+    private static final Type SEARCH_RESULTS = new TypeToken<List<SearchResult>>() { }.getType();
+
+    // ANSI 顏色碼
+    private static final String ANSI_RESET = "\u001B[0m";
+    private static final String ANSI_RED = "\u001B[91m";      // 亮紅色
+    private static final String ANSI_GREEN = "\u001B[92m";    // 亮綠色
+    private static final String ANSI_YELLOW = "\u001B[93m";   // 亮黃色
+    private static final String ANSI_BLUE = "\u001B[94m";     // 亮藍色
+    private static final String ANSI_CYAN = "\u001B[96m";     // 亮青色
+    private static final String ANSI_BOLD = "\u001B[1m";      // 粗體
+    private static final String ANSI_DIM = "\u001B[2m";       // 暗淡
+    private static final String ANSI_RED_BOLD = "\u001B[1;91m"; // 亮紅色+粗體 (組合序列)
+    // 256色模式的紅色 (更好的終端機相容性)
+    private static final String ANSI_RED_256 = "\u001B[38;5;196m";  // 256色亮紅
+    // 反白模式 (反轉前景/背景色，最可靠的高亮方式)
+    private static final String ANSI_REVERSE = "\u001B[7m";         // 反白
+
+    // 日期格式
+    static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")
+            .withZone(ZoneId.systemDefault());
+
+    /**
+     * 格式化日期字串
+     */
+    private static String formatDate(String isoDate) {
+        if (isoDate == null || isoDate.isEmpty()) return "-";
+        try {
+            Instant instant = Instant.parse(isoDate);
+            return DATE_FORMAT.format(instant);
+        } catch (Exception e) {
+            return isoDate;
+        }
+    }
+
+    /**
+     * 高亮關鍵字（使用反白+紅色，確保在中文字串中也能正確顯示）
+     */
+    private static String highlightKeywords(String text, String query) {
+        if (text == null || text.isEmpty() || query == null || query.isEmpty()) {
+            return text;
+        }
+
+        String result = text;
+        String[] terms = query.split("\\s+");  // 不轉換大小寫，保留原始查詢
+        for (String term : terms) {
+            String cleanTerm = term.replaceAll("[^\\p{L}\\p{N}]", "");
+            if (cleanTerm.isEmpty()) continue;
+
+            // 使用反白+紅色組合（在中文字串中更可靠）
+            Pattern pattern = Pattern.compile("(" + Pattern.quote(cleanTerm) + ")", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+            Matcher matcher = pattern.matcher(result);
+            result = matcher.replaceAll(ANSI_REVERSE + ANSI_RED + "$1" + ANSI_RESET);
+        }
+        return result;
+    }
+
+    /**
+     * 計算字串顯示寬度（中文字算2，英文算1）
+     */
+    private static int displayWidth(String str) {
+        if (str == null) return 0;
+        int width = 0;
+        for (char c : str.toCharArray()) {
+            if (c >= 0x4E00 && c <= 0x9FFF || c >= 0x3000 && c <= 0x303F ||
+                c >= 0xFF00 && c <= 0xFFEF) {
+                width += 2;  // 中文字元
+            } else {
+                width += 1;  // 英文字元
+            }
+        }
+        return width;
+    }
+
+    /**
+     * 填充字串到指定顯示寬度
+     */
+    private static String padToWidth(String str, int targetWidth) {
+        int currentWidth = displayWidth(str);
+        if (currentWidth >= targetWidth) {
+            return str;
+        }
+        return str + " ".repeat(targetWidth - currentWidth);
+    }
+
+    /**
+     * 截斷字串到指定顯示寬度
+     */
+    private static String truncateToWidth(String str, int maxWidth) {
+        if (str == null) return "";
+        int width = 0;
+        StringBuilder sb = new StringBuilder();
+        for (char c : str.toCharArray()) {
+            int charWidth = (c >= 0x4E00 && c <= 0x9FFF || c >= 0x3000 && c <= 0x303F ||
+                            c >= 0xFF00 && c <= 0xFFEF) ? 2 : 1;
+            if (width + charWidth > maxWidth - 2) {
+                sb.append("..");
+                break;
+            }
+            sb.append(c);
+            width += charWidth;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 交給執行中的常駐搜尋服務處理，回傳結果（與 --json 輸出相同）
+     *
+     * 沒有服務、指定 --no-daemon、服務無回應或服務不支援此方法（精簡版的 read）時回傳 null，
+     * 由呼叫端在本程序執行；服務回報的其他錯誤（例如查詢語法錯誤）直接丟出。
+     */
+    static JsonObject callDaemon(Path indexPath, boolean noDaemon, String method, JsonObject params)
+            throws SearchClient.RemoteException {
+        if (noDaemon) {
+            return null;
+        }
+        SearchClient client = SearchClient.find(indexPath);
+        if (client == null) {
+            return null;
+        }
+        try {
+            JsonElement result = client.call(method, params);
+            return result.isJsonObject() ? result.getAsJsonObject() : null;
+        } catch (IOException e) {
+            return null;
+        } catch (SearchClient.RemoteException e) {
+            if (e.getCode() == SearchServer.METHOD_NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 取得 JSON 字串欄位（不存在或為 null 時回傳 null）
+     */
+    static String jsonString(JsonObject object, String name) {
+        JsonElement value = object.get(name);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    /**
+     * 輸出搜尋結果
+     */
+    private static void printSearchResultsTable(List<SearchResult> results, String query, String indexDir) {
+        System.out.println("搜尋: " + ANSI_RED + ANSI_BOLD + query + ANSI_RESET);
+        System.out.println("索引檔: " + indexDir);
+        System.out.println();
+        System.out.println("搜尋到 " + ANSI_CYAN + results.size() + ANSI_RESET + " 筆文件");
+        System.out.println();
+
+        if (results.isEmpty()) {
+            return;
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            SearchResult r = results.get(i);
+
+            System.out.println(ANSI_BOLD + ANSI_CYAN + "序號 " + (i + 1) + ANSI_RESET);
+            System.out.println("文件唯一識別碼: " + r.getDocumentId());
+            System.out.println("完整檔案路徑: " + r.getFilePath());
+            System.out.println("檔案名稱: " + highlightKeywords(r.getFileName(), query));
+            System.out.println("MIME 類型: " + (r.getContentType() != null ? r.getContentType() : "-"));
+            System.out.println("搜尋相關度分數: " + ANSI_YELLOW + String.format("%.4f", r.getScore()) + ANSI_RESET);
+
+            if (r.getSnippet() != null && !r.getSnippet().isEmpty()) {
+                System.out.println("上下文摘要: " + highlightKeywords(r.getSnippet(), query));
+            } else {
+                System.out.println("上下文摘要: -");
+            }
+
+            // 檔案大小轉換為 KB
+            double sizeKB = r.getFileSize() / 1024.0;
+            System.out.println("檔案大小 (KBytes): " + ANSI_GREEN + String.format("%.1f", sizeKB) + ANSI_RESET);
+            System.out.println("最後修改時間: " + formatDate(r.getLastModified()));
+            System.out.println("索引時間: " + formatDate(r.getIndexedAt()));
+            System.out.println("總頁數: " + (r.getPageCount() > 0 ? r.getPageCount() : "-"));
+            if (r.getTruncated() != null) {
+                System.out.println("內容截斷: " + r.getTruncated() + "（只索引前段內容）");
+            }
+
+            if (r.getMatchedPages() != null && !r.getMatchedPages().isEmpty()) {
+                System.out.println("匹配的頁碼陣列: " + ANSI_RED + r.getMatchedPages() + ANSI_RESET);
+            } else {
+                System.out.println("匹配的頁碼陣列: -");
+            }
+
+            System.out.println();
+        }
+    }
+
+    @Override
+    public Integer call() {
+        CommandLine.usage(this, System.out);
+        return 0;
+    }
+
+    public static void main(String[] args) {
+        // 精簡版沒有 Tika，不讀取原始檔案
+        int exitCode = new CommandLine(new SearchCli(), factory(null)).execute(args);
+        System.exit(exitCode);
+    }
+
+    /**
+     * 建立命令的工廠：search 與 serve 透過建構子取得 documentReader，其他命令使用 picocli 預設方式建立
+     *
+     * @param documentReader 讀取原始檔案產生舊文件的摘要與 read 結果（null 表示不讀取）
+     */
+    static CommandLine.IFactory factory(DocumentReader documentReader) {
+        CommandLine.IFactory defaults = CommandLine.defaultFactory();
+        return new CommandLine.IFactory() {
+            @Override
+            public <K> K create(Class<K> cls) throws Exception {
+                if (cls == SearchCommand.class) {
+                    return cls.cast(new SearchCommand(documentReader));
+                }
+                if (cls == ServeCommand.class) {
+                    return cls.cast(new ServeCommand(documentReader));
+                }
+                return defaults.create(cls);
+            }
+        };
+    }
+
+    // ========== 搜尋命令 ==========
+    @Command(name = "search", description = "Search indexed documents")
+    static class SearchCommand implements Callable<Integer> {
+
+        private final DocumentReader documentReader;
+
+        SearchCommand(DocumentReader documentReader) {
+            this.documentReader = documentReader;
+        }
+
+        @Parameters(index = "0", description = "Search query")
+        private String query;
+
+        @Option(names = {"-i", "--index-dir"}, description = "Index directory path", defaultValue = "./index-data")
+        private String indexDir;
+
+        @Option(names = {"-n", "--max-results"}, description = "Maximum number of results", defaultValue = "30")
+        private int maxResults;
+
+        @Option(names = {"-s", "--min-score"}, description = "Minimum score threshold (filter out low-relevance results)", defaultValue = "1.0")
+        private double minScore;
+
+        @Option(names = {"--json"}, description = "Output as JSON")
+        private boolean jsonOutput;
+
+        @Option(names = {"--no-daemon"}, description = "Search in this process even if a serve daemon is running")
+        private boolean noDaemon;
+
+        @Override
+        public Integer call() {
+            try {
+                Path indexPath = Paths.get(indexDir).toAbsolutePath();
+
+                if (!Files.exists(indexPath)) {
+                    System.err.println("Index directory does not exist: " + indexDir);
+                    return 1;
+                }
+
+                JsonObject params = new JsonObject();
+                params.addProperty("query", query);
+                params.addProperty("maxResults", maxResults);
+                params.addProperty("minScore", minScore);
+                JsonObject output = callDaemon(indexPath, noDaemon, "search", params);
+                if (output == null) {
+                    try (SearchService service = SearchService.open(indexPath, documentReader)) {
+                        output = gson.toJsonTree(service.search(query, maxResults, minScore)).getAsJsonObject();
+                    }
+                }
+
+                if (jsonOutput) {
+                    System.out.println(gson.toJson(output));
+                } else {
+                    // 表格輸出
+                    printSearchResultsTable(gson.fromJson(output.get("results"), SEARCH_RESULTS), query,
+                        indexPath.toString());
+                }
+
+                return 0;
+            } catch (Exception e) {
+                System.err.println("Error: " + e.getMessage());
+                return 1;
+            }
+        }
+    }
+
+    // ========== 列出命令 ==========
+    @Command(name = "list", description = "List all indexed documents")
+    static class ListCommand implements Callable<Integer> {
+
+        @Option(names = {"-i", "--index-dir"}, description = "Index directory path", defaultValue = "./index-data")
+        private String indexDir;
+
+        @Option(names = {"-n", "--max-results"}, description = "Maximum number of results", defaultValue = "100")
+        private int maxResults;
+
+        @Option(names = {"--json"}, description = "Output as JSON")
+        private boolean jsonOutput;
+
+        @Option(names = {"--no-daemon"}, description = "Read the index in this process even if a serve daemon is running")
+        private boolean noDaemon;
+
+        @Override
+        public Integer call() {
+            try {
+                Path indexPath = Paths.get(indexDir).toAbsolutePath();
+
+                if (!Files.exists(indexPath)) {
+                    System.err.println("Index directory does not exist: " + indexDir);
+                    return 1;
+                }
+
+                JsonObject params = new JsonObject();
+                params.addProperty("maxResults", maxResults);
+                JsonObject output = callDaemon(indexPath, noDaemon, "list", params);
+                if (output == null) {
+                    try (SearchService service = SearchService.open(indexPath, null)) {
+                        output = gson.toJsonTree(service.list(maxResults)).getAsJsonObject();
+                    }
+                }
+
+                if (jsonOutput) {
+                    System.out.println(gson.toJson(output));
+                } else {
+                    List<SearchResult> results = gson.fromJson(output.get("documents"), SEARCH_RESULTS);
+                    System.out.println("Indexed documents: " + results.size() + "\n");
+
+                    for (SearchResult r : results) {
+                        System.out.println("- " + r.getFileName());
+                        System.out.println("  Path: " + r.getFilePath());
+                        System.out.println("  Size: " + r.getFormattedFileSize());
+                        if (r.getLastModified() != null) {
+                            System.out.println("  Modified: " + r.getLastModified());
+                        }
+                        if (r.getPageCount() > 0) {
+                            System.out.println("  Pages: " + r.getPageCount());
+                        }
+                        if (r.getTruncated() != null) {
+                            System.out.println("  Truncated: " + r.getTruncated());
+                        }
+                        System.out.println();
+                    }
+                }
+
+                return 0;
+            } catch (Exception e) {
+                System.err.println("Error: " + e.getMessage());
+                return 1;
+            }
+        }
+    }
+
+    // ========== 統計命令 ==========
+    @Command(name = "stats", description = "Show index statistics")
+    static class StatsCommand implements Callable<Integer> {
+
+        @Option(names = {"-i", "--index-dir"}, description = "Index directory path", defaultValue = "./index-data")
+        private String indexDir;
+
+        @Option(names = {"--json"}, description = "Output as JSON")
+        private boolean jsonOutput;
+
+        @Option(names = {"--no-daemon"}, description = "Read the index in this process even if a serve daemon is running")
+        private boolean noDaemon;
+
+        @Override
+        public Integer call() {
+            try {
+                Path indexPath = Paths.get(indexDir).toAbsolutePath();
+
+                if (!Files.exists(indexPath)) {
+                    System.err.println("Index directory does not exist: " + indexDir);
+                    return 1;
+                }
+
+                JsonObject stats = callDaemon(indexPath, noDaemon, "stats", new JsonObject());
+                if (stats == null) {
+                    try (SearchService service = SearchService.open(indexPath, null)) {
+                        stats = gson.toJsonTree(service.stats()).getAsJsonObject();
+                    }
+                }
+
+                if (jsonOutput) {
+                    System.out.println(gson.toJson(stats));
+                } else {
+                    System.out.println("Index Statistics:");
+                    System.out.println("  Index Path: " + indexPath);
+                    System.out.println("  Total Documents: " + stats.get("totalDocuments").getAsLong());
+                    System.out.println("  Deleted Documents: " + stats.get("deletedDocuments").getAsLong());
+                }
+
+                return 0;
+            } catch (Exception e) {
+                System.err.println("Error: " + e.getMessage());
+                return 1;
+            }
+        }
+    }
+
+    // ========== 常駐搜尋服務 ==========
+    @Command(name = "serve", description = "Keep the index open and answer search/list/stats/read over loopback HTTP or stdio JSON-RPC")
+    static class ServeCommand implements Callable<Integer> {
+
+        private final DocumentReader documentReader;
+
+        ServeCommand(DocumentReader documentReader) {
+            this.documentReader = documentReader;
+        }
+
+        @Option(names = {"-i", "--index-dir"}, description = "Index directory path", defaultValue = "./index-data")
+        private String indexDir;
+
+        @Option(names = {"--stdio"}, description = "Read JSON-RPC requests from stdin and write responses to stdout, one per line")
+        private boolean stdio;
+
+        @Option(names = {"--port"}, description = "Loopback HTTP port (0 picks a free port)", defaultValue = "0")
+        private int port;
+
+        @Option(names = {"-t", "--threads"}, description = "Requests handled concurrently over HTTP", defaultValue = "4")
+        private int threads;
+
+        @Option(names = {"--idle-timeout"}, description = "Exit after N minutes without requests (0 to keep running)", defaultValue = "0")
+        private int idleMinutes;
+
+        @Option(names = {"--refresh-ms"}, description = "How often to check the index for new commits, in milliseconds", defaultValue = "1000")
+        private long refreshMillis;
+
+        @Option(names = {"--stop"}, description = "Stop the daemon running for this index")
+        private boolean stop;
+
+        @Override
+        public Integer call() {
+            try {
+                Path indexPath = Paths.get(indexDir).toAbsolutePath();
+
+                if (!Files.exists(indexPath)) {
+                    System.err.println("Index directory does not exist: " + indexDir);
+                    return 1;
+                }
+
+                SearchClient running = SearchClient.find(indexPath);
+                if (stop) {
+                    if (running == null) {
+                        System.out.println("沒有執行中的搜尋服務");
+                        return 0;
+                    }
+                    running.call("shutdown", new JsonObject());
+                    System.out.println("已停止搜尋服務 (pid " + running.getPid() + ")");
+                    return 0;
+                }
+                if (running != null && !stdio) {
+                    System.err.println("Error: Search daemon already running for this index (pid " + running.getPid()
+                        + ", port " + running.getPort() + ")");
+                    return 1;
+                }
+
+                try (SearchService service = SearchService.open(indexPath, documentReader).refreshEvery(refreshMillis);
+                     SearchServer server = new SearchServer(service)) {
+                    if (stdio) {
+                        server.serveStdio(System.in, System.out);
+                        return 0;
+                    }
+
+                    server.startHttp(port, threads);
+                    Thread shutdownHook = new Thread(server::close, "serve-shutdown");
+                    Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+                    System.out.println("搜尋服務: http://127.0.0.1:" + server.getPort() + SearchServer.RPC_PATH);
+                    System.out.println("索引檔: " + indexPath);
+                    System.out.println("search / list / stats / read 會自動改用此服務，按 Ctrl-C 結束");
+
+                    server.awaitShutdown(idleMinutes * 60_000L);
+                    try {
+                        Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                    } catch (IllegalStateException e) {
+                        // 已在結束程序中
+                    }
+                }
+                return 0;
+            } catch (Exception e) {
+                System.err.println("Error: " + e.getMessage());
+                return 1;
+            }
+        }
+    }
+}
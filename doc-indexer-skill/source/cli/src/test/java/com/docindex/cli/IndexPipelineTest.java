@@ -0,0 +1,150 @@
+package com.docindex.cli;
+
+import com.docindex.core.DocumentExtractor;
+import com.docindex.index.LuceneIndexer;
+import com.docindex.model.DocumentInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 索引管線的失敗處理：單一檔案、回呼或提取器建立失敗都不能讓通道停下來，
+ * OutOfMemoryError 則中止管線並保留給呼叫端
+ */
+class IndexPipelineTest {
+
+    // 佇列容量為執行緒數的兩倍，送出的檔案數超過時，工作執行緒消失就會讓 submit() 永遠阻塞
+    private static final int FILES = 8;
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @TempDir
+    Path tempDir;
+
+    private LuceneIndexer indexer;
+    private List<Path> files;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        indexer = new LuceneIndexer(tempDir.resolve("index"));
+        files = new ArrayList<>();
+        Path docs = Files.createDirectory(tempDir.resolve("docs"));
+        for (int i = 0; i < FILES; i++) {
+            files.add(Files.writeString(docs.resolve("doc" + i + ".txt"), "content " + i));
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        indexer.close();
+    }
+
+    @Test
+    void errorFromOneDocumentIsCountedAndTheLaneKeepsGoing() {
+        Path bad = files.get(1);
+        DocumentExtractor extractor = (file, attrs) -> {
+            if (file.equals(bad)) {
+                throw new StackOverflowError("malformed document");
+            }
+            return document(file);
+        };
+        Map<Path, IndexPipeline.Outcome> outcomes = new ConcurrentHashMap<>();
+
+        IndexPipeline pipeline = run(() -> extractor, outcomes::put);
+
+        assertEquals(FILES - 1, pipeline.getIndexedCount());
+        assertEquals(1, pipeline.getErrorCount());
+        assertEquals(FILES, outcomes.size());
+        assertEquals(IndexPipeline.Outcome.FAILED, outcomes.get(bad));
+        // 索引仍要記為不完整
+        assertInstanceOf(StackOverflowError.class, pipeline.getFatalError());
+        assertFalse(pipeline.isCancelled());
+    }
+
+    @Test
+    void outOfMemoryCancelsThePipeline() {
+        Path bad = files.get(1);
+        OutOfMemoryError error = new OutOfMemoryError("Java heap space");
+        DocumentExtractor extractor = (file, attrs) -> {
+            if (file.equals(bad)) {
+                throw error;
+            }
+            return document(file);
+        };
+        Map<Path, IndexPipeline.Outcome> outcomes = new ConcurrentHashMap<>();
+
+        IndexPipeline pipeline = run(() -> extractor, outcomes::put);
+
+        assertSame(error, pipeline.getFatalError());
+        assertTrue(pipeline.isCancelled());
+        // 之後的檔案不再送進可能已損壞的 IndexWriter
+        assertEquals(1, pipeline.getIndexedCount());
+        assertEquals(IndexPipeline.Outcome.FAILED, outcomes.get(bad));
+        assertEquals(2, outcomes.size());
+    }
+
+    @Test
+    void throwingListenerDoesNotStopTheLane() {
+        IndexPipeline pipeline = run(() -> (file, attrs) -> document(file), (file, outcome) -> {
+            throw new IllegalStateException("listener bug");
+        });
+
+        assertEquals(FILES, pipeline.getIndexedCount());
+        assertEquals(0, pipeline.getErrorCount());
+        assertNull(pipeline.getFatalError());
+    }
+
+    @Test
+    void failingExtractorFactoryFailsEveryFileInsteadOfBlocking() {
+        Map<Path, IndexPipeline.Outcome> outcomes = new ConcurrentHashMap<>();
+
+        IndexPipeline pipeline = run(() -> {
+            throw new IllegalStateException("cannot start extractor");
+        }, outcomes::put);
+
+        assertEquals(0, pipeline.getIndexedCount());
+        assertEquals(FILES, pipeline.getErrorCount());
+        assertEquals(FILES, outcomes.size());
+    }
+
+    /**
+     * 以一個工作執行緒送出所有檔案並等待完成（卡住時測試失敗而不是永遠等待）
+     */
+    private IndexPipeline run(Supplier<DocumentExtractor> factory, IndexPipeline.Listener listener) {
+        return assertTimeoutPreemptively(TIMEOUT, () -> {
+            IndexPipeline pipeline = new IndexPipeline(indexer, factory, 1, listener);
+            for (Path file : files) {
+                pipeline.submit(file);
+            }
+            pipeline.awaitCompletion();
+            return pipeline;
+        });
+    }
+
+    private static DocumentInfo document(Path file) throws IOException {
+        DocumentInfo doc = new DocumentInfo(file.toString());
+        doc.setId(file.toString());
+        doc.setFileName(file.getFileName().toString());
+        doc.setFileSize(Files.size(file));
+        doc.setContent(Files.readString(file));
+        return doc;
+    }
+}
@@ -0,0 +1,33 @@
+package com.docindex.core;
+
+import com.docindex.model.DocumentInfo;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * 文件內容提取器
+ *
+ * 實作不需執行緒安全，索引管線的每個工作執行緒各自持有一個實例。
+ */
+public interface DocumentExtractor extends AutoCloseable {
+
+    /**
+     * 從檔案提取文件資訊（使用目錄走訪時已讀取的檔案屬性）
+     */
+    DocumentInfo extract(Path filePath, BasicFileAttributes attrs) throws Exception;
+
+    /**
+     * 已知內容雜湊時的提取（索引管線比對檔案狀態目錄時已計算，可為 null），預設忽略雜湊
+     */
+    default DocumentInfo extract(Path filePath, BasicFileAttributes attrs, String contentHash) throws Exception {
+        return extract(filePath, attrs);
+    }
+
+    /**
+     * 釋放資源（預設無動作）
+     */
+    @Override
+    default void close() {
+    }
+}
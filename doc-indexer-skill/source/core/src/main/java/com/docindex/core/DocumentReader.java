@@ -0,0 +1,21 @@
+package com.docindex.core;
+
+import com.docindex.model.DocumentInfo;
+
+import java.nio.file.Path;
+
+/**
+ * 依需要讀取單一檔案的內容（搜尋摘要與 read 使用）
+ *
+ * 與 DocumentExtractor 不同，實作必須執行緒安全：常駐搜尋服務會由多個請求執行緒同時呼叫。
+ */
+@FunctionalInterface
+public interface DocumentReader {
+
+    /**
+     * 讀取檔案
+     *
+     * @param maxChars 最多讀取的字元數（0 表示只受預設提取上限限制）
+     */
+    DocumentInfo read(Path file, int maxChars) throws Exception;
+}
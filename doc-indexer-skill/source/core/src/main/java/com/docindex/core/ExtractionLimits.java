@@ -0,0 +1,109 @@
+package com.docindex.core;
+
+/**
+ * 單一文件的提取上限
+ *
+ * 上限在解析過程中檢查，達到時停止寫入並在元數據記錄 truncated（原因），
+ * 不會先讀完整份內容再截斷。每份文件保留的文字約為 charLimit × 2 位元組
+ * （平行提取 PDF 時所有頁面範圍共用同一個 charLimit，合併時另需一份同樣大小的緩衝），
+ * 可由設定推算堆積用量。
+ */
+public class ExtractionLimits {
+
+    public static final int DEFAULT_MAX_CHARS = 10_000_000;
+    public static final int DEFAULT_MAX_EMBEDDED_DEPTH = 5;
+    public static final int DEFAULT_MAX_EMBEDDED = 1000;
+    public static final int DEFAULT_MAX_EXPANSION = 100;
+
+    // 膨脹比例只限制產生超過此字元數的文件，小檔案（例如很短的 docx）不受影響
+    static final int EXPANSION_FLOOR_CHARS = 1_000_000;
+
+    /** 元數據中記錄截斷原因的鍵 */
+    public static final String METADATA_KEY = "truncated";
+    public static final String MAX_CHARS = "maxChars";
+    public static final String EXPANSION = "expansionRatio";
+    public static final String EMBEDDED_DEPTH = "embeddedDepth";
+    public static final String EMBEDDED_COUNT = "embeddedCount";
+
+    private static final ExtractionLimits DEFAULTS = new ExtractionLimits(
+        DEFAULT_MAX_CHARS, DEFAULT_MAX_EMBEDDED_DEPTH, DEFAULT_MAX_EMBEDDED, DEFAULT_MAX_EXPANSION);
+    private static final ExtractionLimits UNLIMITED = new ExtractionLimits(0, 0, 0, 0);
+
+    private final int maxChars;
+    private final int maxEmbeddedDepth;
+    private final int maxEmbedded;
+    private final int maxExpansion;
+
+    /**
+     * 各項設為 0 表示不限制
+     *
+     * @param maxChars         每份文件最多保留的字元數
+     * @param maxEmbeddedDepth 內嵌文件（壓縮檔、Office 附件）的最大巢狀層數
+     * @param maxEmbedded      每份文件最多解析的內嵌文件數
+     * @param maxExpansion     每個輸入位元組最多產生的字元數（防止壓縮炸彈）
+     */
+    public ExtractionLimits(int maxChars, int maxEmbeddedDepth, int maxEmbedded, int maxExpansion) {
+        this.maxChars = maxChars;
+        this.maxEmbeddedDepth = maxEmbeddedDepth;
+        this.maxEmbedded = maxEmbedded;
+        this.maxExpansion = maxExpansion;
+    }
+
+    public static ExtractionLimits defaults() {
+        return DEFAULTS;
+    }
+
+    public static ExtractionLimits unlimited() {
+        return UNLIMITED;
+    }
+
+    public int getMaxChars() { return maxChars; }
+    public int getMaxEmbeddedDepth() { return maxEmbeddedDepth; }
+    public int getMaxEmbedded() { return maxEmbedded; }
+    public int getMaxExpansion() { return maxExpansion; }
+
+    /**
+     * 指定大小的檔案可保留的字元數（-1 表示不限制）
+     *
+     * @param maxContentLength 呼叫端另外指定的上限（0 或負數表示沒有）
+     */
+    public int charLimit(long fileSize, int maxContentLength) {
+        long limit = Long.MAX_VALUE;
+        if (maxChars > 0) {
+            limit = maxChars;
+        }
+        if (maxContentLength > 0) {
+            limit = Math.min(limit, maxContentLength);
+        }
+        long expansion = expansionLimit(fileSize);
+        if (expansion > 0) {
+            limit = Math.min(limit, expansion);
+        }
+        return limit == Long.MAX_VALUE ? -1 : (int) Math.min(limit, Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * 達到 charLimit 時的截斷原因
+     */
+    public String charLimitReason(long fileSize, int maxContentLength) {
+        long expansion = expansionLimit(fileSize);
+        int limit = charLimit(fileSize, maxContentLength);
+        return expansion > 0 && limit == expansion && (maxChars <= 0 || expansion < maxChars)
+            ? EXPANSION : MAX_CHARS;
+    }
+
+    private long expansionLimit(long fileSize) {
+        if (maxExpansion <= 0) {
+            return -1;
+        }
+        return Math.max(EXPANSION_FLOOR_CHARS, fileSize * maxExpansion);
+    }
+
+    /**
+     * 提取快取與增量索引用來區分設定的字串
+     */
+    public String describe() {
+        return "maxChars=" + maxChars + ";embeddedDepth=" + maxEmbeddedDepth
+            + ";embedded=" + maxEmbedded + ";expansion=" + maxExpansion;
+    }
+}
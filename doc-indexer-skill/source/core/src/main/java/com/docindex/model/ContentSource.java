@@ -0,0 +1,61 @@
+package com.docindex.model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 不保存在記憶體中的全文（提取快取項目、子程序結果的暫存檔）
+ *
+ * 索引時以 Reader 逐段讀取，全文不會組成 String；每次 openReader() 都從頭開始讀。
+ */
+public interface ContentSource {
+
+    /**
+     * 從頭開始讀取全文（呼叫端負責關閉）
+     */
+    Reader openReader() throws IOException;
+
+    /**
+     * 全文的字元數
+     */
+    int length();
+
+    /**
+     * 不再需要時釋放（例如刪除暫存檔）
+     */
+    default void release() {
+    }
+
+    /**
+     * 以 UTF-8 文字檔為來源
+     *
+     * @param temporary 是否在 release() 時刪除檔案
+     */
+    static ContentSource ofFile(Path file, int length, boolean temporary) {
+        return new ContentSource() {
+            @Override
+            public Reader openReader() throws IOException {
+                return Files.newBufferedReader(file, StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public int length() {
+                return length;
+            }
+
+            @Override
+            public void release() {
+                if (temporary) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        file.toFile().deleteOnExit();
+                    }
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,182 @@
+package com.docindex.model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.HashMap;
+
+/**
+ * 文件資訊模型
+ *
+ * 全文只保存一份（content），分頁以每頁在全文中的起始位移記錄，不另外保存每一頁的複本。
+ * 來自提取快取或子程序的全文以 ContentSource 保留在磁碟上，索引時以 openContent() 逐段讀取。
+ */
+public class DocumentInfo {
+    private String id;
+    private String filePath;
+    private String fileName;
+    private String content;
+    private String contentType;
+    private long fileSize;
+    private Instant lastModified;
+    private Instant indexedAt;
+    private Map<String, String> metadata;
+    private int[] pageOffsets;          // 每頁在 content 中的起始位移
+    private transient ContentSource contentSource;  // 不在記憶體中的全文（與 content 擇一）
+
+    public DocumentInfo() {
+        this.metadata = new HashMap<>();
+    }
+
+    public DocumentInfo(String filePath) {
+        this();
+        this.filePath = filePath;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getFilePath() { return filePath; }
+    public void setFilePath(String filePath) { this.filePath = filePath; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    /**
+     * 全文；來源為 ContentSource 時會把全文讀入記憶體，索引請改用 openContent()
+     */
+    public String getContent() {
+        if (contentSource == null) {
+            return content;
+        }
+        try (Reader in = contentSource.openReader()) {
+            StringBuilder sb = new StringBuilder(contentSource.length());
+            char[] buf = new char[8192];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                sb.append(buf, 0, n);
+            }
+            return sb.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+        this.contentSource = null;
+    }
+
+    public ContentSource getContentSource() { return contentSource; }
+
+    /**
+     * 以磁碟上的來源取代記憶體中的全文
+     */
+    public void setContentSource(ContentSource contentSource) {
+        this.contentSource = contentSource;
+        this.content = null;
+    }
+
+    /**
+     * 從頭讀取全文（沒有內容時為空的 Reader；呼叫端負責關閉）
+     */
+    public Reader openContent() throws IOException {
+        if (contentSource != null) {
+            return contentSource.openReader();
+        }
+        return new StringReader(content != null ? content : "");
+    }
+
+    /**
+     * 全文字元數（-1 表示沒有內容）
+     */
+    public int getContentLength() {
+        if (contentSource != null) {
+            return contentSource.length();
+        }
+        return content != null ? content.length() : -1;
+    }
+
+    /**
+     * 釋放全文來源（例如子程序結果的暫存檔），索引完成後呼叫
+     */
+    public void releaseContent() {
+        if (contentSource != null) {
+            contentSource.release();
+        }
+    }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public long getFileSize() { return fileSize; }
+    public void setFileSize(long fileSize) { this.fileSize = fileSize; }
+
+    public Instant getLastModified() { return lastModified; }
+    public void setLastModified(Instant lastModified) { this.lastModified = lastModified; }
+
+    public Instant getIndexedAt() { return indexedAt; }
+    public void setIndexedAt(Instant indexedAt) { this.indexedAt = indexedAt; }
+
+    public Map<String, String> getMetadata() { return metadata; }
+    public void setMetadata(Map<String, String> metadata) { this.metadata = metadata; }
+
+    public void addMetadata(String key, String value) {
+        if (value != null && !value.isBlank()) {
+            this.metadata.put(key, value);
+        }
+    }
+
+    public String getMetadata(String key) {
+        return this.metadata.get(key);
+    }
+
+    public int[] getPageOffsets() { return pageOffsets; }
+    public void setPageOffsets(int[] pageOffsets) { this.pageOffsets = pageOffsets; }
+
+    /**
+     * 有分頁資訊的頁數（沒有分頁資訊時為 0）
+     */
+    public int getStoredPageCount() {
+        return pageOffsets != null ? pageOffsets.length : 0;
+    }
+
+    /**
+     * 取得第 index 頁（從 0 開始）去除前後空白後的內容，最多 maxLength 個字元
+     *
+     * 直接從 content 擷取，只複製需要的部分（來源為 ContentSource 時會先讀入全文）。
+     */
+    public String getPage(int index, int maxLength) {
+        String text = getContent();
+        if (text == null) {
+            text = "";
+        }
+        int start = Math.min(pageOffsets[index], text.length());
+        int end = index + 1 < pageOffsets.length ? Math.min(pageOffsets[index + 1], text.length()) : text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (maxLength >= 0 && end - start > maxLength) {
+            end = start + maxLength;
+        }
+        return text.substring(start, end);
+    }
+
+    public int getPageCount() {
+        int pages = getStoredPageCount();
+        return pages == 0 ? 1 : pages;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DocumentInfo{id='%s', fileName='%s', contentType='%s', fileSize=%d, pages=%d}",
+                id, fileName, contentType, fileSize, getPageCount());
+    }
+}
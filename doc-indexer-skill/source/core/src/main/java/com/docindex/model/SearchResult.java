@@ -19,6 +19,7 @@ public class SearchResult {
     private String indexedAt;
     private int pageCount;
     private List<Integer> matchedPages;  // 匹配的頁碼
+    private String truncated;            // 提取內容被截斷的原因（完整提取時為 null）
 
     public SearchResult() {
         this.highlights = new ArrayList<>();
@@ -62,6 +63,30 @@ public class SearchResult {
     public List<Integer> getMatchedPages() { return matchedPages; }
     public void setMatchedPages(List<Integer> matchedPages) { this.matchedPages = matchedPages; }
 
+    public String getTruncated() { return truncated; }
+    public void setTruncated(String truncated) { this.truncated = truncated; }
+
+    /**
+     * 複製結果（清單另外複製，修改副本不影響原物件）
+     */
+    public SearchResult copy() {
+        SearchResult copy = new SearchResult();
+        copy.documentId = documentId;
+        copy.filePath = filePath;
+        copy.fileName = fileName;
+        copy.contentType = contentType;
+        copy.score = score;
+        copy.highlights = highlights != null ? new ArrayList<>(highlights) : null;
+        copy.snippet = snippet;
+        copy.fileSize = fileSize;
+        copy.lastModified = lastModified;
+        copy.indexedAt = indexedAt;
+        copy.pageCount = pageCount;
+        copy.matchedPages = matchedPages != null ? new ArrayList<>(matchedPages) : null;
+        copy.truncated = truncated;
+        return copy;
+    }
+
     /**
      * 格式化匹配頁碼
      */
@@ -0,0 +1,57 @@
+package com.docindex.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 字元上限與截斷原因的計算
+ */
+class ExtractionLimitsTest {
+
+    @Test
+    void unlimitedHasNoCharLimit() {
+        assertEquals(-1, ExtractionLimits.unlimited().charLimit(1_000_000, 0));
+    }
+
+    @Test
+    void callerLimitWinsWhenSmaller() {
+        ExtractionLimits limits = new ExtractionLimits(1000, 0, 0, 0);
+
+        assertEquals(1000, limits.charLimit(10, 0));
+        assertEquals(200, limits.charLimit(10, 200));
+        assertEquals(1000, limits.charLimit(10, 5000));
+        assertEquals(ExtractionLimits.MAX_CHARS, limits.charLimitReason(10, 200));
+    }
+
+    @Test
+    void expansionLimitAppliesAboveTheFloor() {
+        ExtractionLimits limits = new ExtractionLimits(10_000_000, 0, 0, 100);
+
+        // 小檔案只受下限限制
+        assertEquals(ExtractionLimits.EXPANSION_FLOOR_CHARS, limits.charLimit(1000, 0));
+        assertEquals(ExtractionLimits.EXPANSION, limits.charLimitReason(1000, 0));
+
+        assertEquals(5_000_000, limits.charLimit(50_000, 0));
+        assertEquals(ExtractionLimits.EXPANSION, limits.charLimitReason(50_000, 0));
+
+        // 膨脹上限大於 maxChars 時以 maxChars 為準
+        assertEquals(10_000_000, limits.charLimit(1_000_000, 0));
+        assertEquals(ExtractionLimits.MAX_CHARS, limits.charLimitReason(1_000_000, 0));
+    }
+
+    @Test
+    void expansionAloneIsReportedAsExpansion() {
+        ExtractionLimits limits = new ExtractionLimits(0, 0, 0, 10);
+
+        assertEquals(20_000_000, limits.charLimit(2_000_000, 0));
+        assertEquals(ExtractionLimits.EXPANSION, limits.charLimitReason(2_000_000, 0));
+    }
+
+    @Test
+    void hugeLimitsStayBelowArraySize() {
+        ExtractionLimits limits = new ExtractionLimits(0, 0, 0, 1000);
+
+        assertEquals(Integer.MAX_VALUE - 8, limits.charLimit(10L * 1024 * 1024 * 1024, 0));
+    }
+}
@@ -0,0 +1,61 @@
+package com.docindex.extraction;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 每個執行緒的堆積配置量
+ *
+ * JVM 沒有提供單一文件的堆積峰值，這裡以提取期間配置的位元組數作為近似值。
+ * 由其他執行緒（分頁平行提取）或子程序代為配置的量，透過 addDelegated 計入
+ * 呼叫端目前處理的文件。
+ */
+public final class AllocationTracker {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private static final ThreadLocal<long[]> DELEGATED = ThreadLocal.withInitial(() -> new long[1]);
+
+    private AllocationTracker() {
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                    return threads;
+                }
+            }
+        } catch (RuntimeException | LinkageError e) {
+            // 非 HotSpot JVM
+        }
+        return null;
+    }
+
+    /**
+     * 目前執行緒累計配置的位元組數（不支援時回傳 -1）
+     */
+    public static long currentThreadAllocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * 將其他執行緒代為配置的位元組數計入目前執行緒
+     */
+    static void addDelegated(long bytes) {
+        if (bytes > 0) {
+            DELEGATED.get()[0] += bytes;
+        }
+    }
+
+    /**
+     * 取出並歸零目前執行緒的代為配置量
+     */
+    public static long takeDelegated() {
+        long[] delegated = DELEGATED.get();
+        long bytes = delegated[0];
+        delegated[0] = 0;
+        return bytes;
+    }
+}
@@ -0,0 +1,68 @@
+package com.docindex.extraction;
+
+import com.docindex.core.DocumentExtractor;
+import com.docindex.model.DocumentInfo;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.function.Function;
+
+/**
+ * 在任一 DocumentExtractor 前加上磁碟快取
+ *
+ * 內容與提取設定相同的檔案直接從 ExtractionCache 取回結果，不經過解析；
+ * 包裝子程序提取器時，命中的檔案也不需要送到子 JVM。
+ */
+public class CachingExtractor implements DocumentExtractor {
+
+    private final DocumentExtractor delegate;
+    private final ExtractionCache cache;
+    private final Function<Path, String> variant;
+
+    /**
+     * @param variant 會影響提取結果的設定，設定不同的結果不會互相命中
+     */
+    public CachingExtractor(DocumentExtractor delegate, ExtractionCache cache, String variant) {
+        this(delegate, cache, file -> variant);
+    }
+
+    /**
+     * @param variant 依檔案取得影響提取結果的設定（例如依路徑選擇的提取模式）
+     */
+    public CachingExtractor(DocumentExtractor delegate, ExtractionCache cache, Function<Path, String> variant) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.variant = variant;
+    }
+
+    @Override
+    public DocumentInfo extract(Path filePath, BasicFileAttributes attrs) throws Exception {
+        return extract(filePath, attrs, null);
+    }
+
+    @Override
+    public DocumentInfo extract(Path filePath, BasicFileAttributes attrs, String contentHash) throws Exception {
+        if (attrs.isSymbolicLink()) {
+            attrs = Files.readAttributes(filePath, BasicFileAttributes.class);
+        }
+        if (contentHash == null) {
+            contentHash = FileStateCatalog.hashFile(filePath);
+        }
+        String key = ExtractionCache.key(contentHash, variant.apply(filePath));
+
+        DocumentInfo cached = TikaExtractor.describe(filePath, attrs);
+        if (cache.load(key, cached)) {
+            return cached;
+        }
+
+        DocumentInfo doc = delegate.extract(filePath, attrs, contentHash);
+        cache.store(key, doc);
+        return doc;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
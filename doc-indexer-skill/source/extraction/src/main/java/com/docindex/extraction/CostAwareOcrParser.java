@@ -0,0 +1,197 @@
+package com.docindex.extraction;
+
+import org.apache.tika.exception.TikaConfigException;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.ParserDecorator;
+import org.apache.tika.parser.ocr.TesseractOCRConfig;
+import org.apache.tika.parser.ocr.TesseractOCRParser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.TeeContentHandler;
+import org.apache.tika.sax.XHTMLContentHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+
+/**
+ * 在 Tesseract 之前加上成本控制
+ *
+ * 依序檢查：內容雜湊快取 → 最小尺寸 → 空白（低熵）影像 → 長邊過大時縮小，
+ * 通過檢查的影像才交給 Tesseract，結果寫入快取。無法解碼的影像格式直接交給 Tesseract。
+ */
+final class CostAwareOcrParser extends ParserDecorator {
+    private static final Logger logger = LoggerFactory.getLogger(CostAwareOcrParser.class);
+
+    // 計算熵時最多取樣的像素數
+    private static final int MAX_ENTROPY_SAMPLES = 64 * 1024;
+
+    private final OcrCostControls controls;
+
+    CostAwareOcrParser(OcrCostControls controls) {
+        super(newTesseract());
+        this.controls = controls;
+    }
+
+    private static TesseractOCRParser newTesseract() {
+        TesseractOCRParser tesseract = new TesseractOCRParser();
+        try {
+            // 直接建構時需要自行初始化（檢查 tesseract 是否已安裝）
+            tesseract.initialize(Collections.emptyMap());
+        } catch (TikaConfigException e) {
+            logger.debug("Tesseract initialization failed", e);
+        }
+        return tesseract;
+    }
+
+    @Override
+    public void parse(InputStream stream, ContentHandler handler, Metadata metadata, ParseContext context)
+            throws IOException, SAXException, TikaException {
+        // 提取模式不辨識影像時不讀取資料，只輸出空白內容
+        TesseractOCRConfig config = context.get(TesseractOCRConfig.class);
+        if (config != null && config.isSkipOcr()) {
+            writeText("", handler, metadata);
+            return;
+        }
+
+        byte[] data = stream.readAllBytes();
+        String hash = sha256(data);
+
+        String cached = controls.cached(hash);
+        if (cached != null) {
+            controls.recordCacheHit();
+            writeText(cached, handler, metadata);
+            return;
+        }
+
+        BufferedImage image;
+        try {
+            image = ImageIO.read(new ByteArrayInputStream(data));
+        } catch (IOException | RuntimeException e) {
+            image = null;
+        }
+
+        byte[] ocrInput = data;
+        if (image != null) {
+            if (image.getWidth() < controls.getMinSize() || image.getHeight() < controls.getMinSize()) {
+                controls.recordSkippedSmall();
+                controls.cache(hash, "");
+                writeText("", handler, metadata);
+                return;
+            }
+            if (entropy(image) < controls.getMinEntropy()) {
+                controls.recordSkippedBlank();
+                controls.cache(hash, "");
+                writeText("", handler, metadata);
+                return;
+            }
+            int maxSide = controls.getMaxSide();
+            if (maxSide > 0 && Math.max(image.getWidth(), image.getHeight()) > maxSide) {
+                ocrInput = downscale(image, maxSide);
+                metadata.set(Metadata.CONTENT_TYPE, "image/png");
+                controls.recordDownscaled();
+            }
+        }
+        // 後續只需要位元組
+        image = null;
+
+        BodyContentHandler capture = new BodyContentHandler(-1);
+        long start = System.nanoTime();
+        try (InputStream input = new ByteArrayInputStream(ocrInput)) {
+            super.parse(input, new TeeContentHandler(handler, capture), metadata, context);
+        }
+        controls.recordRecognized(System.nanoTime() - start);
+        controls.cache(hash, capture.toString().trim());
+    }
+
+    /**
+     * 輸出快取或略過的結果（與 Tesseract 相同的 XHTML 結構）
+     */
+    private static void writeText(String text, ContentHandler handler, Metadata metadata) throws SAXException {
+        XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+        xhtml.startDocument();
+        if (!text.isEmpty()) {
+            xhtml.startElement("div", "class", "ocr");
+            xhtml.characters(text);
+            xhtml.endElement("div");
+        }
+        xhtml.endDocument();
+    }
+
+    /**
+     * 取樣像素的灰階 16 階直方圖熵（bits），透明像素視為白色
+     */
+    static double entropy(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int step = Math.max(1, (int) Math.sqrt((double) width * height / MAX_ENTROPY_SAMPLES));
+        int[] histogram = new int[16];
+        int samples = 0;
+        for (int y = 0; y < height; y += step) {
+            for (int x = 0; x < width; x += step) {
+                int argb = image.getRGB(x, y);
+                int gray;
+                if ((argb >>> 24) < 128) {
+                    gray = 255;
+                } else {
+                    gray = (((argb >> 16) & 0xff) * 299 + ((argb >> 8) & 0xff) * 587 + (argb & 0xff) * 114) / 1000;
+                }
+                histogram[gray >> 4]++;
+                samples++;
+            }
+        }
+        double entropy = 0;
+        for (int count : histogram) {
+            if (count > 0) {
+                double p = (double) count / samples;
+                entropy -= p * Math.log(p) / Math.log(2);
+            }
+        }
+        return entropy;
+    }
+
+    /**
+     * 等比例縮小到長邊為 maxSide 的灰階 PNG
+     */
+    private static byte[] downscale(BufferedImage image, int maxSide) throws IOException {
+        double scale = (double) maxSide / Math.max(image.getWidth(), image.getHeight());
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(scaled, "png", png);
+        return png.toByteArray();
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.docindex.extraction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 遞迴監看目錄變更
+ *
+ * 以 WatchService 註冊整棵目錄樹，同一路徑在 debounce 時間內的多次事件合併為一次。
+ * 事件佇列溢位（OVERFLOW）時改為重新掃描受影響的目錄。
+ * 設定 IgnoreRules 時，被排除的目錄不註冊監看，其中的檔案也不回呼。
+ */
+public class DirectoryWatcher implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryWatcher.class);
+
+    /**
+     * 變更處理回呼（在監看執行緒中依序呼叫）
+     */
+    public interface Handler {
+        /** 檔案新增或修改（重新掃描時目錄中的每個檔案也會回呼） */
+        void onFileChanged(Path file, BasicFileAttributes attrs);
+
+        /** 檔案或目錄已刪除 */
+        void onDeleted(Path path);
+
+        /** 目錄重新掃描完成（可用來清除掃描期間未出現的檔案） */
+        void onRescanned(Path dir);
+    }
+
+    private final Path root;
+    private final Handler handler;
+    private final long debounceMillis;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys = new ConcurrentHashMap<>();
+    private final Set<Path> watchedDirs = ConcurrentHashMap.newKeySet();
+    // 已監看目錄 → 該目錄適用的排除規則
+    private final Map<Path, IgnoreRules> rulesByDir = new ConcurrentHashMap<>();
+    private IgnoreRules ignoreRules;
+
+    // 等待合併的事件：路徑 → 最後一次事件時間
+    private final Map<Path, Long> pendingPaths = new LinkedHashMap<>();
+    private final Set<Path> pendingRescans = new LinkedHashSet<>();
+
+    private volatile boolean running = true;
+
+    public DirectoryWatcher(Path root, Handler handler, long debounceMillis) throws IOException {
+        this.root = root;
+        this.handler = handler;
+        this.debounceMillis = debounceMillis;
+        this.watchService = root.getFileSystem().newWatchService();
+    }
+
+    /**
+     * 設定排除規則（需在 run() 之前呼叫）
+     */
+    public DirectoryWatcher setIgnoreRules(IgnoreRules ignoreRules) {
+        this.ignoreRules = ignoreRules;
+        return this;
+    }
+
+    /**
+     * 註冊整棵目錄樹並開始處理事件（阻塞直到 close()）
+     */
+    public void run() throws IOException {
+        registerTree(root);
+        logger.info("Watching {} directories under {}", keys.size(), root);
+
+        try {
+            while (running) {
+                WatchKey key;
+                try {
+                    key = watchService.poll(Math.max(10, debounceMillis / 2), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+
+                if (key != null) {
+                    collectEvents(key);
+                }
+                flushPending();
+            }
+        } catch (ClosedWatchServiceException e) {
+            // close() 已被呼叫
+        }
+    }
+
+    private void collectEvents(WatchKey key) {
+        Path dir = keys.get(key);
+        if (dir == null) {
+            key.cancel();
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // 事件遺失，改為重新掃描此目錄
+                logger.warn("Watch event overflow in {}, rescanning", dir);
+                pendingRescans.add(dir);
+                continue;
+            }
+            Path child = dir.resolve((Path) event.context());
+            pendingPaths.put(child, now);
+        }
+
+        if (!key.reset()) {
+            // 目錄已被刪除
+            keys.remove(key);
+            watchedDirs.remove(dir);
+        }
+    }
+
+    private void flushPending() {
+        for (Path dir : new ArrayList<>(pendingRescans)) {
+            pendingRescans.remove(dir);
+            rescan(dir);
+        }
+
+        long cutoff = System.currentTimeMillis() - debounceMillis;
+        Iterator<Map.Entry<Path, Long>> it = pendingPaths.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Path, Long> entry = it.next();
+            if (entry.getValue() > cutoff) {
+                continue;
+            }
+            it.remove();
+            dispatch(entry.getKey());
+        }
+    }
+
+    private void dispatch(Path path) {
+        IgnoreRules rules = rulesFor(path.getParent());
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            handler.onDeleted(path);
+            return;
+        } catch (IOException e) {
+            logger.debug("Cannot read attributes of {}", path, e);
+            return;
+        }
+
+        if (attrs.isDirectory()) {
+            // 新建立的目錄：註冊並掃描註冊前已建立的檔案；已註冊目錄的 MODIFY 事件忽略
+            if (!watchedDirs.contains(path) && (rules == null || !rules.isIgnored(path, true))) {
+                rescan(path);
+            }
+        } else if (attrs.isRegularFile() && !isIgnoredFile(rules, path)) {
+            handler.onFileChanged(path, attrs);
+        }
+    }
+
+    private IgnoreRules rulesFor(Path dir) {
+        if (ignoreRules == null || dir == null) {
+            return null;
+        }
+        IgnoreRules rules = rulesByDir.get(dir);
+        return rules != null ? rules : ignoreRules;
+    }
+
+    private static boolean isIgnoredFile(IgnoreRules rules, Path file) {
+        return rules != null && (rules.isIgnored(file, false) || !rules.isIncluded(file));
+    }
+
+    /**
+     * 重新掃描目錄：註冊尚未監看的子目錄，並對每個檔案回呼 onFileChanged
+     */
+    private void rescan(Path dir) {
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) throws IOException {
+                    if (!d.equals(dir) && isIgnoredDir(d)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    if (!watchedDirs.contains(d)) {
+                        register(d);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && !isIgnoredFile(rulesFor(file.getParent()), file)) {
+                        handler.onFileChanged(file, attrs);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            handler.onRescanned(dir);
+        } catch (IOException e) {
+            logger.warn("Failed to rescan {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private void registerTree(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(start) && isIgnoredDir(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                register(dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private boolean isIgnoredDir(Path dir) {
+        IgnoreRules rules = rulesFor(dir.getParent());
+        return rules != null && rules.isIgnored(dir, true);
+    }
+
+    private void register(Path dir) throws IOException {
+        WatchKey key = dir.register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_DELETE);
+        keys.put(key, dir);
+        watchedDirs.add(dir);
+        if (ignoreRules != null) {
+            rulesByDir.put(dir, dir.equals(root) ? ignoreRules : rulesFor(dir.getParent()).forDirectory(dir));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        watchService.close();
+    }
+}
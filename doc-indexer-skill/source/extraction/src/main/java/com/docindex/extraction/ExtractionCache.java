@@ -0,0 +1,369 @@
+package com.docindex.extraction;
+
+import com.docindex.model.ContentSource;
+import com.docindex.model.DocumentInfo;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 磁碟上的提取結果快取
+ *
+ * 以「內容雜湊 + 提取設定」為鍵，保存壓縮後的全文、分頁位移與元數據。
+ * 檔案改名、索引清除或重建時，內容未變的檔案不需要重新經過 Tika 與 OCR。
+ *
+ * 每個項目是一個 gzip 檔：第一行是 JSON 標頭（類型、分頁位移、元數據、全文長度），之後是全文。
+ * 命中時只讀入標頭，全文以 ContentSource 交給索引逐段讀取，不組成 String。
+ * 命中時更新修改時間，清理時依修改時間淘汰最久未使用的項目。
+ * 可由多個執行緒與多個程序共用（寫入先寫暫存檔再原子搬移）。
+ */
+public class ExtractionCache {
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionCache.class);
+
+    public static final long DEFAULT_MAX_BYTES = 2048L * 1024 * 1024;
+
+    private static final String SUFFIX = ".txt.gz";
+    // 統計與清理時也計入舊格式（整份 JSON）的項目，讓它們依使用時間淘汰
+    private static final String ANY_SUFFIX = ".gz";
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    /**
+     * 快取項目標頭（只包含由檔案內容決定的欄位，全文接在標頭之後）
+     */
+    private static final class Entry {
+        String contentType;
+        int contentLength;  // -1 表示沒有內容
+        int[] pageOffsets;
+        Map<String, String> metadata;
+    }
+
+    /**
+     * 快取項目中的全文（每次讀取重新解壓縮，略過標頭）
+     */
+    private static final class EntryContent implements ContentSource {
+        private final Path file;
+        private final int length;
+
+        EntryContent(Path file, int length) {
+            this.file = file;
+            this.length = length;
+        }
+
+        @Override
+        public Reader openReader() throws IOException {
+            BufferedReader in = openEntry(file);
+            try {
+                in.readLine();
+            } catch (IOException | RuntimeException e) {
+                in.close();
+                throw e;
+            }
+            return in;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+    }
+
+    /**
+     * 快取目錄統計
+     */
+    public static final class Stats {
+        private final long entries;
+        private final long bytes;
+        private final FileTime oldestAccess;
+        private final FileTime newestAccess;
+
+        Stats(long entries, long bytes, FileTime oldestAccess, FileTime newestAccess) {
+            this.entries = entries;
+            this.bytes = bytes;
+            this.oldestAccess = oldestAccess;
+            this.newestAccess = newestAccess;
+        }
+
+        public long getEntries() { return entries; }
+        public long getBytes() { return bytes; }
+        /** 最久未使用項目的最後使用時間（沒有項目時為 null） */
+        public FileTime getOldestAccess() { return oldestAccess; }
+        public FileTime getNewestAccess() { return newestAccess; }
+    }
+
+    /**
+     * 清理結果
+     */
+    public static final class PruneResult {
+        private final long removed;
+        private final long freedBytes;
+
+        PruneResult(long removed, long freedBytes) {
+            this.removed = removed;
+            this.freedBytes = freedBytes;
+        }
+
+        public long getRemoved() { return removed; }
+        public long getFreedBytes() { return freedBytes; }
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+
+    /**
+     * @param maxBytes 清理時的大小上限
+     */
+    public ExtractionCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 預設快取目錄（放在索引目錄外，清除索引時保留）
+     */
+    public static Path defaultDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".cache", "docindex", "extract");
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 由內容雜湊與提取設定產生快取鍵
+     *
+     * @param variant 會影響提取結果的設定（提取器版本、OCR 設定等）
+     */
+    public static String key(String contentHash, String variant) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(contentHash.getBytes(StandardCharsets.UTF_8));
+            md.update((byte) '\n');
+            md.update(variant.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : md.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 讀取快取並填入 docInfo 的內容欄位，未命中時回傳 false
+     *
+     * 全文不讀入記憶體，docInfo 的內容改以快取項目為來源；載入時會完整解壓縮一次，
+     * 確認全文長度與 gzip 檢查碼，損毀的項目視為未命中。
+     */
+    public boolean load(String key, DocumentInfo docInfo) {
+        Path file = entryPath(key);
+        Entry entry;
+        try (BufferedReader in = openEntry(file)) {
+            entry = GSON.fromJson(in.readLine(), Entry.class);
+            if (entry != null && in.skip(Long.MAX_VALUE) != Math.max(0, entry.contentLength)) {
+                throw new IOException("Content length mismatch");
+            }
+        } catch (NoSuchFileException e) {
+            misses.incrementAndGet();
+            return false;
+        } catch (IOException | RuntimeException e) {
+            // 損毀或寫到一半的項目視為未命中，之後會被覆寫
+            logger.debug("Ignoring unreadable cache entry {}", file, e);
+            misses.incrementAndGet();
+            return false;
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return false;
+        }
+
+        docInfo.setContentType(entry.contentType);
+        if (entry.contentLength > 0) {
+            docInfo.setContentSource(new EntryContent(file, entry.contentLength));
+        } else {
+            docInfo.setContent(entry.contentLength == 0 ? "" : null);
+        }
+        docInfo.setPageOffsets(entry.pageOffsets);
+        if (entry.metadata != null) {
+            entry.metadata.forEach(docInfo::addMetadata);
+        }
+        hits.incrementAndGet();
+
+        try {
+            // 修改時間作為最後使用時間，供清理時判斷
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // 清理時可能已被刪除
+        }
+        return true;
+    }
+
+    /**
+     * 寫入 docInfo 的內容欄位（失敗時只記錄，不影響索引）
+     *
+     * 全文以 openContent() 逐段寫入，不需要先組成 String。
+     */
+    public void store(String key, DocumentInfo docInfo) {
+        Entry entry = new Entry();
+        entry.contentType = docInfo.getContentType();
+        entry.contentLength = docInfo.getContentLength();
+        entry.pageOffsets = docInfo.getPageOffsets();
+        entry.metadata = docInfo.getMetadata();
+
+        Path file = entryPath(key);
+        Path tmpFile = null;
+        try {
+            Files.createDirectories(file.getParent());
+            tmpFile = Files.createTempFile(file.getParent(), key, ".tmp");
+            try (Writer out = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(tmpFile)), StandardCharsets.UTF_8)) {
+                // 標頭為單行 JSON（字串中的換行會被跳脫）
+                GSON.toJson(entry, out);
+                out.write('\n');
+                if (entry.contentLength > 0) {
+                    try (Reader content = docInfo.openContent()) {
+                        content.transferTo(out);
+                    }
+                }
+            }
+            Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            writes.incrementAndGet();
+        } catch (IOException e) {
+            logger.debug("Failed to write cache entry {}", file, e);
+            try {
+                if (tmpFile != null) {
+                    Files.deleteIfExists(tmpFile);
+                }
+            } catch (IOException ignored) {
+                // 忽略
+            }
+        }
+    }
+
+    /**
+     * 統計快取目錄
+     */
+    public Stats stats() throws IOException {
+        long entries = 0;
+        long bytes = 0;
+        FileTime oldest = null;
+        FileTime newest = null;
+        for (CachedFile f : listEntries()) {
+            entries++;
+            bytes += f.size;
+            if (oldest == null || f.lastUsed.compareTo(oldest) < 0) {
+                oldest = f.lastUsed;
+            }
+            if (newest == null || f.lastUsed.compareTo(newest) > 0) {
+                newest = f.lastUsed;
+            }
+        }
+        return new Stats(entries, bytes, oldest, newest);
+    }
+
+    /**
+     * 淘汰最久未使用的項目直到總大小不超過建構時設定的上限
+     */
+    public PruneResult prune() throws IOException {
+        return prune(maxBytes);
+    }
+
+    /**
+     * 淘汰最久未使用的項目直到總大小不超過 limitBytes
+     */
+    public PruneResult prune(long limitBytes) throws IOException {
+        List<CachedFile> files = listEntries();
+        long total = 0;
+        for (CachedFile f : files) {
+            total += f.size;
+        }
+        long removed = 0;
+        long freed = 0;
+        if (total > limitBytes) {
+            files.sort(Comparator.comparing(f -> f.lastUsed));
+            for (CachedFile f : files) {
+                if (total - freed <= limitBytes) {
+                    break;
+                }
+                if (Files.deleteIfExists(f.path)) {
+                    removed++;
+                    freed += f.size;
+                }
+            }
+        }
+        return new PruneResult(removed, freed);
+    }
+
+    /** 本次執行的命中數 */
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getWrites() { return writes.get(); }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + SUFFIX);
+    }
+
+    private static BufferedReader openEntry(Path file) throws IOException {
+        return new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8));
+    }
+
+    private static final class CachedFile {
+        final Path path;
+        final long size;
+        final FileTime lastUsed;
+
+        CachedFile(Path path, long size, FileTime lastUsed) {
+            this.path = path;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private List<CachedFile> listEntries() throws IOException {
+        List<CachedFile> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (Stream<Path> paths = Files.walk(directory, 2)) {
+            paths.filter(p -> p.getFileName().toString().endsWith(ANY_SUFFIX)).forEach(p -> {
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class);
+                    files.add(new CachedFile(p, attrs.size(), attrs.lastModifiedTime()));
+                } catch (IOException e) {
+                    // 同時被其他程序刪除
+                }
+            });
+        }
+        return files;
+    }
+}
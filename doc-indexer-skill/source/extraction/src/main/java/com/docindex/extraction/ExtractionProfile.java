@@ -0,0 +1,54 @@
+package com.docindex.extraction;
+
+import java.util.Locale;
+
+/**
+ * 提取模式：以速度換取內容完整度
+ *
+ * fast 只取文字層（不做任何 OCR、不解析內嵌圖片）；balanced 辨識圖檔與 PDF 掃描頁，
+ * 但略過文件內嵌的圖片；full 另外抽出 PDF 內嵌圖片並辨識 Office 文件中的圖片。
+ */
+public enum ExtractionProfile {
+    FAST("fast", false, false, false),
+    BALANCED("balanced", true, true, false),
+    FULL("full", true, true, true);
+
+    /** 未指定時使用的模式（與加入提取模式前的行為相同） */
+    public static final ExtractionProfile DEFAULT = FULL;
+
+    private final String key;
+    private final boolean imageOcr;
+    private final boolean pageOcr;
+    private final boolean embeddedImages;
+
+    ExtractionProfile(String key, boolean imageOcr, boolean pageOcr, boolean embeddedImages) {
+        this.key = key;
+        this.imageOcr = imageOcr;
+        this.pageOcr = pageOcr;
+        this.embeddedImages = embeddedImages;
+    }
+
+    /** 命令列與 JSON 輸出使用的名稱 */
+    public String getKey() { return key; }
+
+    /** 是否辨識圖檔（png、jpg 等） */
+    public boolean isImageOcr() { return imageOcr; }
+
+    /** 是否辨識 PDF 沒有文字層的頁面 */
+    public boolean isPageOcr() { return pageOcr; }
+
+    /** 是否解析文件內嵌的圖片（PDF 內嵌圖片、Office 文件中的圖片） */
+    public boolean isEmbeddedImages() { return embeddedImages; }
+
+    /**
+     * 依名稱取得模式（不分大小寫）
+     */
+    public static ExtractionProfile fromKey(String key) {
+        for (ExtractionProfile profile : values()) {
+            if (profile.key.equals(key.toLowerCase(Locale.ROOT))) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("Unknown extraction profile: " + key + " (fast, balanced, full)");
+    }
+}
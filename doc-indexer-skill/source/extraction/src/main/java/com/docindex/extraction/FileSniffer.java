@@ -0,0 +1,300 @@
+package com.docindex.extraction;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Locale;
+
+/**
+ * 以檔頭判斷檔案是否值得交給 Tika
+ *
+ * 走訪時只讀取檔案開頭幾 KB（zip 另讀中央目錄），在提取前略過：
+ * 內容是二進位的文字檔（例如副檔名為 .log 的記憶體傾印）、副檔名與內容不符的檔案、
+ * 有密碼保護的 zip 與 Office 文件、以及不含任何可索引檔案的 zip（整包影音素材）。
+ * 沒有副檔名的檔案依檔頭判斷是否為文字或已知格式。
+ *
+ * 無狀態，可由多個走訪執行緒共用。
+ */
+public class FileSniffer {
+
+    /**
+     * 略過原因
+     */
+    public enum Reason {
+        /** 文字類副檔名但內容是二進位 */
+        BINARY("binary"),
+        /** 有密碼保護 */
+        ENCRYPTED("encrypted"),
+        /** 檔頭與副檔名不符，也不是其他已知格式 */
+        MISMATCH("mismatch"),
+        /** zip 內沒有任何支援的檔案類型 */
+        NO_DOCUMENTS("noDocuments"),
+        /** 沒有副檔名且無法辨識 */
+        UNRECOGNIZED("unrecognized");
+
+        private final String key;
+
+        Reason(String key) {
+            this.key = key;
+        }
+
+        /** JSON 輸出使用的名稱 */
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private static final int HEADER_BYTES = 8 * 1024;
+
+    // zip 中央目錄結尾記錄（EOCD）最多在檔尾 22 + 65535 位元組內
+    private static final int EOCD_SIZE = 22;
+    private static final int EOCD_SEARCH = EOCD_SIZE + 0xFFFF;
+    // 超過此大小的中央目錄不檢查（條目極多的壓縮檔交給 Tika）
+    private static final int MAX_CENTRAL_DIRECTORY = 4 * 1024 * 1024;
+
+    /**
+     * 檢查檔案，可以提取時回傳 null
+     */
+    public Reason sniff(Path file, BasicFileAttributes attrs) {
+        byte[] header;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            header = readHeader(channel);
+            if (header.length == 0) {
+                // 空檔案由提取器處理
+                return null;
+            }
+            String extension = TikaExtractor.getFileExtension(file).toLowerCase(Locale.ROOT);
+            if (extension.isEmpty()) {
+                return classify(header) != null ? null : Reason.UNRECOGNIZED;
+            }
+            if (TikaExtractor.isTextExtension(extension)) {
+                return TextFileReader.looksBinary(header, header.length) ? Reason.BINARY : null;
+            }
+            return checkContainer(channel, extension, header, attrs.size());
+        } catch (IOException e) {
+            // 無法讀取的檔案交給提取器回報錯誤
+            return null;
+        }
+    }
+
+    /**
+     * 是否為沒有副檔名、需要檢查檔頭才能決定的檔案
+     */
+    public static boolean needsSniffing(Path file) {
+        return TikaExtractor.getFileExtension(file).isEmpty();
+    }
+
+    private static byte[] readHeader(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES);
+        while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+            // 讀滿或到檔案結尾
+        }
+        byte[] header = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(header);
+        return header;
+    }
+
+    /**
+     * 二進位格式：檢查檔頭、加密與 zip 內容
+     */
+    private static Reason checkContainer(FileChannel channel, String extension, byte[] header, long size)
+            throws IOException {
+        String format = classify(header);
+        switch (extension) {
+            case "docx": case "xlsx": case "pptx":
+                // 加密的 OOXML 以 OLE2 容器保存（EncryptedPackage）
+                if ("ole2".equals(format)) {
+                    return Reason.ENCRYPTED;
+                }
+                return "zip".equals(format) ? zipReason(channel, size, false) : mismatch(format);
+            case "odt": case "ods": case "odp":
+                return "zip".equals(format) ? zipReason(channel, size, false) : mismatch(format);
+            case "zip":
+                return "zip".equals(format) ? zipReason(channel, size, true) : mismatch(format);
+            case "pdf":
+                return "pdf".equals(format) ? null : mismatch(format);
+            case "png": case "jpg": case "jpeg": case "gif": case "bmp": case "tiff": case "tif": case "webp":
+                return "image".equals(format) ? null : mismatch(format);
+            case "rtf":
+                return "rtf".equals(format) ? null : mismatch(format);
+            case "gz":
+                return "gzip".equals(format) ? null : mismatch(format);
+            case "7z":
+                return "7z".equals(format) ? null : mismatch(format);
+            case "rar":
+                return "rar".equals(format) ? null : mismatch(format);
+            default:
+                // doc/xls/ppt 常是另存的 HTML 或 RTF，tar 沒有固定檔頭，交給 Tika 判斷
+                return null;
+        }
+    }
+
+    /**
+     * 檔頭屬於其他已知二進位格式時仍交給 Tika（自動偵測可以處理），否則略過
+     */
+    private static Reason mismatch(String format) {
+        return format != null && !"text".equals(format) ? null : Reason.MISMATCH;
+    }
+
+    /**
+     * 依檔頭辨識格式，無法辨識時回傳 null
+     */
+    static String classify(byte[] h) {
+        if (startsWith(h, 'P', 'K', 3, 4) || startsWith(h, 'P', 'K', 5, 6)) {
+            return "zip";
+        }
+        if (startsWith(h, 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1)) {
+            return "ole2";
+        }
+        // PDF 規範允許 %PDF 前有少量垃圾位元組
+        if (indexOf(h, "%PDF-", 1024) >= 0) {
+            return "pdf";
+        }
+        if (startsWith(h, 0x89, 'P', 'N', 'G')
+                || startsWith(h, 0xFF, 0xD8, 0xFF)
+                || startsWith(h, 'G', 'I', 'F', '8')
+                || startsWith(h, 'B', 'M')
+                || startsWith(h, 'I', 'I', '*', 0)
+                || startsWith(h, 'M', 'M', 0, '*')
+                || (startsWith(h, 'R', 'I', 'F', 'F') && h.length >= 12
+                    && h[8] == 'W' && h[9] == 'E' && h[10] == 'B' && h[11] == 'P')) {
+            return "image";
+        }
+        if (startsWith(h, '{', '\\', 'r', 't', 'f')) {
+            return "rtf";
+        }
+        if (startsWith(h, 0x1F, 0x8B)) {
+            return "gzip";
+        }
+        if (startsWith(h, '7', 'z', 0xBC, 0xAF, 0x27, 0x1C)) {
+            return "7z";
+        }
+        if (startsWith(h, 'R', 'a', 'r', '!')) {
+            return "rar";
+        }
+        if (h.length > 262 && h[257] == 'u' && h[258] == 's' && h[259] == 't' && h[260] == 'a' && h[261] == 'r') {
+            return "tar";
+        }
+        if (!TextFileReader.looksBinary(h, h.length) && mostlyPrintable(h)) {
+            return "text";
+        }
+        return null;
+    }
+
+    /**
+     * 讀取 zip 中央目錄：有加密條目時回傳 ENCRYPTED；checkDocuments 時，
+     * 沒有任何支援類型的條目回傳 NO_DOCUMENTS。無法解析（zip64、損毀）時交給 Tika。
+     */
+    private static Reason zipReason(FileChannel channel, long size, boolean checkDocuments) throws IOException {
+        int tailSize = (int) Math.min(size, EOCD_SEARCH);
+        ByteBuffer tail = readAt(channel, size - tailSize, tailSize);
+        int eocd = -1;
+        for (int i = tailSize - EOCD_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == 0x06054b50) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0) {
+            return null;
+        }
+        long cdSize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+        long cdOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+        if (cdSize == 0) {
+            return checkDocuments ? Reason.NO_DOCUMENTS : null;
+        }
+        if (cdSize > MAX_CENTRAL_DIRECTORY || cdOffset + cdSize > size) {
+            return null;
+        }
+
+        ByteBuffer cd = readAt(channel, cdOffset, (int) cdSize);
+        int documents = 0;
+        int pos = 0;
+        while (pos + 46 <= cdSize && cd.getInt(pos) == 0x02014b50) {
+            int flags = Short.toUnsignedInt(cd.getShort(pos + 8));
+            int nameLength = Short.toUnsignedInt(cd.getShort(pos + 28));
+            int extraLength = Short.toUnsignedInt(cd.getShort(pos + 30));
+            int commentLength = Short.toUnsignedInt(cd.getShort(pos + 32));
+            if (pos + 46 + nameLength > cdSize) {
+                break;
+            }
+            // 一般用途旗標第 0 位元：條目已加密
+            if ((flags & 1) != 0) {
+                return Reason.ENCRYPTED;
+            }
+            if (checkDocuments && nameLength > 0) {
+                byte[] name = new byte[nameLength];
+                cd.get(pos + 46, name);
+                String entry = new String(name, StandardCharsets.UTF_8);
+                if (!entry.endsWith("/") && TikaExtractor.isSupportedExtension(extensionOf(entry))) {
+                    documents++;
+                }
+            }
+            pos += 46 + nameLength + extraLength + commentLength;
+        }
+        return checkDocuments && documents == 0 && pos > 0 ? Reason.NO_DOCUMENTS : null;
+    }
+
+    private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer;
+    }
+
+    private static String extensionOf(String entryName) {
+        int slash = entryName.lastIndexOf('/');
+        int dot = entryName.lastIndexOf('.');
+        return dot > slash ? entryName.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * 控制字元（換行、Tab 等除外）不超過 5% 才視為文字
+     */
+    private static boolean mostlyPrintable(byte[] h) {
+        int control = 0;
+        for (byte b : h) {
+            int c = b & 0xff;
+            if (c < 0x20 && c != '\n' && c != '\r' && c != '\t' && c != '\f' && c != 0x1B) {
+                control++;
+            }
+        }
+        return control * 20 <= h.length;
+    }
+
+    private static boolean startsWith(byte[] h, int... magic) {
+        if (h.length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((h[i] & 0xff) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] h, String needle, int limit) {
+        byte[] n = needle.getBytes(StandardCharsets.US_ASCII);
+        int end = Math.min(h.length, limit) - n.length;
+        outer:
+        for (int i = 0; i <= end; i++) {
+            for (int j = 0; j < n.length; j++) {
+                if (h[i + j] != n[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,235 @@
+package com.docindex.extraction;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 檔案狀態目錄（增量索引用）
+ *
+ * 記錄每個已索引檔案的大小、修改時間、內容雜湊與提取器版本，
+ * 與索引存放在同一目錄。重新索引時，大小與修改時間都未變的檔案直接跳過；
+ * 只有修改時間變動但內容雜湊相同的檔案也不會重新提取。
+ */
+public class FileStateCatalog {
+    private static final Logger logger = LoggerFactory.getLogger(FileStateCatalog.class);
+
+    public static final String FILE_NAME = "file-catalog.json";
+
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * 單一檔案的狀態
+     */
+    public static class Entry {
+        private final long size;
+        private final long lastModified;
+        private final String contentHash;
+        private final String extractorVersion;
+
+        public Entry(long size, long lastModified, String contentHash, String extractorVersion) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+            this.extractorVersion = extractorVersion;
+        }
+
+        public long getSize() { return size; }
+        public long getLastModified() { return lastModified; }
+        public String getContentHash() { return contentHash; }
+        public String getExtractorVersion() { return extractorVersion; }
+    }
+
+    private final Path catalogFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private FileStateCatalog(Path catalogFile) {
+        this.catalogFile = catalogFile;
+    }
+
+    /**
+     * 載入索引目錄中的檔案狀態目錄（不存在時回傳空目錄）
+     */
+    public static FileStateCatalog load(Path indexPath) throws IOException {
+        FileStateCatalog catalog = new FileStateCatalog(indexPath.resolve(FILE_NAME));
+        if (Files.exists(catalog.catalogFile)) {
+            catalog.read();
+        }
+        return catalog;
+    }
+
+    /**
+     * 刪除索引目錄中的檔案狀態目錄
+     */
+    public static void delete(Path indexPath) throws IOException {
+        Files.deleteIfExists(indexPath.resolve(FILE_NAME));
+    }
+
+    /**
+     * 大小、修改時間與提取器版本都相同時視為未變更
+     */
+    public boolean isUnchanged(String filePath, BasicFileAttributes attrs, String extractorVersion) {
+        Entry entry = entries.get(filePath);
+        return entry != null
+            && entry.size == attrs.size()
+            && entry.lastModified == attrs.lastModifiedTime().toMillis()
+            && extractorVersion.equals(entry.extractorVersion);
+    }
+
+    public Entry get(String filePath) {
+        return entries.get(filePath);
+    }
+
+    public void put(String filePath, Entry entry) {
+        entries.put(filePath, entry);
+    }
+
+    public void remove(String filePath) {
+        entries.remove(filePath);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 取得目前狀態的複本
+     *
+     * 在 IndexWriter.commit() 之前取得複本再寫入，可確保寫入的每一筆都已包含在該次提交中。
+     */
+    public Map<String, Entry> snapshot() {
+        return new HashMap<>(entries);
+    }
+
+    /**
+     * 寫回磁碟
+     */
+    public void save() throws IOException {
+        save(entries);
+    }
+
+    /**
+     * 將指定狀態寫回磁碟（先寫暫存檔再原子搬移，避免中斷時留下半個檔案）
+     */
+    public synchronized void save(Map<String, Entry> state) throws IOException {
+        Path tmpFile = catalogFile.resolveSibling(FILE_NAME + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8);
+             JsonWriter writer = new JsonWriter(out)) {
+            writer.beginObject();
+            writer.name("formatVersion").value(FORMAT_VERSION);
+            writer.name("entries").beginArray();
+            for (Map.Entry<String, Entry> e : state.entrySet()) {
+                Entry entry = e.getValue();
+                writer.beginObject();
+                writer.name("path").value(e.getKey());
+                writer.name("size").value(entry.size);
+                writer.name("mtime").value(entry.lastModified);
+                writer.name("hash").value(entry.contentHash);
+                writer.name("extractor").value(entry.extractorVersion);
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+        Files.move(tmpFile, catalogFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void read() throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(catalogFile, StandardCharsets.UTF_8);
+             JsonReader reader = new JsonReader(in)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("entries".equals(name)) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        readEntry(reader);
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | IOException e) {
+            // 目錄損毀時當作全部需要重新索引
+            logger.warn("Ignoring unreadable file catalog {}: {}", catalogFile, e.getMessage());
+            entries.clear();
+        }
+    }
+
+    private void readEntry(JsonReader reader) throws IOException {
+        String path = null;
+        long size = -1;
+        long mtime = -1;
+        String hash = null;
+        String extractor = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "path": path = reader.nextString(); break;
+                case "size": size = reader.nextLong(); break;
+                case "mtime": mtime = reader.nextLong(); break;
+                case "hash": hash = reader.nextString(); break;
+                case "extractor": extractor = reader.nextString(); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (path != null) {
+            entries.put(path, new Entry(size, mtime, hash, extractor));
+        }
+    }
+
+    /**
+     * 計算檔案內容的 SHA-256 雜湊
+     */
+    public static String hashFile(Path file) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                md.update(buffer, 0, read);
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : md.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+}
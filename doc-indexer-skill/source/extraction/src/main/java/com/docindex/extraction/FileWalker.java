@@ -0,0 +1,369 @@
+package com.docindex.extraction;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * 串流式目錄走訪
+ *
+ * 不建立完整的檔案清單：每找到一個符合條件的檔案就連同走訪時已讀取的
+ * BasicFileAttributes 交給 Sink，讓提取可以在掃描完成前就開始，記憶體也不隨目錄樹大小成長。
+ *
+ * parallelism 大於 1 時以 ForkJoinPool 平行走訪子目錄（work-stealing），
+ * 適合每次 readdir / stat 都有網路延遲的 NFS、SMB 掛載點。
+ *
+ * 設定 IgnoreRules 時，被排除的目錄在進入前就整棵略過，不會逐一 stat 其中的檔案。
+ * 設定 FileSniffer 時，需要提取的檔案會先檢查檔頭，二進位、加密或副檔名不符的檔案不交給 Sink。
+ */
+public class FileWalker {
+
+    /**
+     * 接收走訪到的檔案（可阻塞，用於背壓）
+     */
+    public interface Sink {
+        void accept(Path file, BasicFileAttributes attrs) throws InterruptedException;
+    }
+
+    /**
+     * 走訪統計
+     */
+    public static class Stats {
+        private final AtomicLong visited = new AtomicLong();
+        private final AtomicLong accepted = new AtomicLong();
+        private final AtomicLong unchanged = new AtomicLong();
+        private final AtomicLong tooLarge = new AtomicLong();
+        private final AtomicLong unsupported = new AtomicLong();
+        private final AtomicLong ignored = new AtomicLong();
+        private final AtomicLong prunedDirs = new AtomicLong();
+        private final Map<FileSniffer.Reason, AtomicLong> sniffed = new EnumMap<>(FileSniffer.Reason.class);
+        private volatile long startNanos;
+
+        {
+            for (FileSniffer.Reason reason : FileSniffer.Reason.values()) {
+                sniffed.put(reason, new AtomicLong());
+            }
+        }
+        private volatile long endNanos;
+
+        /** 走訪的項目數（檔案與目錄） */
+        public long getVisited() { return visited.get(); }
+        public long getAccepted() { return accepted.get(); }
+        public long getUnchanged() { return unchanged.get(); }
+        public long getTooLarge() { return tooLarge.get(); }
+        public long getUnsupported() { return unsupported.get(); }
+        /** 被排除規則略過的檔案數 */
+        public long getIgnored() { return ignored.get(); }
+        /** 整棵略過的目錄數 */
+        public long getPrunedDirs() { return prunedDirs.get(); }
+        /** 檢查檔頭後以指定原因略過的檔案數 */
+        public long getSniffed(FileSniffer.Reason reason) { return sniffed.get(reason).get(); }
+
+        /** 檢查檔頭後略過的檔案總數 */
+        public long getSniffed() {
+            long total = 0;
+            for (AtomicLong count : sniffed.values()) {
+                total += count.get();
+            }
+            return total;
+        }
+
+        public long getElapsedMillis() {
+            if (startNanos == 0) {
+                return 0;
+            }
+            long end = endNanos != 0 ? endNanos : System.nanoTime();
+            return (end - startNanos) / 1_000_000;
+        }
+
+        /** 走訪速度（項目/秒） */
+        public double getEntriesPerSecond() {
+            long millis = getElapsedMillis();
+            return millis > 0 ? visited.get() * 1000.0 / millis : 0;
+        }
+    }
+
+    private final boolean recursive;
+    private final SizeLimits sizeLimits;
+    private final Predicate<Path> isSupported;
+    private final FileStateCatalog catalog;
+    private final Stats stats = new Stats();
+    private int parallelism = 1;
+    private IgnoreRules ignoreRules;
+    private FileSniffer sniffer;
+    private ProfileSelector profiles = ProfileSelector.uniform(ExtractionProfile.DEFAULT);
+    private volatile boolean cancelled;
+
+    /**
+     * @param sizeLimits  依檔案類型的大小上限
+     * @param isSupported 檔案類型過濾
+     * @param catalog     檔案狀態目錄；不為 null 時略過未變更的檔案
+     */
+    public FileWalker(boolean recursive, SizeLimits sizeLimits, Predicate<Path> isSupported, FileStateCatalog catalog) {
+        this.recursive = recursive;
+        this.sizeLimits = sizeLimits;
+        this.isSupported = isSupported;
+        this.catalog = catalog;
+    }
+
+    /**
+     * 設定平行走訪的執行緒數（1 表示單執行緒）
+     */
+    public FileWalker setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be >= 1: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * 設定排除規則（null 表示不排除）
+     */
+    public FileWalker setIgnoreRules(IgnoreRules ignoreRules) {
+        this.ignoreRules = ignoreRules;
+        return this;
+    }
+
+    /**
+     * 設定檔頭檢查（null 表示只依副檔名判斷）；沒有副檔名的檔案也會經由檔頭判斷是否索引
+     */
+    public FileWalker setSniffer(FileSniffer sniffer) {
+        this.sniffer = sniffer;
+        return this;
+    }
+
+    /**
+     * 設定各路徑的提取模式（比對檔案狀態目錄時使用對應的提取器版本）
+     */
+    public FileWalker setProfiles(ProfileSelector profiles) {
+        this.profiles = profiles;
+        return this;
+    }
+
+    public Stats getStats() {
+        return stats;
+    }
+
+    /**
+     * 中止走訪（可由其他執行緒呼叫）
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * 走訪目錄或單一檔案，將符合條件的檔案交給 sink
+     */
+    public Stats walk(Path root, Sink sink) throws IOException, InterruptedException {
+        stats.startNanos = System.nanoTime();
+        try {
+            if (parallelism > 1) {
+                walkParallel(root, sink);
+            } else {
+                walkSequential(root, sink);
+            }
+        } finally {
+            stats.endNanos = System.nanoTime();
+        }
+        return stats;
+    }
+
+    private void walkSequential(Path root, Sink sink) throws IOException, InterruptedException {
+        int maxDepth = recursive ? Integer.MAX_VALUE : 1;
+        InterruptedException[] interrupted = {null};
+        // 目前所在目錄的排除規則（子目錄有 .docindexignore 時疊加一層）
+        Deque<IgnoreRules> rulesStack = new ArrayDeque<>();
+
+        Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), maxDepth, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                stats.visited.incrementAndGet();
+                if (cancelled) {
+                    return FileVisitResult.TERMINATE;
+                }
+                if (ignoreRules != null) {
+                    if (rulesStack.isEmpty()) {
+                        rulesStack.push(ignoreRules);
+                    } else if (rulesStack.peek().isIgnored(dir, true)) {
+                        stats.prunedDirs.incrementAndGet();
+                        return FileVisitResult.SKIP_SUBTREE;
+                    } else {
+                        rulesStack.push(rulesStack.peek().forDirectory(dir));
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+                rulesStack.poll();
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                stats.visited.incrementAndGet();
+                if (cancelled) {
+                    return FileVisitResult.TERMINATE;
+                }
+                // 非遞迴模式下，最深一層的子目錄也會以 visitFile 回呼
+                if (attrs.isDirectory()) {
+                    return FileVisitResult.CONTINUE;
+                }
+                try {
+                    visit(file, attrs, rulesStack.isEmpty() ? ignoreRules : rulesStack.peek(), sink);
+                } catch (InterruptedException e) {
+                    interrupted[0] = e;
+                    return FileVisitResult.TERMINATE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        if (interrupted[0] != null) {
+            throw interrupted[0];
+        }
+    }
+
+    private void walkParallel(Path root, Sink sink) throws IOException, InterruptedException {
+        BasicFileAttributes rootAttrs = Files.readAttributes(root, BasicFileAttributes.class);
+        stats.visited.incrementAndGet();
+        if (!rootAttrs.isDirectory()) {
+            visit(root, rootAttrs, ignoreRules, sink);
+            return;
+        }
+
+        AtomicReference<InterruptedException> interrupted = new AtomicReference<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new DirectoryTask(root, true, ignoreRules, sink, interrupted));
+        } finally {
+            pool.shutdown();
+        }
+
+        if (interrupted.get() != null) {
+            throw interrupted.get();
+        }
+    }
+
+    /**
+     * 平行走訪單一目錄：子目錄 fork 成新工作，檔案直接處理
+     */
+    private final class DirectoryTask extends RecursiveAction {
+        private final Path dir;
+        private final boolean root;
+        private final IgnoreRules parentRules;
+        private final Sink sink;
+        private final AtomicReference<InterruptedException> interrupted;
+
+        DirectoryTask(Path dir, boolean root, IgnoreRules parentRules, Sink sink,
+                      AtomicReference<InterruptedException> interrupted) {
+            this.dir = dir;
+            this.root = root;
+            this.parentRules = parentRules;
+            this.sink = sink;
+            this.interrupted = interrupted;
+        }
+
+        @Override
+        protected void compute() {
+            // 根目錄直接使用根規則，子目錄在自己的工作中讀取 .docindexignore
+            IgnoreRules rules = parentRules == null || root ? parentRules : parentRules.forDirectory(dir);
+            List<DirectoryTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    if (cancelled) {
+                        break;
+                    }
+                    BasicFileAttributes attrs;
+                    try {
+                        // 與 walkFileTree 預設行為相同：不跟隨符號連結目錄
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        continue;
+                    }
+                    stats.visited.incrementAndGet();
+
+                    if (attrs.isDirectory()) {
+                        if (rules != null && rules.isIgnored(entry, true)) {
+                            stats.prunedDirs.incrementAndGet();
+                            continue;
+                        }
+                        if (recursive) {
+                            DirectoryTask task = new DirectoryTask(entry, false, rules, sink, interrupted);
+                            task.fork();
+                            subtasks.add(task);
+                        }
+                        continue;
+                    }
+                    try {
+                        visit(entry, attrs, rules, sink);
+                    } catch (InterruptedException e) {
+                        interrupted.compareAndSet(null, e);
+                        cancelled = true;
+                        break;
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                // 無法讀取的目錄略過
+            }
+
+            for (DirectoryTask task : subtasks) {
+                task.join();
+            }
+        }
+    }
+
+    /**
+     * 套用過濾條件，符合者交給 sink
+     */
+    private void visit(Path file, BasicFileAttributes attrs, IgnoreRules rules, Sink sink) throws InterruptedException {
+        if (rules != null && (rules.isIgnored(file, false) || !rules.isIncluded(file))) {
+            stats.ignored.incrementAndGet();
+            return;
+        }
+        // 跳過超過該類型大小上限的檔案
+        if (attrs.size() > sizeLimits.maxSizeFor(file)) {
+            stats.tooLarge.incrementAndGet();
+            return;
+        }
+        if (!isSupported.test(file) && (sniffer == null || !FileSniffer.needsSniffing(file))) {
+            stats.unsupported.incrementAndGet();
+            return;
+        }
+        // 大小與修改時間都未變更的檔案直接略過
+        if (catalog != null && catalog.isUnchanged(file.toString(), attrs, profiles.catalogVersion(file))) {
+            stats.unchanged.incrementAndGet();
+            return;
+        }
+        // 只檢查需要提取的檔案，未變更的檔案不必讀取
+        if (sniffer != null) {
+            FileSniffer.Reason reason = sniffer.sniff(file, attrs);
+            if (reason != null) {
+                stats.sniffed.get(reason).incrementAndGet();
+                return;
+            }
+        }
+
+        sink.accept(file, attrs);
+        stats.accepted.incrementAndGet();
+    }
+}
@@ -0,0 +1,355 @@
+package com.docindex.extraction;
+
+import com.docindex.core.DocumentExtractor;
+import com.docindex.model.ContentSource;
+import com.docindex.model.DocumentInfo;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * 在子 JVM 中執行 TikaExtractor
+ *
+ * 每個實例擁有一個子程序並重複用於多個檔案，透過 stdin/stdout 每行一個 JSON 溝通。
+ * 單一檔案超過時限時強制終止子程序；子程序異常結束（例如 OOM）或處理滿 N 個檔案後，
+ * 下一個檔案會啟動新的子程序。逾時與異常結束以 WorkerFailureException 回報。
+ *
+ * 全文不放在 JSON 中：回應行只帶 contentLength，之後緊接著該長度的全文。
+ * 父程序把全文直接寫入暫存檔，文件以 ContentSource 交給索引，不在記憶體中組成 String。
+ */
+public class ForkedExtractor implements DocumentExtractor {
+    private static final Logger logger = LoggerFactory.getLogger(ForkedExtractor.class);
+
+    /** 子程序使用的 CLI 子命令 */
+    public static final String WORKER_COMMAND = "extract-worker";
+
+    // 子程序啟動（載入 Tika）的時限
+    private static final long STARTUP_TIMEOUT_MILLIS = 60_000;
+
+    private static final Gson GSON = new GsonBuilder()
+        .registerTypeAdapter(Instant.class, new InstantAdapter())
+        .disableHtmlEscaping()
+        .create();
+
+    private final List<String> command;
+    private final long timeoutMillis;
+    private final int maxFilesPerWorker;
+    private final Path errorLog;
+    private final ExecutorService reader;
+
+    private Process process;
+    private BufferedWriter toWorker;
+    private BufferedReader fromWorker;
+    private int filesInWorker;
+
+    /**
+     * @param command           啟動子程序的命令（見 javaCommand）
+     * @param timeoutMillis     單一檔案的提取時限
+     * @param maxFilesPerWorker 子程序處理幾個檔案後重新啟動（避免記憶體洩漏累積）
+     * @param errorLog          子程序 stderr 輸出檔（null 表示丟棄）
+     */
+    public ForkedExtractor(List<String> command, long timeoutMillis, int maxFilesPerWorker, Path errorLog) {
+        this.command = command;
+        this.timeoutMillis = timeoutMillis;
+        this.maxFilesPerWorker = maxFilesPerWorker;
+        this.errorLog = errorLog;
+        this.reader = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "extract-worker-reader");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 以目前的 JVM 與 classpath 建立子程序命令
+     *
+     * @param heapMB 子程序最大堆積（MB），OOM 時子程序直接結束
+     */
+    public static List<String> javaCommand(int heapMB, String mainClass, String... args) {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        cmd.add("-Xmx" + heapMB + "m");
+        cmd.add("-XX:+ExitOnOutOfMemoryError");
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(mainClass);
+        cmd.addAll(Arrays.asList(args));
+        return cmd;
+    }
+
+    @Override
+    public DocumentInfo extract(Path filePath, BasicFileAttributes attrs) throws Exception {
+        if (process == null || !process.isAlive()) {
+            start();
+        }
+
+        JsonObject request = new JsonObject();
+        request.addProperty("path", filePath.toAbsolutePath().toString());
+        try {
+            toWorker.write(request.toString());
+            toWorker.newLine();
+            toWorker.flush();
+        } catch (IOException e) {
+            stop();
+            throw new WorkerFailureException(WorkerFailureException.Reason.CRASHED, "Worker not accepting input: " + e.getMessage());
+        }
+
+        BufferedReader in = fromWorker;
+        Response result = read(() -> readResponse(in), timeoutMillis);
+        filesInWorker++;
+        if (filesInWorker >= maxFilesPerWorker) {
+            stop();
+        }
+
+        JsonObject response = result.json;
+        if (!response.get("ok").getAsBoolean()) {
+            // 一般解析錯誤，子程序仍可繼續使用
+            throw new IOException(response.get("error").getAsString());
+        }
+        if (response.has("allocatedBytes")) {
+            // 提取實際發生在子程序，配置量計入呼叫端目前處理的文件
+            AllocationTracker.addDelegated(response.get("allocatedBytes").getAsLong());
+        }
+        DocumentInfo doc = GSON.fromJson(response.get("doc"), DocumentInfo.class);
+        if (result.contentFile != null) {
+            doc.setContentSource(ContentSource.ofFile(result.contentFile, result.contentLength, true));
+        }
+        return doc;
+    }
+
+    /**
+     * 一個回應：JSON 與寫入暫存檔的全文（沒有全文時 contentFile 為 null）
+     */
+    private static final class Response {
+        final JsonObject json;
+        final Path contentFile;
+        final int contentLength;
+
+        Response(JsonObject json, Path contentFile, int contentLength) {
+            this.json = json;
+            this.contentFile = contentFile;
+            this.contentLength = contentLength;
+        }
+    }
+
+    /**
+     * 讀取回應行與緊接在後的全文（在讀取執行緒中執行；子程序結束時回傳 null）
+     */
+    private static Response readResponse(BufferedReader in) throws IOException {
+        String line = in.readLine();
+        if (line == null) {
+            return null;
+        }
+        JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+        int length = json.has("contentLength") ? json.get("contentLength").getAsInt() : 0;
+        if (length <= 0) {
+            return new Response(json, null, 0);
+        }
+
+        Path spool = Files.createTempFile("docindex-content-", ".txt");
+        try {
+            try (Writer out = Files.newBufferedWriter(spool, StandardCharsets.UTF_8)) {
+                char[] buf = new char[8192];
+                int remaining = length;
+                while (remaining > 0) {
+                    int n = in.read(buf, 0, Math.min(buf.length, remaining));
+                    if (n < 0) {
+                        throw new EOFException("Worker exited while sending content");
+                    }
+                    out.write(buf, 0, n);
+                    remaining -= n;
+                }
+            }
+            // 呼叫端已逾時放棄這個回應
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Response abandoned");
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+        return new Response(json, spool, length);
+    }
+
+    private void start() throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectError(errorLog != null
+            ? ProcessBuilder.Redirect.appendTo(errorLog.toFile())
+            : ProcessBuilder.Redirect.DISCARD);
+        process = builder.start();
+        toWorker = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        fromWorker = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        filesInWorker = 0;
+
+        // 等待子程序載入完成，啟動時間不計入第一個檔案的時限
+        BufferedReader in = fromWorker;
+        read(in::readLine, STARTUP_TIMEOUT_MILLIS);
+        logger.debug("Started extraction worker pid {}", process.pid());
+    }
+
+    /**
+     * 在時限內讀取子程序的回應，逾時或子程序結束（回傳 null）時終止子程序
+     */
+    private <T> T read(Callable<T> readAction, long timeout) throws WorkerFailureException, InterruptedException {
+        Future<T> response = reader.submit(readAction);
+        T result;
+        try {
+            result = response.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            response.cancel(true);
+            stop();
+            throw new WorkerFailureException(WorkerFailureException.Reason.TIMEOUT,
+                "Extraction timed out after " + timeout + " ms");
+        } catch (ExecutionException e) {
+            stop();
+            throw new WorkerFailureException(WorkerFailureException.Reason.CRASHED,
+                "Worker I/O failed: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            stop();
+            throw e;
+        }
+
+        if (result == null) {
+            Integer exitCode = null;
+            try {
+                if (process.waitFor(5, TimeUnit.SECONDS)) {
+                    exitCode = process.exitValue();
+                }
+            } finally {
+                stop();
+            }
+            throw new WorkerFailureException(WorkerFailureException.Reason.CRASHED,
+                "Worker exited" + (exitCode != null ? " with code " + exitCode : ""));
+        }
+        return result;
+    }
+
+    private void stop() {
+        if (process == null) {
+            return;
+        }
+        try {
+            toWorker.close();
+        } catch (IOException e) {
+            // 子程序可能已結束
+        }
+        process.destroy();
+        try {
+            if (!process.waitFor(2, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        process = null;
+        filesInWorker = 0;
+    }
+
+    @Override
+    public void close() {
+        stop();
+        reader.shutdownNow();
+    }
+
+    /**
+     * 子程序端：從 in 逐行讀取請求，提取後將結果寫到 out（stdin 關閉時結束）
+     */
+    public static void serve(InputStream in, PrintStream out, Supplier<TikaExtractor> extractorFactory) throws IOException {
+        // stdout 保留給協定使用，其他輸出（例如解析器直接印出的訊息）改到 stderr
+        System.setOut(System.err);
+
+        TikaExtractor extractor = extractorFactory.get();
+        BufferedReader requests = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        BufferedWriter responses = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        JsonObject ready = new JsonObject();
+        ready.addProperty("ready", true);
+        writeLine(responses, ready);
+
+        String line;
+        while ((line = requests.readLine()) != null) {
+            JsonObject response = new JsonObject();
+            String content = null;
+            try {
+                String path = JsonParser.parseString(line).getAsJsonObject().get("path").getAsString();
+                AllocationTracker.takeDelegated();
+                long before = AllocationTracker.currentThreadAllocatedBytes();
+                DocumentInfo doc = extractor.extract(Paths.get(path));
+                response.addProperty("ok", true);
+                if (before >= 0) {
+                    response.addProperty("allocatedBytes",
+                        AllocationTracker.currentThreadAllocatedBytes() - before + AllocationTracker.takeDelegated());
+                }
+                // 全文在回應行之後另外送出，JSON 中不含全文
+                content = doc.getContent();
+                if (content != null && !content.isEmpty()) {
+                    doc.setContent(null);
+                    response.addProperty("contentLength", content.length());
+                } else {
+                    content = null;
+                }
+                response.add("doc", GSON.toJsonTree(doc));
+            } catch (Exception e) {
+                response = new JsonObject();
+                response.addProperty("ok", false);
+                response.addProperty("error", e.getClass().getSimpleName() + ": " + e.getMessage());
+                content = null;
+            }
+            writeLine(responses, response);
+            if (content != null) {
+                responses.write(content);
+                responses.flush();
+            }
+        }
+    }
+
+    private static void writeLine(BufferedWriter out, JsonObject json) throws IOException {
+        GSON.toJson(json, out);
+        out.newLine();
+        out.flush();
+    }
+
+    /**
+     * Instant 以 ISO-8601 字串傳遞
+     */
+    private static final class InstantAdapter extends TypeAdapter<Instant> {
+        @Override
+        public void write(JsonWriter out, Instant value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(value.toString());
+            }
+        }
+
+        @Override
+        public Instant read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return Instant.parse(in.nextString());
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.docindex.extraction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * .docindexignore 排除規則（gitignore 語法）
+ *
+ * 支援 #註解、! 反向（重新納入）、結尾 / 只比對目錄、開頭或中間含 / 的規則以所在目錄為基準，
+ * 以及 *、?、[...]、** 萬用字元。每一層目錄可放自己的 .docindexignore，
+ * 深層的規則優先於上層，同一檔案內後面的規則優先於前面。
+ *
+ * 走訪時對目錄呼叫 isIgnored(dir, true)，被排除的目錄直接整棵略過（SKIP_SUBTREE）。
+ */
+public class IgnoreRules {
+    private static final Logger logger = LoggerFactory.getLogger(IgnoreRules.class);
+
+    public static final String FILE_NAME = ".docindexignore";
+
+    // 預設排除：版本控制、相依套件與快取目錄
+    public static final List<String> DEFAULT_EXCLUDES = Collections.unmodifiableList(Arrays.asList(
+        ".git/", ".svn/", ".hg/",
+        "node_modules/", "bower_components/", ".venv/", "venv/", "__pycache__/",
+        ".gradle/", ".idea/", ".vscode/", ".cache/", ".Trash/",
+        ".DS_Store", "Thumbs.db", "~$*"
+    ));
+
+    /**
+     * 單一規則
+     */
+    private static final class Rule {
+        final Pattern pattern;
+        final String literalName;  // 不含萬用字元且未錨定時直接比對檔名
+        final boolean negate;
+        final boolean dirOnly;
+
+        Rule(Pattern pattern, String literalName, boolean negate, boolean dirOnly) {
+            this.pattern = pattern;
+            this.literalName = literalName;
+            this.negate = negate;
+            this.dirOnly = dirOnly;
+        }
+    }
+
+    private final IgnoreRules parent;
+    private final Path baseDir;
+    private final List<Rule> rules;
+    private final Path includeBase;
+    private final List<Pattern> includes;
+
+    private IgnoreRules(IgnoreRules parent, Path baseDir, List<Rule> rules, Path includeBase, List<Pattern> includes) {
+        this.parent = parent;
+        this.baseDir = baseDir;
+        this.rules = rules;
+        this.includeBase = includeBase;
+        this.includes = includes;
+    }
+
+    /**
+     * 建立根目錄的規則：預設排除 + 命令列排除 + 根目錄的 .docindexignore
+     *
+     * @param includeGlobs 非空時只索引符合任一規則的檔案（相對於根目錄）
+     */
+    public static IgnoreRules forRoot(Path root, boolean useDefaults, List<String> excludeGlobs, List<String> includeGlobs) {
+        List<Rule> rules = new ArrayList<>();
+        if (useDefaults) {
+            for (String glob : DEFAULT_EXCLUDES) {
+                addRule(rules, glob);
+            }
+        }
+        if (excludeGlobs != null) {
+            for (String glob : excludeGlobs) {
+                addRule(rules, glob);
+            }
+        }
+
+        List<Pattern> includes = new ArrayList<>();
+        if (includeGlobs != null) {
+            for (String glob : includeGlobs) {
+                String g = glob.startsWith("/") ? glob.substring(1) : glob;
+                includes.add(Pattern.compile(g.contains("/") ? toRegex(g) : "(?:.*/)?" + toRegex(g)));
+            }
+        }
+
+        Path base = Files.isDirectory(root) ? root : root.getParent();
+        if (Files.isDirectory(root)) {
+            rules.addAll(readFile(root));
+        }
+        return new IgnoreRules(null, base, rules, base, includes);
+    }
+
+    /**
+     * 取得子目錄的規則（子目錄有 .docindexignore 時疊加一層，否則沿用目前規則）
+     */
+    public IgnoreRules forDirectory(Path dir) {
+        List<Rule> fileRules = readFile(dir);
+        return fileRules.isEmpty() ? this : new IgnoreRules(this, dir, fileRules, includeBase, includes);
+    }
+
+    private static List<Rule> readFile(Path dir) {
+        Path ignoreFile = dir.resolve(FILE_NAME);
+        if (!Files.isRegularFile(ignoreFile)) {
+            return Collections.emptyList();
+        }
+        List<Rule> fileRules = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(ignoreFile, StandardCharsets.UTF_8)) {
+                addRule(fileRules, line);
+            }
+        } catch (IOException e) {
+            logger.warn("Cannot read {}: {}", ignoreFile, e.getMessage());
+            return Collections.emptyList();
+        }
+        return fileRules;
+    }
+
+    /**
+     * 檢查路徑是否被排除
+     */
+    public boolean isIgnored(Path path, boolean isDirectory) {
+        String name = path.getFileName() != null ? path.getFileName().toString() : "";
+        // 由深到淺、由後到前，第一個符合的規則決定結果
+        for (IgnoreRules level = this; level != null; level = level.parent) {
+            String relative = null;
+            for (int i = level.rules.size() - 1; i >= 0; i--) {
+                Rule rule = level.rules.get(i);
+                if (rule.dirOnly && !isDirectory) {
+                    continue;
+                }
+                boolean matched;
+                if (rule.literalName != null) {
+                    matched = rule.literalName.equals(name);
+                } else {
+                    if (relative == null) {
+                        relative = relativize(level.baseDir, path);
+                        if (relative == null) {
+                            break;
+                        }
+                    }
+                    matched = rule.pattern.matcher(relative).matches();
+                }
+                if (matched) {
+                    return !rule.negate;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 檢查檔案是否符合 include 規則（未設定 include 時一律符合）
+     */
+    public boolean isIncluded(Path file) {
+        if (includes.isEmpty()) {
+            return true;
+        }
+        String relative = relativize(includeBase, file);
+        if (relative == null) {
+            return false;
+        }
+        for (Pattern include : includes) {
+            if (include.matcher(relative).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String relativize(Path base, Path path) {
+        if (!path.startsWith(base)) {
+            return null;
+        }
+        String relative = base.relativize(path).toString();
+        return relative.replace('\\', '/');
+    }
+
+    private static void addRule(List<Rule> rules, String line) {
+        String glob = line.strip();
+        if (glob.isEmpty() || glob.startsWith("#")) {
+            return;
+        }
+
+        boolean negate = glob.startsWith("!");
+        if (negate) {
+            glob = glob.substring(1);
+        } else if (glob.startsWith("\\!") || glob.startsWith("\\#")) {
+            glob = glob.substring(1);
+        }
+
+        boolean dirOnly = glob.endsWith("/");
+        if (dirOnly) {
+            glob = glob.substring(0, glob.length() - 1);
+        }
+
+        boolean anchored = glob.startsWith("/") || glob.contains("/");
+        if (glob.startsWith("/")) {
+            glob = glob.substring(1);
+        }
+        if (glob.isEmpty()) {
+            return;
+        }
+
+        boolean literal = !anchored && glob.chars().noneMatch(c -> c == '*' || c == '?' || c == '[' || c == '\\');
+        String regex = anchored ? toRegex(glob) : "(?:.*/)?" + toRegex(glob);
+        rules.add(new Rule(Pattern.compile(regex), literal ? glob : null, negate, dirOnly));
+    }
+
+    /**
+     * gitignore 萬用字元轉正規表示式
+     */
+    static String toRegex(String glob) {
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+        while (i < glob.length()) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                boolean doubleStar = i + 1 < glob.length() && glob.charAt(i + 1) == '*';
+                if (doubleStar) {
+                    boolean atSegmentStart = i == 0 || glob.charAt(i - 1) == '/';
+                    boolean followedBySlash = i + 2 < glob.length() && glob.charAt(i + 2) == '/';
+                    if (atSegmentStart && followedBySlash) {
+                        // **/ 代表零或多層目錄
+                        sb.append("(?:.*/)?");
+                        i += 3;
+                    } else {
+                        sb.append(".*");
+                        i += 2;
+                    }
+                } else {
+                    sb.append("[^/]*");
+                    i++;
+                }
+            } else if (c == '?') {
+                sb.append("[^/]");
+                i++;
+            } else if (c == '[') {
+                int end = glob.indexOf(']', i + 1);
+                if (end == -1) {
+                    sb.append("\\[");
+                    i++;
+                } else {
+                    String set = glob.substring(i + 1, end);
+                    if (set.startsWith("!")) {
+                        set = "^" + set.substring(1);
+                    }
+                    sb.append('[').append(set.replace("\\", "\\\\")).append(']');
+                    i = end + 1;
+                }
+            } else if (c == '\\' && i + 1 < glob.length()) {
+                appendLiteral(sb, glob.charAt(i + 1));
+                i += 2;
+            } else {
+                appendLiteral(sb, c);
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendLiteral(StringBuilder sb, char c) {
+        if ("\\.[]{}()*+-?^$|".indexOf(c) >= 0) {
+            sb.append('\\');
+        }
+        sb.append(c);
+    }
+}
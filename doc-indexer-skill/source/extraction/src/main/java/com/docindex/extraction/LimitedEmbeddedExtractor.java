@@ -0,0 +1,87 @@
+package com.docindex.extraction;
+
+import org.apache.tika.extractor.ParsingEmbeddedDocumentExtractor;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.ParseContext;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * 限制內嵌文件巢狀層數與數量的 EmbeddedDocumentExtractor
+ *
+ * 每份文件建立一個，放在 ParseContext 中；超過上限的內嵌文件不解析，並記錄原因。
+ * 提取模式不處理內嵌圖片時，圖片在解析前略過（不展開到暫存檔，也不送 OCR）。
+ */
+final class LimitedEmbeddedExtractor extends ParsingEmbeddedDocumentExtractor {
+
+    private final int maxDepth;
+    private final int maxCount;
+    private final boolean skipImages;
+    private int depth;
+    private int count;
+    private boolean depthExceeded;
+    private boolean countExceeded;
+
+    /**
+     * @param maxDepth 最大巢狀層數（0 表示不限制）
+     * @param maxCount 最多解析的內嵌文件數（0 表示不限制）
+     * @param skipImages 略過內嵌圖片
+     */
+    LimitedEmbeddedExtractor(ParseContext context, int maxDepth, int maxCount, boolean skipImages) {
+        super(context);
+        this.maxDepth = maxDepth;
+        this.maxCount = maxCount;
+        this.skipImages = skipImages;
+    }
+
+    @Override
+    public boolean shouldParseEmbedded(Metadata metadata) {
+        if (maxDepth > 0 && depth >= maxDepth) {
+            depthExceeded = true;
+            return false;
+        }
+        if (maxCount > 0 && count >= maxCount) {
+            countExceeded = true;
+            return false;
+        }
+        if (skipImages && isImage(metadata)) {
+            return false;
+        }
+        if (!super.shouldParseEmbedded(metadata)) {
+            return false;
+        }
+        count++;
+        return true;
+    }
+
+    @Override
+    public void parseEmbedded(InputStream stream, ContentHandler handler, Metadata metadata, boolean outputHtml)
+            throws SAXException, IOException {
+        depth++;
+        try {
+            super.parseEmbedded(stream, handler, metadata, outputHtml);
+        } finally {
+            depth--;
+        }
+    }
+
+    /**
+     * 依容器提供的類型或檔名判斷是否為圖片（PDF 內嵌圖片、Office 文件中的圖片）
+     */
+    private static boolean isImage(Metadata metadata) {
+        String contentType = metadata.get(Metadata.CONTENT_TYPE);
+        if (contentType != null && contentType.startsWith("image/")) {
+            return true;
+        }
+        String name = metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY);
+        return name != null && !name.isEmpty() && TikaExtractor.isOcrBound(Path.of(name));
+    }
+
+    boolean isDepthExceeded() { return depthExceeded; }
+    boolean isCountExceeded() { return countExceeded; }
+}
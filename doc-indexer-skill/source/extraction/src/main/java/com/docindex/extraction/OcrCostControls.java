@@ -0,0 +1,108 @@
+package com.docindex.extraction;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OCR 成本控制設定與跨文件共用的狀態
+ *
+ * 同一個實例應由所有提取執行緒共用：辨識結果以影像內容雜湊快取，
+ * 每份文件都出現的 logo、信頭圖片在整批索引中只會辨識一次。
+ */
+public class OcrCostControls {
+
+    public static final int DEFAULT_MIN_SIZE = 48;
+    public static final int DEFAULT_MAX_SIDE = 4096;
+    public static final int DEFAULT_CACHE_ENTRIES = 20_000;
+
+    // 灰階 16 階直方圖的熵（bits）低於此值視為空白影像（純色、掃描的空白頁）；
+    // 只有一行字的頁面約 0.004，門檻取保守值以免漏掉簽名頁
+    public static final double DEFAULT_MIN_ENTROPY = 0.001;
+
+    private static final OcrCostControls DEFAULTS = new OcrCostControls(
+        DEFAULT_MIN_SIZE, DEFAULT_MAX_SIDE, DEFAULT_MIN_ENTROPY, DEFAULT_CACHE_ENTRIES);
+
+    private final int minSize;
+    private final int maxSide;
+    private final double minEntropy;
+    private final Map<String, String> cache;
+
+    private final AtomicLong recognized = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong skippedSmall = new AtomicLong();
+    private final AtomicLong skippedBlank = new AtomicLong();
+    private final AtomicLong downscaled = new AtomicLong();
+    private final AtomicLong ocrNanos = new AtomicLong();
+
+    /**
+     * @param minSize      寬或高小於此像素數的影像不辨識（圖示、小 logo）
+     * @param maxSide      長邊超過此像素數時先縮小再辨識（0 表示不縮小）
+     * @param minEntropy   灰階熵低於此值的影像不辨識
+     * @param cacheEntries 辨識結果快取的項目數上限（0 表示不快取）
+     */
+    public OcrCostControls(int minSize, int maxSide, double minEntropy, int cacheEntries) {
+        this.minSize = minSize;
+        this.maxSide = maxSide;
+        this.minEntropy = minEntropy;
+        this.cache = cacheEntries > 0 ? new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheEntries;
+            }
+        } : null;
+    }
+
+    /**
+     * 程序內共用的預設設定
+     */
+    public static OcrCostControls defaults() {
+        return DEFAULTS;
+    }
+
+    public int getMinSize() { return minSize; }
+    public int getMaxSide() { return maxSide; }
+    public double getMinEntropy() { return minEntropy; }
+
+    String cached(String imageHash) {
+        if (cache == null) {
+            return null;
+        }
+        synchronized (cache) {
+            return cache.get(imageHash);
+        }
+    }
+
+    void cache(String imageHash, String text) {
+        if (cache == null) {
+            return;
+        }
+        synchronized (cache) {
+            cache.put(imageHash, text);
+        }
+    }
+
+    void recordRecognized(long nanos) {
+        recognized.incrementAndGet();
+        ocrNanos.addAndGet(nanos);
+    }
+
+    void recordCacheHit() { cacheHits.incrementAndGet(); }
+    void recordSkippedSmall() { skippedSmall.incrementAndGet(); }
+    void recordSkippedBlank() { skippedBlank.incrementAndGet(); }
+    void recordDownscaled() { downscaled.incrementAndGet(); }
+
+    /** 實際送進 Tesseract 的影像數 */
+    public long getRecognized() { return recognized.get(); }
+    public long getCacheHits() { return cacheHits.get(); }
+    public long getSkippedSmall() { return skippedSmall.get(); }
+    public long getSkippedBlank() { return skippedBlank.get(); }
+    public long getDownscaled() { return downscaled.get(); }
+    /** Tesseract 累計耗時 */
+    public long getOcrMillis() { return ocrNanos.get() / 1_000_000; }
+
+    /** 經過成本控制判斷的影像總數 */
+    public long getImages() {
+        return recognized.get() + cacheHits.get() + skippedSmall.get() + skippedBlank.get();
+    }
+}
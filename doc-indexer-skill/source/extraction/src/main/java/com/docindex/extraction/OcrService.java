@@ -0,0 +1,82 @@
+package com.docindex.extraction;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.ocr.TesseractOCRConfig;
+import org.apache.tika.sax.BodyContentHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 以 Tesseract 辨識單張影像的文字
+ *
+ * 可由多個執行緒共用：每次辨識都會啟動獨立的 tesseract 程序，
+ * 設定只在建構時讀取。辨識前會套用 OcrCostControls（快取、空白頁略過、縮小）。
+ */
+public class OcrService {
+    private static final Logger logger = LoggerFactory.getLogger(OcrService.class);
+
+    public static final String DEFAULT_LANGUAGE = "chi_tra+chi_sim+eng";
+    public static final int DEFAULT_TIMEOUT_SECONDS = 120;
+
+    private final CostAwareOcrParser parser;
+    private final TesseractOCRConfig config;
+    private final boolean available;
+
+    public OcrService() {
+        this(DEFAULT_LANGUAGE, DEFAULT_TIMEOUT_SECONDS, OcrCostControls.defaults());
+    }
+
+    public OcrService(OcrCostControls controls) {
+        this(DEFAULT_LANGUAGE, DEFAULT_TIMEOUT_SECONDS, controls);
+    }
+
+    public OcrService(String language, int timeoutSeconds, OcrCostControls controls) {
+        this.parser = new CostAwareOcrParser(controls);
+        this.config = new TesseractOCRConfig();
+        config.setLanguage(language);
+        config.setTimeoutSeconds(timeoutSeconds);
+
+        this.available = !parser.getSupportedTypes(new ParseContext()).isEmpty();
+        if (!available) {
+            logger.warn("Tesseract not found, OCR is disabled");
+        }
+    }
+
+    /**
+     * 系統是否安裝了 tesseract
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * 辨識影像中的文字（未安裝 tesseract 時回傳空字串）
+     */
+    public String recognize(BufferedImage image) throws Exception {
+        if (!available) {
+            return "";
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, "png", png)) {
+            throw new IOException("No PNG writer available");
+        }
+
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, "image/png");
+        ParseContext context = new ParseContext();
+        context.set(TesseractOCRConfig.class, config);
+        BodyContentHandler handler = new BodyContentHandler(-1);
+        try (InputStream stream = new ByteArrayInputStream(png.toByteArray())) {
+            parser.parse(stream, handler, metadata, context);
+        }
+        return handler.toString();
+    }
+}
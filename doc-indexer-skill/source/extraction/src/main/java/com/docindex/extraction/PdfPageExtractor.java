@@ -0,0 +1,244 @@
+package com.docindex.extraction;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * PDF 分頁文字提取
+ *
+ * 單次走過所有頁面，文字直接寫入同一個緩衝區，頁面邊界由 PDFTextStripper 的
+ * startPage 回呼記錄成位移，不另外保存每一頁的複本。
+ *
+ * PDDocument 不是執行緒安全的，平行模式下每個頁面範圍各自開啟一個 PDDocument
+ * 並使用自己的 PDFTextStripper，完成後依頁碼順序組回。這些範圍的 PDDocument 一律以暫存檔
+ * 保存資料流，同一個檔案不會在堆積中同時存在多份。
+ *
+ * 設定字元上限時，寫入緩衝區的過程中達到上限就停止走訪頁面，之後的頁面位移都指向全文結尾。
+ * 平行模式下預算依頁碼順序分配：每個範圍最多寫入上限扣掉前面已完成範圍的字數，合併時依序
+ * 接上並在上限處截斷，保留的一定是完整的前 maxChars 個字元，與各範圍完成的先後無關。
+ */
+final class PdfPageExtractor {
+
+    // 每個執行緒分到的範圍數：頁面成本不均時，多切幾段讓先完成的執行緒接手剩下的範圍
+    private static final int RANGES_PER_THREAD = 2;
+
+    /**
+     * 提取結果：全文與每一頁在全文中的起始位移
+     */
+    static final class PageText {
+        final String text;
+        final int[] pageOffsets;
+        // 達到字元上限，之後的頁面沒有提取
+        boolean truncated;
+        // 分頁執行緒提取此範圍時配置的位元組數
+        long allocatedBytes;
+
+        PageText(String text, int[] pageOffsets) {
+            this.text = text;
+            this.pageOffsets = pageOffsets;
+        }
+    }
+
+    /**
+     * 平行提取時依頁碼順序分配的字元預算
+     *
+     * 第 range 個範圍最多寫入 maxChars 扣掉頁碼在它之前、已完成範圍的字數；這些文字在合併後
+     * 一定排在它前面，多寫的部分只會在合併時被截掉。還沒完成的範圍不扣預算，因此每個範圍
+     * 都至少能寫到合併後需要的長度。
+     */
+    static final class SharedBudget {
+        private final int maxChars;
+        private final AtomicIntegerArray completed;  // 各範圍完成時的字數，-1 表示尚未完成
+
+        /**
+         * @param maxChars 字元上限（-1 表示不限制）
+         */
+        SharedBudget(int maxChars, int ranges) {
+            this.maxChars = maxChars;
+            this.completed = new AtomicIntegerArray(ranges);
+            for (int i = 0; i < ranges; i++) {
+                completed.set(i, -1);
+            }
+        }
+
+        /**
+         * 第 range 個範圍目前可寫入的字元總數（-1 表示不限制）
+         */
+        int limit(int range) {
+            if (maxChars < 0) {
+                return -1;
+            }
+            long before = 0;
+            for (int i = 0; i < range; i++) {
+                before += Math.max(0, completed.get(i));
+            }
+            return (int) Math.max(0, maxChars - before);
+        }
+
+        /**
+         * 記錄第 range 個範圍已完成，共寫入 length 個字元
+         */
+        void completed(int range, int length) {
+            completed.set(range, length);
+        }
+    }
+
+    private PdfPageExtractor() {
+    }
+
+    /**
+     * 開啟 PDF：超過門檻的檔案改用暫存檔保存解析中的資料流，避免整份文件留在堆積中
+     *
+     * @param tempFileThreshold 位元組數，0 表示一律使用記憶體
+     */
+    static PDDocument load(File file, long tempFileThreshold) throws IOException {
+        MemoryUsageSetting memory = tempFileThreshold > 0 && file.length() > tempFileThreshold
+            ? MemoryUsageSetting.setupTempFileOnly()
+            : MemoryUsageSetting.setupMainMemoryOnly();
+        return PDDocument.load(file, memory);
+    }
+
+    /**
+     * 單次提取 startPage 到 endPage（含）的文字
+     *
+     * @param maxChars 字元上限（-1 表示不限制）
+     */
+    static PageText extractRange(PDDocument document, int startPage, int endPage, int maxChars) throws IOException {
+        StringBuilder buffer = new StringBuilder();
+        return extractRange(document, startPage, endPage, buffer, new StringBuilderWriter(buffer, maxChars));
+    }
+
+    /**
+     * 同上，文字經由 writer 寫入 buffer（writer 丟出 LimitReachedException 表示達到上限）
+     */
+    private static PageText extractRange(PDDocument document, int startPage, int endPage,
+                                         StringBuilder buffer, StringBuilderWriter writer) throws IOException {
+        int[] offsets = new int[endPage - startPage + 1];
+        int[] started = {0};
+
+        PDFTextStripper stripper = new PDFTextStripper() {
+            @Override
+            protected void startPage(PDPage page) throws IOException {
+                // 寫入前先清空 stripper 自己的輸出緩衝，位移才會對應到目前的頁首
+                output.flush();
+                offsets[started[0]++] = buffer.length();
+                super.startPage(page);
+            }
+        };
+        stripper.setStartPage(startPage);
+        stripper.setEndPage(endPage);
+        boolean truncated = false;
+        try {
+            stripper.writeText(document, writer);
+        } catch (StringBuilderWriter.LimitReachedException e) {
+            truncated = true;
+            // 沒有走到的頁面視為空白頁
+            Arrays.fill(offsets, started[0], offsets.length, buffer.length());
+        }
+
+        PageText pages = new PageText(buffer.toString(), offsets);
+        pages.truncated = truncated;
+        return pages;
+    }
+
+    /**
+     * 將頁面切成多個範圍平行提取，依頁碼順序合併
+     *
+     * @param parallelism pool 的執行緒數，用來決定切成幾段
+     */
+    static PageText extractParallel(File file, int totalPages, ExecutorService pool, int parallelism, int maxChars)
+            throws IOException, InterruptedException {
+        int ranges = Math.max(1, Math.min(totalPages, parallelism * RANGES_PER_THREAD));
+        int rangeSize = (totalPages + ranges - 1) / ranges;
+        SharedBudget budget = new SharedBudget(maxChars, (totalPages + rangeSize - 1) / rangeSize);
+
+        List<Future<PageText>> futures = new ArrayList<>();
+        for (int start = 1; start <= totalPages; start += rangeSize) {
+            int range = futures.size();
+            int startPage = start;
+            int endPage = Math.min(totalPages, start + rangeSize - 1);
+            futures.add(pool.submit(() -> {
+                long before = AllocationTracker.currentThreadAllocatedBytes();
+                PageText part;
+                try (PDDocument document = PDDocument.load(file, MemoryUsageSetting.setupTempFileOnly())) {
+                    StringBuilder buffer = new StringBuilder();
+                    StringBuilderWriter writer = maxChars < 0
+                        ? new StringBuilderWriter(buffer)
+                        : new StringBuilderWriter(buffer,
+                            len -> Math.min(len, Math.max(0, budget.limit(range) - buffer.length())));
+                    part = extractRange(document, startPage, endPage, buffer, writer);
+                }
+                budget.completed(range, part.text.length());
+                if (before >= 0) {
+                    part.allocatedBytes = AllocationTracker.currentThreadAllocatedBytes() - before;
+                }
+                return part;
+            }));
+        }
+
+        List<PageText> parts = new ArrayList<>(futures.size());
+        try {
+            for (Future<PageText> future : futures) {
+                parts.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            cancelAll(futures);
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } catch (InterruptedException e) {
+            cancelAll(futures);
+            throw e;
+        }
+
+        int totalLength = 0;
+        for (PageText part : parts) {
+            totalLength += part.text.length();
+        }
+        StringBuilder buffer = new StringBuilder(maxChars >= 0 ? Math.min(totalLength, maxChars) : totalLength);
+        int[] offsets = new int[totalPages];
+        int page = 0;
+        boolean truncated = false;
+        for (int i = 0; i < parts.size(); i++) {
+            PageText part = parts.get(i);
+            if (truncated) {
+                // 前面的範圍已截斷：只保留連續的前段，之後的頁面位移都指向全文結尾
+                Arrays.fill(offsets, page, page + part.pageOffsets.length, buffer.length());
+                page += part.pageOffsets.length;
+            } else {
+                // 依頁碼順序接上，超過上限的部分在這裡截掉
+                int base = buffer.length();
+                int room = maxChars < 0 ? part.text.length() : Math.min(part.text.length(), maxChars - base);
+                buffer.append(part.text, 0, room);
+                for (int offset : part.pageOffsets) {
+                    offsets[page++] = base + Math.min(offset, room);
+                }
+                truncated = part.truncated || room < part.text.length();
+            }
+            // 分頁執行緒的配置量計入呼叫端目前處理的文件
+            AllocationTracker.addDelegated(part.allocatedBytes);
+            // 合併後釋放片段
+            parts.set(i, null);
+        }
+        PageText merged = new PageText(buffer.toString(), offsets);
+        merged.truncated = truncated;
+        return merged;
+    }
+
+    private static void cancelAll(List<Future<PageText>> futures) {
+        for (Future<PageText> future : futures) {
+            future.cancel(true);
+        }
+    }
+}
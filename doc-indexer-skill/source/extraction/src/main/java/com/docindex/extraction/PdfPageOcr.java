@@ -0,0 +1,210 @@
+package com.docindex.extraction;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 掃描頁 OCR
+ *
+ * 文字層幾乎沒有內容的頁面視為掃描頁，逐頁渲染成影像後交給 OCR 執行緒池平行辨識，
+ * 結果放回原本的頁面位置。已有文字的頁面不會被渲染。
+ *
+ * PDFRenderer 與 PDDocument 一樣不是執行緒安全的，渲染在呼叫端執行緒依序進行，
+ * 同時等待辨識的影像數量有上限，避免大量未處理的點陣圖佔用堆積。
+ *
+ * 設定字元上限時，OCR 文字同樣計入上限：已完成的頁面讓全文達到上限後不再送出後面的頁面，
+ * 合併時在上限處截斷並標記 truncated。
+ */
+final class PdfPageOcr {
+    private static final Logger logger = LoggerFactory.getLogger(PdfPageOcr.class);
+
+    // 非空白字元少於此數的頁面視為沒有文字層（允許頁碼、浮水印等零星文字）
+    static final int MIN_TEXT_CHARS = 10;
+
+    private PdfPageOcr() {
+    }
+
+    /**
+     * 結果：合併後的頁面文字與實際 OCR 的頁數
+     */
+    static final class Result {
+        final PdfPageExtractor.PageText pages;
+        final int ocrPages;
+
+        Result(PdfPageExtractor.PageText pages, int ocrPages) {
+            this.pages = pages;
+            this.ocrPages = ocrPages;
+        }
+    }
+
+    /**
+     * 對沒有文字層的頁面執行 OCR
+     *
+     * @param parallelism pool 的執行緒數，決定同時等待辨識的影像數量
+     * @param maxChars    合併後全文的字元上限（-1 表示不限制）
+     */
+    static Result ocrBlankPages(PDDocument document, PdfPageExtractor.PageText pages, OcrService ocr,
+                                ExecutorService pool, int parallelism, float dpi, int maxChars)
+            throws InterruptedException {
+        List<Integer> blankPages = findBlankPages(pages);
+        if (blankPages.isEmpty()) {
+            return new Result(pages, 0);
+        }
+
+        PDFRenderer renderer = new PDFRenderer(document);
+        Semaphore inFlight = new Semaphore(parallelism + 1);
+        List<Future<String>> futures = new ArrayList<>();
+        String[] ocrTexts = new String[pages.pageOffsets.length];
+        boolean[] counted = new boolean[blankPages.size()];
+        long grown = 0;  // 已完成的頁面 OCR 後比原本多出的字元數
+        try {
+            for (int k = 0; k < blankPages.size(); k++) {
+                int page = blankPages.get(k);
+                if (maxChars >= 0) {
+                    for (int i = 0; i < futures.size(); i++) {
+                        Future<String> done = futures.get(i);
+                        if (!counted[i] && done != null && done.isDone()) {
+                            counted[i] = true;
+                            grown += growth(done, pages, blankPages.get(i));
+                        }
+                    }
+                    // 這一頁之前的全文已達上限，之後的頁面合併時會被截掉，不需要辨識
+                    if (pages.pageOffsets[page] + grown >= maxChars) {
+                        logger.debug("Character limit reached before page {}, skipping OCR of {} pages",
+                            page + 1, blankPages.size() - k);
+                        break;
+                    }
+                }
+                inFlight.acquire();
+                BufferedImage image;
+                try {
+                    image = renderer.renderImageWithDPI(page, dpi, ImageType.GRAY);
+                } catch (Exception e) {
+                    inFlight.release();
+                    futures.add(null);
+                    logger.debug("Failed to render page {} for OCR", page + 1, e);
+                    continue;
+                }
+                futures.add(pool.submit(() -> {
+                    try {
+                        return ocr.recognize(image);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                Future<String> future = futures.get(i);
+                if (future == null) {
+                    continue;
+                }
+                try {
+                    ocrTexts[blankPages.get(i)] = future.get();
+                } catch (ExecutionException e) {
+                    // 單頁辨識失敗時保留原本的（空白）內容
+                    logger.debug("OCR failed for page {}", blankPages.get(i) + 1, e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Future<String> future : futures) {
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+            throw e;
+        }
+
+        return merge(pages, ocrTexts, maxChars);
+    }
+
+    /**
+     * 已完成的頁面以 OCR 結果取代後全文增加的字元數（失敗或空白時保留原本的內容，為 0）
+     */
+    private static long growth(Future<String> future, PdfPageExtractor.PageText pages, int page) {
+        String text;
+        try {
+            text = future.get();
+        } catch (ExecutionException | InterruptedException | RuntimeException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            return 0;
+        }
+        if (text == null || text.isBlank()) {
+            return 0;
+        }
+        int end = page + 1 < pages.pageOffsets.length ? pages.pageOffsets[page + 1] : pages.text.length();
+        return text.trim().length() + 1 - (end - pages.pageOffsets[page]);
+    }
+
+    private static List<Integer> findBlankPages(PdfPageExtractor.PageText pages) {
+        List<Integer> blank = new ArrayList<>();
+        for (int i = 0; i < pages.pageOffsets.length; i++) {
+            int end = i + 1 < pages.pageOffsets.length ? pages.pageOffsets[i + 1] : pages.text.length();
+            int chars = 0;
+            for (int p = pages.pageOffsets[i]; p < end && chars < MIN_TEXT_CHARS; p++) {
+                if (!Character.isWhitespace(pages.text.charAt(p))) {
+                    chars++;
+                }
+            }
+            if (chars < MIN_TEXT_CHARS) {
+                blank.add(i);
+            }
+        }
+        return blank;
+    }
+
+    /**
+     * 以 OCR 結果取代對應頁面，重新計算位移；超過 maxChars 的部分截掉，之後的頁面位移指向全文結尾
+     */
+    private static Result merge(PdfPageExtractor.PageText pages, String[] ocrTexts, int maxChars) {
+        boolean recognized = false;
+        for (String ocrText : ocrTexts) {
+            if (ocrText != null && !ocrText.isBlank()) {
+                recognized = true;
+                break;
+            }
+        }
+        if (!recognized) {
+            return new Result(pages, 0);
+        }
+
+        int ocrPages = 0;
+        boolean truncated = false;
+        StringBuilder buffer = new StringBuilder(pages.text.length());
+        int[] offsets = new int[pages.pageOffsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = buffer.length();
+            if (truncated) {
+                continue;
+            }
+            String ocrText = ocrTexts[i];
+            CharSequence pageText;
+            if (ocrText != null && !ocrText.isBlank()) {
+                pageText = ocrText.trim() + "\n";
+                ocrPages++;
+            } else {
+                int end = i + 1 < offsets.length ? pages.pageOffsets[i + 1] : pages.text.length();
+                pageText = pages.text.subSequence(pages.pageOffsets[i], end);
+            }
+            int room = maxChars < 0 ? pageText.length() : Math.min(pageText.length(), maxChars - buffer.length());
+            buffer.append(pageText, 0, room);
+            truncated = room < pageText.length();
+        }
+        PdfPageExtractor.PageText merged = new PdfPageExtractor.PageText(buffer.toString(), offsets);
+        merged.truncated = truncated;
+        return new Result(merged, ocrPages);
+    }
+}
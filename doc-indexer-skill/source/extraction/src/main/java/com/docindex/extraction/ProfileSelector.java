@@ -0,0 +1,132 @@
+package com.docindex.extraction;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 依路徑選擇提取模式
+ *
+ * 規則使用 .docindexignore 的萬用字元語法，比對相對於索引根目錄的路徑：
+ * 不含 / 的規則比對任一層的檔名或目錄名，含 / 的規則以根目錄為基準；
+ * 符合目錄的規則套用到目錄下所有檔案。多條規則符合時以後面的為準。
+ *
+ * 非預設模式的檔案在檔案狀態目錄中記錄不同的提取器版本，
+ * 改變某個目錄的模式後，該目錄的檔案會重新提取。
+ */
+public class ProfileSelector {
+
+    /**
+     * 單一規則
+     */
+    private static final class Rule {
+        final String glob;
+        final Pattern pattern;
+        final ExtractionProfile profile;
+
+        Rule(String glob, Pattern pattern, ExtractionProfile profile) {
+            this.glob = glob;
+            this.pattern = pattern;
+            this.profile = profile;
+        }
+    }
+
+    private final Path root;
+    private final ExtractionProfile defaultProfile;
+    private final List<Rule> rules;
+
+    private ProfileSelector(Path root, ExtractionProfile defaultProfile, List<Rule> rules) {
+        this.root = root;
+        this.defaultProfile = defaultProfile;
+        this.rules = rules;
+    }
+
+    /**
+     * 所有檔案使用同一個模式
+     */
+    public static ProfileSelector uniform(ExtractionProfile profile) {
+        return new ProfileSelector(null, profile, Collections.emptyList());
+    }
+
+    /**
+     * @param root           規則的基準目錄
+     * @param defaultProfile 沒有規則符合時使用的模式
+     * @param profileFor     萬用字元 → 模式名稱（依序套用）
+     */
+    public static ProfileSelector of(Path root, String defaultProfile, Map<String, String> profileFor) {
+        List<Rule> rules = new ArrayList<>();
+        if (profileFor != null) {
+            for (Map.Entry<String, String> entry : profileFor.entrySet()) {
+                String glob = entry.getKey().strip();
+                String g = glob.startsWith("/") ? glob.substring(1) : glob;
+                if (g.endsWith("/")) {
+                    g = g.substring(0, g.length() - 1);
+                }
+                if (g.isEmpty()) {
+                    throw new IllegalArgumentException("Empty glob in profile rule: " + entry.getKey());
+                }
+                // 符合目錄時也符合目錄下的所有檔案
+                String regex = (glob.contains("/") ? "" : "(?:.*/)?") + IgnoreRules.toRegex(g) + "(?:/.*)?";
+                rules.add(new Rule(glob, Pattern.compile(regex), ExtractionProfile.fromKey(entry.getValue().strip())));
+            }
+        }
+        Path base = root.toAbsolutePath();
+        if (!Files.isDirectory(base) && base.getParent() != null) {
+            base = base.getParent();
+        }
+        return new ProfileSelector(base, ExtractionProfile.fromKey(defaultProfile), rules);
+    }
+
+    /**
+     * 取得檔案使用的提取模式
+     */
+    public ExtractionProfile profileFor(Path file) {
+        if (rules.isEmpty()) {
+            return defaultProfile;
+        }
+        String relative = relativize(file);
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            Rule rule = rules.get(i);
+            if (rule.pattern.matcher(relative).matches()) {
+                return rule.profile;
+            }
+        }
+        return defaultProfile;
+    }
+
+    /**
+     * 檔案狀態目錄與提取快取使用的提取器版本（預設模式沿用 EXTRACTOR_VERSION，既有索引不需重建）
+     */
+    public String catalogVersion(Path file) {
+        ExtractionProfile profile = profileFor(file);
+        return profile == ExtractionProfile.DEFAULT
+            ? TikaExtractor.EXTRACTOR_VERSION
+            : TikaExtractor.EXTRACTOR_VERSION + "-" + profile.getKey();
+    }
+
+    public ExtractionProfile getDefaultProfile() {
+        return defaultProfile;
+    }
+
+    /**
+     * 依序列出的規則（萬用字元 → 模式名稱），用於傳給提取子程序
+     */
+    public Map<String, String> getRules() {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (Rule rule : rules) {
+            result.put(rule.glob, rule.profile.getKey());
+        }
+        return result;
+    }
+
+    private String relativize(Path file) {
+        Path absolute = file.toAbsolutePath();
+        Path relative = root != null && absolute.startsWith(root) ? root.relativize(absolute) : absolute.getFileName();
+        return relative == null ? "" : relative.toString().replace('\\', '/');
+    }
+}
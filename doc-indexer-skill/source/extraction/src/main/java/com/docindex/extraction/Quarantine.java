@@ -0,0 +1,200 @@
+package com.docindex.extraction;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 隔離清單
+ *
+ * 記錄提取逾時或讓子程序異常結束的檔案，之後的索引直接略過，避免每次都卡在同一個檔案。
+ * 檔案大小或修改時間改變時視為新檔案，會重新嘗試。
+ */
+public class Quarantine {
+    private static final Logger logger = LoggerFactory.getLogger(Quarantine.class);
+
+    public static final String FILE_NAME = "quarantine.json";
+
+    /**
+     * 單一隔離檔案
+     */
+    public static class Entry {
+        private final long size;
+        private final long lastModified;
+        private final String reason;
+        private final String message;
+        private final Instant quarantinedAt;
+
+        public Entry(long size, long lastModified, String reason, String message, Instant quarantinedAt) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.reason = reason;
+            this.message = message;
+            this.quarantinedAt = quarantinedAt;
+        }
+
+        public long getSize() { return size; }
+        public long getLastModified() { return lastModified; }
+        public String getReason() { return reason; }
+        public String getMessage() { return message; }
+        public Instant getQuarantinedAt() { return quarantinedAt; }
+    }
+
+    private final Path quarantineFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    private Quarantine(Path quarantineFile) {
+        this.quarantineFile = quarantineFile;
+    }
+
+    /**
+     * 載入索引目錄中的隔離清單（不存在時回傳空清單）
+     */
+    public static Quarantine load(Path indexPath) throws IOException {
+        Quarantine quarantine = new Quarantine(indexPath.resolve(FILE_NAME));
+        if (Files.exists(quarantine.quarantineFile)) {
+            quarantine.read();
+        }
+        return quarantine;
+    }
+
+    /**
+     * 刪除索引目錄中的隔離清單
+     */
+    public static void delete(Path indexPath) throws IOException {
+        Files.deleteIfExists(indexPath.resolve(FILE_NAME));
+    }
+
+    /**
+     * 檔案已被隔離且自隔離後未變更
+     */
+    public boolean isQuarantined(String filePath, BasicFileAttributes attrs) {
+        Entry entry = entries.get(filePath);
+        return entry != null
+            && entry.size == attrs.size()
+            && entry.lastModified == attrs.lastModifiedTime().toMillis();
+    }
+
+    /**
+     * 將檔案列入隔離清單
+     */
+    public void add(Path file, String reason, String message) {
+        long size = -1;
+        long lastModified = -1;
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            size = attrs.size();
+            lastModified = attrs.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            // 檔案已不存在時仍記錄，之後不會再被走訪到
+        }
+        entries.put(file.toAbsolutePath().toString(), new Entry(size, lastModified, reason, message, Instant.now()));
+        dirty = true;
+        logger.warn("Quarantined {} ({}): {}", file, reason, message);
+    }
+
+    public void remove(String filePath) {
+        if (entries.remove(filePath) != null) {
+            dirty = true;
+        }
+    }
+
+    public Map<String, Entry> getEntries() {
+        return new HashMap<>(entries);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 有變更時寫回磁碟（先寫暫存檔再原子搬移）
+     */
+    public synchronized void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        Path tmpFile = quarantineFile.resolveSibling(FILE_NAME + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8);
+             JsonWriter writer = new JsonWriter(out)) {
+            writer.setIndent("  ");
+            writer.beginArray();
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                Entry entry = e.getValue();
+                writer.beginObject();
+                writer.name("path").value(e.getKey());
+                writer.name("size").value(entry.size);
+                writer.name("mtime").value(entry.lastModified);
+                writer.name("reason").value(entry.reason);
+                writer.name("message").value(entry.message);
+                writer.name("quarantinedAt").value(entry.quarantinedAt != null ? entry.quarantinedAt.toString() : null);
+                writer.endObject();
+            }
+            writer.endArray();
+        }
+        Files.move(tmpFile, quarantineFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void read() {
+        try (BufferedReader in = Files.newBufferedReader(quarantineFile, StandardCharsets.UTF_8);
+             JsonReader reader = new JsonReader(in)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                readEntry(reader);
+            }
+            reader.endArray();
+        } catch (RuntimeException | IOException e) {
+            logger.warn("Ignoring unreadable quarantine list {}: {}", quarantineFile, e.getMessage());
+            entries.clear();
+        }
+    }
+
+    private void readEntry(JsonReader reader) throws IOException {
+        String path = null;
+        long size = -1;
+        long mtime = -1;
+        String reason = null;
+        String message = null;
+        Instant quarantinedAt = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "path": path = reader.nextString(); break;
+                case "size": size = reader.nextLong(); break;
+                case "mtime": mtime = reader.nextLong(); break;
+                case "reason": reason = reader.nextString(); break;
+                case "message": message = reader.nextString(); break;
+                case "quarantinedAt": quarantinedAt = Instant.parse(reader.nextString()); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (path != null) {
+            entries.put(path, new Entry(size, mtime, reason, message, quarantinedAt));
+        }
+    }
+}
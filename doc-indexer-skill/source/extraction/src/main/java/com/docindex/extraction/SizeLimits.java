@@ -0,0 +1,93 @@
+package com.docindex.extraction;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 依檔案類型設定的大小上限
+ *
+ * 可用副檔名（pdf=100）或類別（image=5）指定，未指定的類型使用預設上限。
+ * 副檔名設定優先於類別設定。
+ */
+public class SizeLimits {
+
+    // 類別 → 副檔名
+    private static final Map<String, List<String>> CATEGORIES = new HashMap<>();
+    static {
+        CATEGORIES.put("office", Arrays.asList(
+            "doc", "docx", "xls", "xlsx", "ppt", "pptx", "odt", "ods", "odp", "rtf"));
+        CATEGORIES.put("text", Arrays.asList(
+            "txt", "md", "markdown", "json", "xml", "yaml", "yml", "html", "htm", "csv", "tsv",
+            "log", "ini", "conf", "cfg", "properties"));
+        CATEGORIES.put("code", Arrays.asList(
+            "java", "py", "js", "ts", "c", "cpp", "h", "hpp", "cs", "go", "rs", "rb", "php", "swift", "kt",
+            "sql", "sh", "bash", "zsh", "ps1"));
+        CATEGORIES.put("archive", Arrays.asList("zip", "tar", "gz", "7z", "rar"));
+        CATEGORIES.put("image", Arrays.asList("png", "jpg", "jpeg", "gif", "bmp", "tiff", "tif", "webp"));
+    }
+
+    private final long defaultMaxBytes;
+    private final Map<String, Long> maxBytesByExtension;
+
+    private SizeLimits(long defaultMaxBytes, Map<String, Long> maxBytesByExtension) {
+        this.defaultMaxBytes = defaultMaxBytes;
+        this.maxBytesByExtension = maxBytesByExtension;
+    }
+
+    /**
+     * 所有類型使用同一個上限
+     */
+    public static SizeLimits uniform(long maxBytes) {
+        return new SizeLimits(maxBytes, Collections.emptyMap());
+    }
+
+    /**
+     * @param limitsMB 副檔名或類別 → 上限（MB）
+     */
+    public static SizeLimits of(long defaultMaxBytes, Map<String, Integer> limitsMB) {
+        Map<String, Long> byExtension = new HashMap<>();
+        if (limitsMB != null) {
+            // 先套用類別，再以副檔名覆蓋
+            for (Map.Entry<String, Integer> entry : limitsMB.entrySet()) {
+                List<String> extensions = CATEGORIES.get(entry.getKey().toLowerCase(Locale.ROOT));
+                if (extensions != null) {
+                    for (String ext : extensions) {
+                        byExtension.put(ext, entry.getValue() * 1024L * 1024L);
+                    }
+                }
+            }
+            for (Map.Entry<String, Integer> entry : limitsMB.entrySet()) {
+                String key = entry.getKey().toLowerCase(Locale.ROOT);
+                if (!CATEGORIES.containsKey(key)) {
+                    byExtension.put(key.startsWith(".") ? key.substring(1) : key, entry.getValue() * 1024L * 1024L);
+                }
+            }
+        }
+        return new SizeLimits(defaultMaxBytes, byExtension);
+    }
+
+    /**
+     * 取得檔案適用的大小上限（位元組）
+     */
+    public long maxSizeFor(Path file) {
+        if (maxBytesByExtension.isEmpty()) {
+            return defaultMaxBytes;
+        }
+        String fileName = file.getFileName().toString();
+        int lastDot = fileName.lastIndexOf('.');
+        if (lastDot == -1) {
+            return defaultMaxBytes;
+        }
+        Long max = maxBytesByExtension.get(fileName.substring(lastDot + 1).toLowerCase(Locale.ROOT));
+        return max != null ? max : defaultMaxBytes;
+    }
+
+    public long getDefaultMaxBytes() {
+        return defaultMaxBytes;
+    }
+}
@@ -0,0 +1,91 @@
+package com.docindex.extraction;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 直接寫入 StringBuilder 的 Writer（StringWriter 內部使用同步的 StringBuffer）
+ *
+ * 提取器把文字寫進同一個緩衝區，取得全文時只需一次 toString，
+ * 分頁以緩衝區位移記錄，不另外保存每一頁的複本。
+ */
+final class StringBuilderWriter extends Writer {
+
+    /**
+     * 達到字元上限時丟出，讓呼叫端中止解析（例如 PDFTextStripper 的頁面走訪）
+     */
+    static final class LimitReachedException extends IOException {
+        LimitReachedException() {
+            super(null, null);
+        }
+    }
+
+    /**
+     * 多個 Writer 共用的字元預算
+     */
+    interface Budget {
+        /**
+         * 預扣 len 個字元，回傳實際可寫入的字元數（小於 len 表示預算已用完）
+         */
+        int take(int len);
+    }
+
+    private final StringBuilder buffer;
+    private final int maxChars;
+    private final Budget budget;
+
+    StringBuilderWriter(StringBuilder buffer) {
+        this(buffer, -1);
+    }
+
+    /**
+     * @param maxChars 字元上限（-1 表示不限制）；超過時寫入可容納的部分後丟出 LimitReachedException
+     */
+    StringBuilderWriter(StringBuilder buffer, int maxChars) {
+        this.buffer = buffer;
+        this.maxChars = maxChars;
+        this.budget = null;
+    }
+
+    /**
+     * 由共用預算決定可寫入的字元數；預算用完時寫入可容納的部分後丟出 LimitReachedException
+     */
+    StringBuilderWriter(StringBuilder buffer, Budget budget) {
+        this.buffer = buffer;
+        this.maxChars = -1;
+        this.budget = budget;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int room = room(len);
+        buffer.append(cbuf, off, room);
+        if (room < len) {
+            throw new LimitReachedException();
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        int room = room(len);
+        buffer.append(str, off, off + room);
+        if (room < len) {
+            throw new LimitReachedException();
+        }
+    }
+
+    private int room(int len) {
+        if (budget != null) {
+            return budget.take(len);
+        }
+        return maxChars < 0 ? len : Math.min(len, maxChars - buffer.length());
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
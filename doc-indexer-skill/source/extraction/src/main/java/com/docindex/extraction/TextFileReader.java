@@ -0,0 +1,175 @@
+package com.docindex.extraction;
+
+import org.apache.tika.parser.txt.CharsetDetector;
+import org.apache.tika.parser.txt.CharsetMatch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 純文字檔快速讀取（不經過 Tika 類型偵測與 SAX 處理）
+ *
+ * 編碼判斷依序為：BOM → 嚴格 UTF-8 解碼 → 取樣交給 CharsetDetector（Big5、GBK 等）。
+ * 前段含有 NUL 位元組的檔案視為二進位，由呼叫端改用 Tika。
+ */
+final class TextFileReader {
+
+    // 檢查 NUL 與編碼偵測的取樣長度
+    private static final int BINARY_SAMPLE = 8 * 1024;
+    private static final int DETECT_SAMPLE = 64 * 1024;
+
+    /**
+     * 讀取結果
+     */
+    static final class Result {
+        final String text;
+        final Charset charset;
+        // 因 maxChars 只讀取了檔案的前段
+        boolean truncated;
+
+        Result(String text, Charset charset) {
+            this.text = text;
+            this.charset = charset;
+        }
+    }
+
+    private TextFileReader() {
+    }
+
+    /**
+     * 讀取整個檔案並解碼，看起來是二進位檔時回傳 null
+     */
+    static Result read(Path file, long size) throws IOException {
+        return read(file, size, -1);
+    }
+
+    /**
+     * 讀取檔案並解碼，最多保留 maxChars 個字元（-1 表示不限制），看起來是二進位檔時回傳 null
+     *
+     * 有上限時只讀取足以解出 maxChars 個字元的位元組數（每字元最多 3 位元組），超大的檔案不會整份載入。
+     */
+    static Result read(Path file, long size, int maxChars) throws IOException {
+        long readBytes = maxChars > 0 ? Math.min(size, maxChars * 3L) : size;
+        if (readBytes > Integer.MAX_VALUE - 8) {
+            throw new IOException("Text file too large: " + file);
+        }
+        boolean partial = readBytes < size;
+        Result result = decode(file, (int) readBytes, partial);
+        if (result == null) {
+            return null;
+        }
+        if (maxChars > 0 && result.text.length() > maxChars) {
+            int end = maxChars;
+            // 不切開代理對
+            if (Character.isHighSurrogate(result.text.charAt(end - 1))) {
+                end--;
+            }
+            Result cut = new Result(result.text.substring(0, end), result.charset);
+            cut.truncated = true;
+            return cut;
+        }
+        result.truncated = partial;
+        return result;
+    }
+
+    private static Result decode(Path file, int size, boolean partial) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                // 讀到檔案結尾或緩衝區滿
+            }
+        }
+        buffer.flip();
+        byte[] bytes = buffer.array();
+        int length = buffer.limit();
+        if (partial) {
+            // 只讀了前段時，去掉結尾不完整的多位元組字元，避免嚴格 UTF-8 解碼誤判
+            length = utf8Boundary(bytes, length);
+        }
+
+        // BOM
+        if (length >= 3 && (bytes[0] & 0xff) == 0xEF && (bytes[1] & 0xff) == 0xBB && (bytes[2] & 0xff) == 0xBF) {
+            return new Result(new String(bytes, 3, length - 3, StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        }
+        if (length >= 2 && (bytes[0] & 0xff) == 0xFE && (bytes[1] & 0xff) == 0xFF) {
+            return new Result(new String(bytes, 2, length - 2, StandardCharsets.UTF_16BE), StandardCharsets.UTF_16BE);
+        }
+        if (length >= 2 && (bytes[0] & 0xff) == 0xFF && (bytes[1] & 0xff) == 0xFE) {
+            return new Result(new String(bytes, 2, length - 2, StandardCharsets.UTF_16LE), StandardCharsets.UTF_16LE);
+        }
+
+        if (looksBinary(bytes, length)) {
+            return null;
+        }
+
+        // 大部分原始碼與設定檔是 UTF-8（含純 ASCII），嚴格解碼成功就不需要偵測
+        try {
+            CharBuffer chars = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)
+                .decode(ByteBuffer.wrap(bytes, 0, length));
+            return new Result(chars.toString(), StandardCharsets.UTF_8);
+        } catch (CharacterCodingException e) {
+            // 不是 UTF-8
+        }
+
+        Charset charset = detect(bytes, length);
+        return new Result(new String(bytes, 0, length, charset), charset);
+    }
+
+    /**
+     * 回傳不切開 UTF-8 多位元組字元的長度（非 UTF-8 內容最多只損失結尾一個字元）
+     */
+    private static int utf8Boundary(byte[] bytes, int length) {
+        int i = length - 1;
+        // 往回找到字元起始位元組（最多 3 個延續位元組）
+        while (i >= 0 && length - i <= 4 && (bytes[i] & 0xC0) == 0x80) {
+            i--;
+        }
+        if (i < 0) {
+            return length;
+        }
+        int lead = bytes[i] & 0xff;
+        int needed = lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 1;
+        return length - i < needed ? i : length;
+    }
+
+    /**
+     * 前段有 NUL 位元組且沒有 UTF-16 BOM 時視為二進位
+     */
+    static boolean looksBinary(byte[] bytes, int length) {
+        if (length >= 2 && (((bytes[0] & 0xff) == 0xFE && (bytes[1] & 0xff) == 0xFF)
+                || ((bytes[0] & 0xff) == 0xFF && (bytes[1] & 0xff) == 0xFE))) {
+            return false;
+        }
+        for (int i = 0, n = Math.min(length, BINARY_SAMPLE); i < n; i++) {
+            if (bytes[i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Charset detect(byte[] bytes, int length) {
+        CharsetDetector detector = new CharsetDetector();
+        detector.setText(Arrays.copyOf(bytes, Math.min(length, DETECT_SAMPLE)));
+        CharsetMatch match = detector.detect();
+        if (match != null) {
+            try {
+                return Charset.forName(match.getName());
+            } catch (IllegalArgumentException e) {
+                // JVM 不支援偵測到的編碼
+            }
+        }
+        return StandardCharsets.ISO_8859_1;
+    }
+}
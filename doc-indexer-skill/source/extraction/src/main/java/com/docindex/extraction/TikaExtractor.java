@@ -0,0 +1,741 @@
+package com.docindex.extraction;
+
+import com.docindex.core.DocumentExtractor;
+import com.docindex.core.DocumentReader;
+import com.docindex.core.ExtractionLimits;
+import com.docindex.model.DocumentInfo;
+import org.apache.tika.Tika;
+import org.apache.tika.exception.WriteLimitReachedException;
+import org.apache.tika.exception.ZeroByteFileException;
+import org.apache.tika.exception.EncryptedDocumentException;
+import org.apache.tika.extractor.EmbeddedDocumentExtractor;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.config.ServiceLoader;
+import org.apache.tika.mime.MediaTypeRegistry;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.DefaultParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.microsoft.OfficeParser;
+import org.apache.tika.parser.microsoft.ooxml.OOXMLParser;
+import org.apache.tika.parser.microsoft.rtf.RTFParser;
+import org.apache.tika.parser.ocr.TesseractOCRConfig;
+import org.apache.tika.parser.ocr.TesseractOCRParser;
+import org.apache.tika.parser.odf.OpenDocumentParser;
+import org.apache.tika.parser.pdf.PDFParserConfig;
+import org.apache.tika.parser.xml.XMLParser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.WriteOutContentHandler;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 使用 Apache Tika 提取文件內容
+ *
+ * 非執行緒安全：AutoDetectParser 與 ParseContext 在同一實例內重複使用，
+ * 多執行緒索引時每個工作執行緒應各自建立一個實例。
+ *
+ * 解析器在第一次需要 Tika 時才建立（載入所有解析器服務並檢查 Tesseract），
+ * 只讀取純文字檔或 PDF 文字層、或只用來判斷副檔名時不需付出這段啟動時間。
+ */
+public class TikaExtractor implements DocumentExtractor {
+
+    // 提取邏輯變更時遞增，讓增量索引重新提取既有檔案
+    public static final String EXTRACTOR_VERSION = "4";
+
+    // 超過此大小的 PDF 以暫存檔保存解析中的資料流
+    public static final long DEFAULT_PDF_TEMP_FILE_THRESHOLD = 64L * 1024 * 1024;
+
+    private final OcrCostControls ocrControls;
+    private final int maxContentLength;
+
+    // 以下在第一次使用時建立
+    private Tika tika;
+    private AutoDetectParser parser;
+    // 每個提取模式各自的解析設定（OCR、內嵌圖片）
+    private final Map<ExtractionProfile, ParseContext> parseContexts = new EnumMap<>(ExtractionProfile.class);
+    // 已知格式直接使用的解析器（副檔名 → 解析器），不經過類型偵測
+    private Map<String, Parser> directParsers;
+
+    // 大型 PDF 分頁平行提取（pagePool 為 null 表示停用）
+    private ExecutorService pagePool;
+    private int pageParallelism;
+    private int parallelPageThreshold;
+    private long pdfTempFileThreshold = DEFAULT_PDF_TEMP_FILE_THRESHOLD;
+
+    // 每份文件的字元數、內嵌文件與膨脹比例上限
+    private ExtractionLimits limits = ExtractionLimits.defaults();
+
+    // 各路徑使用的提取模式
+    private ProfileSelector profiles = ProfileSelector.uniform(ExtractionProfile.DEFAULT);
+
+    // PDF 掃描頁 OCR（ocr 為 null 表示停用）
+    private OcrService ocr;
+    private ExecutorService ocrPool;
+    private int ocrParallelism;
+    private float ocrDpi;
+
+    // 分頁標記 (用於 Word 等文件)
+    private static final Pattern PAGE_BREAK_PATTERN = Pattern.compile("\\f|\\x0C|<<<PAGE_BREAK>>>");
+
+    // 支援的檔案類型
+    private static final Set<String> SUPPORTED_EXTENSIONS = new HashSet<>(Arrays.asList(
+        // 文件
+        "pdf", "doc", "docx", "xls", "xlsx", "ppt", "pptx",
+        "odt", "ods", "odp", "rtf",
+        // 文字
+        "txt", "md", "markdown", "json", "xml", "yaml", "yml",
+        "html", "htm", "csv", "tsv",
+        // 程式碼
+        "java", "py", "js", "ts", "c", "cpp", "h", "hpp",
+        "cs", "go", "rs", "rb", "php", "swift", "kt",
+        "sql", "sh", "bash", "zsh", "ps1",
+        // 壓縮檔
+        "zip", "tar", "gz", "7z", "rar",
+        // 圖檔 (OCR)
+        "png", "jpg", "jpeg", "gif", "bmp", "tiff", "tif", "webp",
+        // 其他
+        "log", "ini", "conf", "cfg", "properties"
+    ));
+
+    // 純文字檔案類型（可以用 fallback 讀取）
+    private static final Set<String> TEXT_EXTENSIONS = new HashSet<>(Arrays.asList(
+        "txt", "md", "markdown", "json", "xml", "yaml", "yml",
+        "html", "htm", "csv", "tsv",
+        "java", "py", "js", "ts", "c", "cpp", "h", "hpp",
+        "cs", "go", "rs", "rb", "php", "swift", "kt",
+        "sql", "sh", "bash", "zsh", "ps1",
+        "log", "ini", "conf", "cfg", "properties"
+    ));
+
+    // 直接以 NIO 讀取的純文字類型（HTML/XML 需要解析標記，仍交給 Tika）
+    private static final Set<String> PLAIN_TEXT_EXTENSIONS = new HashSet<>(TEXT_EXTENSIONS);
+    static {
+        PLAIN_TEXT_EXTENSIONS.removeAll(Arrays.asList("html", "htm", "xml"));
+    }
+
+    // 快速讀取的純文字檔回報的 MIME 類型（未列出的為 text/plain）
+    private static final Map<String, String> TEXT_MIME_TYPES = Map.of(
+        "md", "text/markdown",
+        "markdown", "text/markdown",
+        "json", "application/json",
+        "csv", "text/csv",
+        "tsv", "text/tab-separated-values",
+        "yaml", "application/x-yaml",
+        "yml", "application/x-yaml"
+    );
+
+    // 直接交給特定解析器的格式與其 MIME 類型
+    private static final Map<String, String> DIRECT_MIME_TYPES = Map.ofEntries(
+        Map.entry("docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document"),
+        Map.entry("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+        Map.entry("pptx", "application/vnd.openxmlformats-officedocument.presentationml.presentation"),
+        Map.entry("doc", "application/msword"),
+        Map.entry("xls", "application/vnd.ms-excel"),
+        Map.entry("ppt", "application/vnd.ms-powerpoint"),
+        Map.entry("odt", "application/vnd.oasis.opendocument.text"),
+        Map.entry("ods", "application/vnd.oasis.opendocument.spreadsheet"),
+        Map.entry("odp", "application/vnd.oasis.opendocument.presentation"),
+        Map.entry("rtf", "application/rtf"),
+        Map.entry("xml", "application/xml"),
+        Map.entry("png", "image/png"),
+        Map.entry("jpg", "image/jpeg"),
+        Map.entry("jpeg", "image/jpeg"),
+        Map.entry("gif", "image/gif"),
+        Map.entry("bmp", "image/bmp"),
+        Map.entry("tiff", "image/tiff"),
+        Map.entry("tif", "image/tiff"),
+        Map.entry("webp", "image/webp")
+    );
+
+    // 需要 OCR 的圖檔類型（索引管線排入獨立的 OCR 通道）
+    private static final Set<String> OCR_EXTENSIONS = new HashSet<>(Arrays.asList(
+        "png", "jpg", "jpeg", "gif", "bmp", "tiff", "tif", "webp"
+    ));
+
+    public TikaExtractor() {
+        this(-1); // 無限制
+    }
+
+    public TikaExtractor(int maxContentLength) {
+        this(maxContentLength, OcrCostControls.defaults());
+    }
+
+    /**
+     * @param ocrControls 影像 OCR 的成本控制（應由所有提取執行緒共用，快取才能跨文件生效）
+     */
+    public TikaExtractor(int maxContentLength, OcrCostControls ocrControls) {
+        this.ocrControls = ocrControls;
+        this.maxContentLength = maxContentLength;
+    }
+
+    /**
+     * 建立解析器與各提取模式的解析設定（第一次需要 Tika 解析時呼叫）
+     */
+    private void initParsers() {
+        if (parser != null) {
+            return;
+        }
+        CostAwareOcrParser ocrParser = new CostAwareOcrParser(ocrControls);
+        this.parser = createParser(ocrParser);
+        for (ExtractionProfile profile : ExtractionProfile.values()) {
+            parseContexts.put(profile, createParseContext(profile));
+        }
+        this.directParsers = createDirectParsers(ocrParser);
+    }
+
+    /**
+     * 啟用大型 PDF 分頁平行提取
+     *
+     * @param pool        共用的分頁提取執行緒池（多個 TikaExtractor 可共用）
+     * @param parallelism pool 的執行緒數
+     * @param minPages    頁數達到此門檻才平行提取
+     */
+    public TikaExtractor setPageParallelism(ExecutorService pool, int parallelism, int minPages) {
+        this.pagePool = pool;
+        this.pageParallelism = parallelism;
+        this.parallelPageThreshold = minPages;
+        return this;
+    }
+
+    /**
+     * 設定每份文件的提取上限（建構時指定的 maxContentLength 仍然有效，取較小者）
+     */
+    public TikaExtractor setLimits(ExtractionLimits limits) {
+        this.limits = limits;
+        return this;
+    }
+
+    /**
+     * 供搜尋摘要與 read 使用的讀取器：每個執行緒各自持有一個 TikaExtractor，
+     * 字元上限依每次呼叫設定（與其他預設提取上限取較小者）
+     */
+    public static DocumentReader perThreadReader() {
+        ThreadLocal<TikaExtractor> extractors = ThreadLocal.withInitial(TikaExtractor::new);
+        return (file, maxChars) -> {
+            int chars = maxChars > 0 ? Math.min(maxChars, ExtractionLimits.DEFAULT_MAX_CHARS) : ExtractionLimits.DEFAULT_MAX_CHARS;
+            return extractors.get().setLimits(new ExtractionLimits(chars, ExtractionLimits.DEFAULT_MAX_EMBEDDED_DEPTH,
+                ExtractionLimits.DEFAULT_MAX_EMBEDDED, ExtractionLimits.DEFAULT_MAX_EXPANSION)).extract(file);
+        };
+    }
+
+    /**
+     * 設定各路徑使用的提取模式（預設全部為 full）
+     */
+    public TikaExtractor setProfiles(ProfileSelector profiles) {
+        this.profiles = profiles;
+        return this;
+    }
+
+    /**
+     * 設定 PDF 改用暫存檔的大小門檻（位元組，0 表示一律使用記憶體）
+     *
+     * 平行提取時各頁面範圍另外開啟的 PDDocument 不受此門檻影響，一律使用暫存檔。
+     */
+    public TikaExtractor setPdfTempFileThreshold(long bytes) {
+        this.pdfTempFileThreshold = bytes;
+        return this;
+    }
+
+    /**
+     * 啟用 PDF 掃描頁 OCR：沒有文字層的頁面以指定 DPI 渲染後平行辨識
+     *
+     * @param pool        共用的 OCR 執行緒池
+     * @param parallelism pool 的執行緒數
+     */
+    public TikaExtractor setPageOcr(OcrService ocr, ExecutorService pool, int parallelism, float dpi) {
+        this.ocr = ocr;
+        this.ocrPool = pool;
+        this.ocrParallelism = parallelism;
+        this.ocrDpi = dpi;
+        return this;
+    }
+
+    /**
+     * 建立解析器：以帶成本控制的 OCR 取代預設的 TesseractOCRParser，
+     * 內嵌於 Office/PDF 的圖片也會經過同一個控制
+     */
+    private static AutoDetectParser createParser(CostAwareOcrParser ocrParser) {
+        Parser defaults = new DefaultParser(MediaTypeRegistry.getDefaultRegistry(), new ServiceLoader(),
+            List.of(TesseractOCRParser.class));
+        // CompositeParser 中後面的解析器優先，影像類型會交給 CostAwareOcrParser
+        return new AutoDetectParser(defaults, ocrParser);
+    }
+
+    /**
+     * 建立副檔名到解析器的路由表
+     *
+     * 這些格式的解析器固定，略過 AutoDetectParser 的魔術數字偵測與容器探測（OOXML/ODF 需開 zip 判斷）。
+     * HTML（常被誤標）與壓縮檔（內容不定）仍交給 AutoDetectParser。
+     */
+    private static Map<String, Parser> createDirectParsers(CostAwareOcrParser ocrParser) {
+        Parser ooxml = new OOXMLParser();
+        Parser office = new OfficeParser();
+        Parser odf = new OpenDocumentParser();
+        Map<String, Parser> parsers = new HashMap<>();
+        for (String ext : List.of("docx", "xlsx", "pptx")) {
+            parsers.put(ext, ooxml);
+        }
+        for (String ext : List.of("doc", "xls", "ppt")) {
+            parsers.put(ext, office);
+        }
+        for (String ext : List.of("odt", "ods", "odp")) {
+            parsers.put(ext, odf);
+        }
+        parsers.put("rtf", new RTFParser());
+        parsers.put("xml", new XMLParser());
+        // 沒有安裝 Tesseract 時影像交回 AutoDetectParser（只取元數據）
+        if (!ocrParser.getSupportedTypes(new ParseContext()).isEmpty()) {
+            for (String ext : OCR_EXTENSIONS) {
+                parsers.put(ext, ocrParser);
+            }
+        }
+        return parsers;
+    }
+
+    /**
+     * 建立提取模式對應的可重複使用解析設定
+     */
+    private ParseContext createParseContext(ExtractionProfile profile) {
+        ParseContext context = new ParseContext();
+
+        // 設定 OCR 配置（不辨識圖檔的模式由 CostAwareOcrParser 直接略過）
+        TesseractOCRConfig ocrConfig = new TesseractOCRConfig();
+        ocrConfig.setLanguage(OcrService.DEFAULT_LANGUAGE);
+        ocrConfig.setTimeoutSeconds(OcrService.DEFAULT_TIMEOUT_SECONDS);
+        ocrConfig.setSkipOcr(!profile.isImageOcr());
+        context.set(TesseractOCRConfig.class, ocrConfig);
+
+        // 設定 PDF 配置（Tika 只在 PDFBox 分頁提取失敗時處理 PDF，掃描頁 OCR 由 pageOcr 決定）
+        PDFParserConfig pdfConfig = new PDFParserConfig();
+        pdfConfig.setExtractInlineImages(profile.isEmbeddedImages());
+        pdfConfig.setOcrStrategy(profile.isPageOcr()
+            ? PDFParserConfig.OCR_STRATEGY.AUTO : PDFParserConfig.OCR_STRATEGY.NO_OCR);
+        context.set(PDFParserConfig.class, pdfConfig);
+
+        // 設定遞迴解析（直接呼叫特定解析器時，內嵌文件與圖片仍經由 AutoDetectParser 處理）
+        context.set(AutoDetectParser.class, parser);
+        context.set(Parser.class, parser);
+        return context;
+    }
+
+    /**
+     * 從檔案提取文件資訊
+     */
+    public DocumentInfo extract(Path filePath) throws Exception {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(filePath, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            throw new IllegalArgumentException("File does not exist: " + filePath);
+        }
+        return extract(filePath, attrs);
+    }
+
+    /**
+     * 從檔案提取文件資訊（使用目錄走訪時已讀取的檔案屬性，不再重新 stat）
+     */
+    @Override
+    public DocumentInfo extract(Path filePath, BasicFileAttributes attrs) throws Exception {
+        // 符號連結的屬性是連結本身的，改讀目標檔案
+        if (attrs.isSymbolicLink()) {
+            attrs = Files.readAttributes(filePath, BasicFileAttributes.class);
+        }
+        if (!attrs.isRegularFile()) {
+            throw new IllegalArgumentException("File does not exist: " + filePath);
+        }
+
+        // 跳過空檔案
+        if (attrs.size() == 0) {
+            throw new ZeroByteFileException("Empty file: " + filePath);
+        }
+
+        File file = filePath.toFile();
+        DocumentInfo docInfo = describe(filePath, attrs);
+
+        String extension = getFileExtension(filePath).toLowerCase();
+        ExtractionProfile profile = profiles.profileFor(filePath);
+
+        // PDF 使用 PDFBox 分頁提取
+        if ("pdf".equals(extension)) {
+            extractPdfByPage(file, docInfo, profile);
+        } else if (!PLAIN_TEXT_EXTENSIONS.contains(extension) || !readPlainText(filePath, attrs.size(), extension, docInfo)) {
+            // 其他檔案使用 Tika 提取（已知格式直接使用對應解析器；純文字檔讀取失敗時也由 Tika 處理）
+            initParsers();
+            extractWithTika(file, docInfo, profile, directParsers.get(extension), DIRECT_MIME_TYPES.get(extension));
+        }
+
+        return docInfo;
+    }
+
+    /**
+     * 建立只含檔案資訊（路徑、大小、時間、ID）的 DocumentInfo，內容由提取或快取填入
+     */
+    static DocumentInfo describe(Path filePath, BasicFileAttributes attrs) {
+        DocumentInfo docInfo = new DocumentInfo(filePath.toAbsolutePath().toString());
+        docInfo.setFileName(filePath.getFileName().toString());
+        docInfo.setFileSize(attrs.size());
+
+        // 檔案屬性
+        docInfo.setLastModified(attrs.lastModifiedTime().toInstant());
+        docInfo.setIndexedAt(Instant.now());
+
+        // 產生文件 ID (使用檔案路徑的 hash)
+        docInfo.setId(generateDocumentId(filePath.toAbsolutePath().toString()));
+        return docInfo;
+    }
+
+    /**
+     * PDF 分頁提取（頁數超過門檻時切成多個範圍平行提取）
+     *
+     * 全文只保存一份，分頁以位移記錄；大型檔案以暫存檔取代堆積保存解析中的資料。
+     * 啟用掃描頁 OCR 且提取模式允許時，只有沒有文字層的頁面會被渲染辨識。
+     */
+    private void extractPdfByPage(File file, DocumentInfo docInfo, ExtractionProfile profile) {
+        int charLimit = limits.charLimit(docInfo.getFileSize(), maxContentLength);
+        try (PDDocument document = PdfPageExtractor.load(file, pdfTempFileThreshold)) {
+            int totalPages = document.getNumberOfPages();
+            PdfPageExtractor.PageText pages;
+            if (pagePool != null && parallelPageThreshold > 0 && totalPages >= parallelPageThreshold) {
+                pages = PdfPageExtractor.extractParallel(file, totalPages, pagePool, pageParallelism, charLimit);
+            } else {
+                pages = PdfPageExtractor.extractRange(document, 1, totalPages, charLimit);
+            }
+
+            // 沒有文字層的頁面（掃描頁）改用 OCR；截斷後的頁面沒有提取，不能當成掃描頁。
+            // OCR 文字與文字層共用同一個上限，超過時在合併處截斷
+            int ocrPages = 0;
+            if (ocr != null && profile.isPageOcr() && ocr.isAvailable() && !pages.truncated) {
+                PdfPageOcr.Result ocrResult = PdfPageOcr.ocrBlankPages(document, pages, ocr,
+                    ocrPool, ocrParallelism, ocrDpi, charLimit);
+                pages = ocrResult.pages;
+                ocrPages = ocrResult.ocrPages;
+            }
+
+            docInfo.setContent(pages.text);
+            docInfo.setPageOffsets(pages.pageOffsets);
+            docInfo.setContentType("application/pdf");
+            docInfo.addMetadata("pageCount", String.valueOf(totalPages));
+            if (ocrPages > 0) {
+                docInfo.addMetadata("ocrPages", String.valueOf(ocrPages));
+            }
+            if (pages.truncated) {
+                markTruncated(docInfo, limits.charLimitReason(docInfo.getFileSize(), maxContentLength));
+            }
+
+        } catch (Exception e) {
+            // 如果 PDFBox 失敗，回退到 Tika
+            docInfo.setContent(null);
+            docInfo.setPageOffsets(null);
+            extractWithTika(file, docInfo, profile);
+        }
+    }
+
+    /**
+     * 以 NIO 直接讀取純文字檔，看起來是二進位檔時回傳 false 交給 Tika
+     */
+    private boolean readPlainText(Path filePath, long size, String extension, DocumentInfo docInfo) {
+        TextFileReader.Result result;
+        try {
+            result = TextFileReader.read(filePath, size, limits.charLimit(size, maxContentLength));
+        } catch (Exception e) {
+            return false;
+        }
+        if (result == null) {
+            return false;
+        }
+
+        // 不去除前後空白：多數文字檔以換行結尾，strip 會複製整份內容，每頁取出時已會去除空白
+        String content = result.text;
+        docInfo.setContent(content);
+        docInfo.setPageOffsets(pageOffsets(content));
+        docInfo.setContentType(TEXT_MIME_TYPES.getOrDefault(extension, "text/plain")
+            + "; charset=" + result.charset.name());
+        if (result.truncated) {
+            markTruncated(docInfo, limits.charLimitReason(size, maxContentLength));
+        }
+        return true;
+    }
+
+    /**
+     * 依分頁標記計算每頁起始位移（無分頁標記時整份為一頁）
+     */
+    private static int[] pageOffsets(CharSequence content) {
+        Matcher m = PAGE_BREAK_PATTERN.matcher(content);
+        if (!m.find()) {
+            return new int[] {0};
+        }
+        int[] offsets = new int[8];
+        int count = 0;
+        offsets[count++] = 0;
+        do {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = m.end();
+        } while (m.find());
+        return Arrays.copyOf(offsets, count);
+    }
+
+    /**
+     * 使用 Tika 提取內容（自動偵測格式）
+     */
+    private void extractWithTika(File file, DocumentInfo docInfo, ExtractionProfile profile) {
+        extractWithTika(file, docInfo, profile, null, null);
+    }
+
+    /**
+     * 使用 Tika 提取內容
+     *
+     * @param selected  依副檔名選定的解析器（null 表示自動偵測）；解析失敗時改用自動偵測重試，
+     *                  以處理副檔名與實際格式不符的檔案
+     * @param mediaType selected 對應的 MIME 類型
+     */
+    private void extractWithTika(File file, DocumentInfo docInfo, ExtractionProfile profile,
+                                 Parser selected, String mediaType) {
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, file.getName());
+        if (selected != null) {
+            metadata.set(Metadata.CONTENT_TYPE, mediaType);
+        }
+
+        long fileSize = file.length();
+        try (InputStream stream = new FileInputStream(file)) {
+            // 文字直接寫入單一緩衝區；字元上限在寫入時檢查，達到時中止解析
+            StringBuilder buffer = new StringBuilder();
+            BodyContentHandler handler = new BodyContentHandler(new WriteOutContentHandler(
+                new StringBuilderWriter(buffer), limits.charLimit(fileSize, maxContentLength)));
+            initParsers();
+            ParseContext parseContext = parseContexts.get(profile);
+            LimitedEmbeddedExtractor embedded = new LimitedEmbeddedExtractor(parseContext,
+                limits.getMaxEmbeddedDepth(), limits.getMaxEmbedded(), !profile.isEmbeddedImages());
+            parseContext.set(EmbeddedDocumentExtractor.class, embedded);
+
+            try {
+                (selected != null ? selected : parser).parse(stream, handler, metadata, parseContext);
+            } catch (Exception e) {
+                // 解析器可能把寫入上限包在 TikaException 中
+                if (!WriteLimitReachedException.isWriteLimitReached(e)) {
+                    throw e;
+                }
+                markTruncated(docInfo, limits.charLimitReason(fileSize, maxContentLength));
+            }
+            if (embedded.isDepthExceeded()) {
+                markTruncated(docInfo, ExtractionLimits.EMBEDDED_DEPTH);
+            }
+            if (embedded.isCountExceeded()) {
+                markTruncated(docInfo, ExtractionLimits.EMBEDDED_COUNT);
+            }
+
+            // 在緩衝區內去除前後空白，全文只複製一次；分頁以分頁標記的位移記錄
+            trimInPlace(buffer);
+            if (buffer.length() > 0) {
+                docInfo.setPageOffsets(pageOffsets(buffer));
+            }
+            docInfo.setContent(buffer.toString());
+
+            String contentType = metadata.get(Metadata.CONTENT_TYPE);
+            docInfo.setContentType(contentType != null ? contentType : "application/octet-stream");
+
+            extractMetadata(metadata, docInfo);
+
+        } catch (ZeroByteFileException | EncryptedDocumentException e) {
+            docInfo.setContent("");
+            docInfo.setContentType("application/octet-stream");
+        } catch (Exception e) {
+            if (selected != null) {
+                docInfo.setContent(null);
+                docInfo.setPageOffsets(null);
+                docInfo.getMetadata().remove(ExtractionLimits.METADATA_KEY);
+                extractWithTika(file, docInfo, profile);
+                return;
+            }
+            Path filePath = file.toPath();
+            if (isTextFile(filePath)) {
+                fallbackExtract(filePath, docInfo);
+            } else {
+                docInfo.setContent("");
+                docInfo.setContentType("application/octet-stream");
+            }
+        }
+    }
+
+    /**
+     * 去除緩衝區前後空白（前段以陣列搬移處理，不建立新字串）
+     */
+    private static void trimInPlace(StringBuilder buffer) {
+        int end = buffer.length();
+        while (end > 0 && Character.isWhitespace(buffer.charAt(end - 1))) {
+            end--;
+        }
+        buffer.setLength(end);
+        int start = 0;
+        while (start < end && Character.isWhitespace(buffer.charAt(start))) {
+            start++;
+        }
+        buffer.delete(0, start);
+    }
+
+    /**
+     * 在元數據記錄截斷原因（多個原因以逗號分隔）
+     */
+    private static void markTruncated(DocumentInfo docInfo, String reason) {
+        String reasons = docInfo.getMetadata(ExtractionLimits.METADATA_KEY);
+        if (reasons == null) {
+            docInfo.addMetadata(ExtractionLimits.METADATA_KEY, reason);
+        } else if (!Arrays.asList(reasons.split(",")).contains(reason)) {
+            docInfo.addMetadata(ExtractionLimits.METADATA_KEY, reasons + "," + reason);
+        }
+    }
+
+    /**
+     * 提取元數據
+     */
+    private void extractMetadata(Metadata metadata, DocumentInfo docInfo) {
+        String title = metadata.get(TikaCoreProperties.TITLE);
+        docInfo.addMetadata("title", title);
+
+        String author = metadata.get(TikaCoreProperties.CREATOR);
+        docInfo.addMetadata("author", author);
+
+        if (metadata.getDate(TikaCoreProperties.CREATED) != null) {
+            docInfo.addMetadata("created", metadata.getDate(TikaCoreProperties.CREATED).toString());
+        }
+
+        if (metadata.getDate(TikaCoreProperties.MODIFIED) != null) {
+            docInfo.addMetadata("modified", metadata.getDate(TikaCoreProperties.MODIFIED).toString());
+        }
+
+        String pageCount = metadata.get("xmpTPg:NPages");
+        if (pageCount == null) {
+            pageCount = metadata.get("meta:page-count");
+        }
+        docInfo.addMetadata("pageCount", pageCount);
+
+        String wordCount = metadata.get("meta:word-count");
+        docInfo.addMetadata("wordCount", wordCount);
+    }
+
+    /**
+     * 回退提取方法
+     */
+    private void fallbackExtract(Path filePath, DocumentInfo docInfo) {
+        try {
+            long size = Files.size(filePath);
+            TextFileReader.Result result = TextFileReader.read(filePath, size, limits.charLimit(size, maxContentLength));
+            if (result == null) {
+                // 二進位內容不當成文字索引
+                docInfo.setContent("");
+                docInfo.setContentType("application/octet-stream");
+                return;
+            }
+            docInfo.setContent(result.text);
+            docInfo.setPageOffsets(pageOffsets(result.text));
+            docInfo.setContentType("text/plain");
+            if (result.truncated) {
+                markTruncated(docInfo, limits.charLimitReason(size, maxContentLength));
+            }
+        } catch (Exception e) {
+            docInfo.setContent("");
+            docInfo.setContentType("application/octet-stream");
+        }
+    }
+
+    /**
+     * 檢查是否為文字檔案
+     */
+    private boolean isTextFile(Path filePath) {
+        String extension = getFileExtension(filePath).toLowerCase();
+        return TEXT_EXTENSIONS.contains(extension);
+    }
+
+    /**
+     * 檢查檔案是否支援
+     */
+    public boolean isSupported(Path filePath) {
+        String extension = getFileExtension(filePath).toLowerCase();
+        return SUPPORTED_EXTENSIONS.contains(extension);
+    }
+
+    /**
+     * 檢查檔案是否以 OCR 為主（圖檔）
+     */
+    public static boolean isOcrBound(Path filePath) {
+        return OCR_EXTENSIONS.contains(getFileExtension(filePath).toLowerCase());
+    }
+
+    /**
+     * 副檔名（小寫）是否為支援的類型
+     */
+    static boolean isSupportedExtension(String extension) {
+        return SUPPORTED_EXTENSIONS.contains(extension);
+    }
+
+    /**
+     * 副檔名（小寫）是否為文字類型
+     */
+    static boolean isTextExtension(String extension) {
+        return TEXT_EXTENSIONS.contains(extension);
+    }
+
+    /**
+     * 取得檔案副檔名
+     */
+    static String getFileExtension(Path filePath) {
+        String fileName = filePath.getFileName().toString();
+        int lastDot = fileName.lastIndexOf('.');
+        return lastDot == -1 ? "" : fileName.substring(lastDot + 1);
+    }
+
+    /**
+     * 產生文件 ID
+     */
+    private static String generateDocumentId(String filePath) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hash = md.digest(filePath.getBytes());
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                sb.append(String.format("%02x", hash[i]));
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            return String.valueOf(filePath.hashCode());
+        }
+    }
+
+    /**
+     * 偵測檔案 MIME 類型
+     */
+    public String detectMimeType(Path filePath) {
+        try {
+            if (tika == null) {
+                tika = new Tika();
+            }
+            return tika.detect(filePath);
+        } catch (Exception e) {
+            return "application/octet-stream";
+        }
+    }
+}
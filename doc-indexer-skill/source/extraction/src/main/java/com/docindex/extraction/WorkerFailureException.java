@@ -0,0 +1,26 @@
+package com.docindex.extraction;
+
+import java.io.IOException;
+
+/**
+ * 子程序提取失敗（逾時或子程序異常結束），與一般的檔案解析錯誤區分，
+ * 呼叫端可據此將檔案列入隔離清單。
+ */
+public class WorkerFailureException extends IOException {
+
+    public enum Reason {
+        TIMEOUT,
+        CRASHED
+    }
+
+    private final Reason reason;
+
+    public WorkerFailureException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,143 @@
+package com.docindex.extraction;
+
+import com.docindex.model.DocumentInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 提取快取的讀寫與依最後使用時間清理
+ */
+class ExtractionCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ExtractionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ExtractionCache(tempDir.resolve("cache"), ExtractionCache.DEFAULT_MAX_BYTES);
+    }
+
+    @Test
+    void storedEntryLoadsBackWithoutHoldingTheText() throws IOException {
+        String key = ExtractionCache.key("hash", "v1");
+        DocumentInfo doc = new DocumentInfo();
+        doc.setContentType("application/pdf");
+        doc.setContent("第一頁內容\n第二頁內容");
+        doc.setPageOffsets(new int[] {0, 6});
+        doc.addMetadata("title", "多行\n標題");
+        cache.store(key, doc);
+
+        DocumentInfo loaded = new DocumentInfo();
+        assertTrue(cache.load(key, loaded));
+
+        // 全文留在快取項目中，索引時以 Reader 讀取
+        assertNotNull(loaded.getContentSource());
+        assertEquals(doc.getContent().length(), loaded.getContentLength());
+        assertEquals(doc.getContent(), loaded.getContent());
+        assertEquals("application/pdf", loaded.getContentType());
+        assertArrayEquals(new int[] {0, 6}, loaded.getPageOffsets());
+        assertEquals("多行\n標題", loaded.getMetadata("title"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getWrites());
+    }
+
+    @Test
+    void emptyAndMissingContentAreKeptApart() {
+        DocumentInfo empty = new DocumentInfo();
+        empty.setContent("");
+        cache.store(ExtractionCache.key("empty", "v1"), empty);
+        cache.store(ExtractionCache.key("none", "v1"), new DocumentInfo());
+
+        DocumentInfo loadedEmpty = new DocumentInfo();
+        DocumentInfo loadedNone = new DocumentInfo();
+        assertTrue(cache.load(ExtractionCache.key("empty", "v1"), loadedEmpty));
+        assertTrue(cache.load(ExtractionCache.key("none", "v1"), loadedNone));
+
+        assertEquals("", loadedEmpty.getContent());
+        assertNull(loadedNone.getContent());
+    }
+
+    @Test
+    void missingOrDamagedEntriesAreMisses() throws IOException {
+        assertFalse(cache.load(ExtractionCache.key("unknown", "v1"), new DocumentInfo()));
+
+        String key = ExtractionCache.key("damaged", "v1");
+        DocumentInfo doc = new DocumentInfo();
+        doc.setContent("x".repeat(10_000));
+        cache.store(key, doc);
+        Path file = entryPath(key);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertFalse(cache.load(key, new DocumentInfo()));
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void pruneRemovesLeastRecentlyUsedEntriesFirst() throws IOException {
+        String a = store("a");
+        String b = store("b");
+        String c = store("c");
+        long now = System.currentTimeMillis();
+        Files.setLastModifiedTime(entryPath(a), FileTime.fromMillis(now - 30_000));
+        Files.setLastModifiedTime(entryPath(b), FileTime.fromMillis(now - 20_000));
+        Files.setLastModifiedTime(entryPath(c), FileTime.fromMillis(now - 10_000));
+
+        // 命中會更新最後使用時間，a 變成最近使用的項目
+        assertTrue(cache.load(a, new DocumentInfo()));
+
+        long total = cache.stats().getBytes();
+        long sizeB = Files.size(entryPath(b));
+        ExtractionCache.PruneResult result = cache.prune(total - sizeB);
+
+        assertEquals(1, result.getRemoved());
+        assertEquals(sizeB, result.getFreedBytes());
+        assertFalse(Files.exists(entryPath(b)));
+        assertTrue(Files.exists(entryPath(a)));
+        assertTrue(Files.exists(entryPath(c)));
+    }
+
+    @Test
+    void oldFormatEntriesAreCountedAndPruned() throws IOException {
+        store("current");
+        Path old = Files.createDirectories(cache.getDirectory().resolve("ab")).resolve("ab0123.json.gz");
+        Files.write(old, new byte[100]);
+        Files.setLastModifiedTime(old, FileTime.fromMillis(0));
+
+        assertEquals(2, cache.stats().getEntries());
+
+        ExtractionCache.PruneResult result = cache.prune(cache.stats().getBytes() - 1);
+
+        assertEquals(1, result.getRemoved());
+        assertFalse(Files.exists(old));
+    }
+
+    private String store(String name) {
+        String key = ExtractionCache.key(name, "v1");
+        DocumentInfo doc = new DocumentInfo();
+        doc.setContent(name + " content");
+        cache.store(key, doc);
+        return key;
+    }
+
+    private Path entryPath(String key) {
+        return cache.getDirectory().resolve(key.substring(0, 2)).resolve(key + ".txt.gz");
+    }
+}
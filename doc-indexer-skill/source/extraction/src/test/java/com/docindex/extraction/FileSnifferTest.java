@@ -0,0 +1,124 @@
+package com.docindex.extraction;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 檔頭檢查：每一種略過原因，以及應該交給提取器的檔案
+ */
+class FileSnifferTest {
+
+    private static final byte[] OLE2_MAGIC = {
+        (byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1
+    };
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    @TempDir
+    Path tempDir;
+
+    private final FileSniffer sniffer = new FileSniffer();
+
+    @Test
+    void binaryContentBehindATextExtension() throws IOException {
+        byte[] dump = new byte[1024];
+        Arrays.fill(dump, (byte) 'x');
+        dump[100] = 0;
+
+        assertEquals(FileSniffer.Reason.BINARY, sniff(write("core.log", dump)));
+        assertNull(sniff(write("app.log", text("2024-01-01 started\n"))));
+    }
+
+    @Test
+    void officeDocumentInAnOleContainerIsEncrypted() throws IOException {
+        assertEquals(FileSniffer.Reason.ENCRYPTED, sniff(write("secret.docx", Arrays.copyOf(OLE2_MAGIC, 4096))));
+    }
+
+    @Test
+    void zipWithAnEncryptedEntryIsEncrypted() throws IOException {
+        byte[] zip = zip("notes.txt");
+        // 把中央目錄條目的一般用途旗標標記為已加密
+        int entry = indexOf(zip, new byte[] {'P', 'K', 1, 2});
+        zip[entry + 8] |= 1;
+
+        assertEquals(FileSniffer.Reason.ENCRYPTED, sniff(write("archive.zip", zip)));
+    }
+
+    @Test
+    void textBehindABinaryExtensionIsAMismatch() throws IOException {
+        assertEquals(FileSniffer.Reason.MISMATCH, sniff(write("report.pdf", text("this is not a pdf\n"))));
+        // 檔頭屬於其他已知格式時交給 Tika 自動偵測
+        assertNull(sniff(write("scan.pdf", Arrays.copyOf(PNG_MAGIC, 1024))));
+    }
+
+    @Test
+    void zipWithoutIndexableEntriesHasNoDocuments() throws IOException {
+        assertEquals(FileSniffer.Reason.NO_DOCUMENTS, sniff(write("media.zip", zip("clip.mp4", "song.mp3"))));
+        assertNull(sniff(write("docs.zip", zip("clip.mp4", "notes.txt"))));
+    }
+
+    @Test
+    void unknownBinaryWithoutExtensionIsUnrecognized() throws IOException {
+        byte[] blob = new byte[1024];
+        for (int i = 0; i < blob.length; i++) {
+            blob[i] = (byte) i;
+        }
+
+        assertEquals(FileSniffer.Reason.UNRECOGNIZED, sniff(write("blob", blob)));
+        assertNull(sniff(write("README", text("plain text without an extension\n"))));
+    }
+
+    @Test
+    void emptyFileIsLeftToTheExtractor() throws IOException {
+        assertNull(sniff(write("empty.pdf", new byte[0])));
+    }
+
+    private FileSniffer.Reason sniff(Path file) throws IOException {
+        return sniffer.sniff(file, Files.readAttributes(file, BasicFileAttributes.class));
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        return Files.write(tempDir.resolve(name), content);
+    }
+
+    private static byte[] text(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] zip(String... entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            for (String entry : entries) {
+                out.putNextEntry(new ZipEntry(entry));
+                out.write(text("content of " + entry));
+                out.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        outer:
+        for (int i = 0; i <= haystack.length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        throw new AssertionError("signature not found");
+    }
+}
@@ -0,0 +1,114 @@
+package com.docindex.extraction;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * .docindexignore 規則：錨定、只比對目錄、反向規則的順序與子目錄規則的覆寫
+ */
+class IgnoreRulesTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void unanchoredRuleMatchesAtAnyDepth() {
+        IgnoreRules rules = rules("*.log", "build");
+
+        assertTrue(rules.isIgnored(root.resolve("app.log"), false));
+        assertTrue(rules.isIgnored(root.resolve("a/b/c/app.log"), false));
+        assertTrue(rules.isIgnored(root.resolve("a/build"), true));
+        assertFalse(rules.isIgnored(root.resolve("app.log.txt"), false));
+        assertFalse(rules.isIgnored(root.resolve("a/builder"), true));
+    }
+
+    @Test
+    void leadingOrInnerSlashAnchorsTheRuleToItsDirectory() {
+        IgnoreRules rules = rules("/out", "docs/*.tmp");
+
+        assertTrue(rules.isIgnored(root.resolve("out"), true));
+        assertFalse(rules.isIgnored(root.resolve("a/out"), true));
+
+        assertTrue(rules.isIgnored(root.resolve("docs/draft.tmp"), false));
+        assertFalse(rules.isIgnored(root.resolve("a/docs/draft.tmp"), false));
+        // * 不跨越目錄
+        assertFalse(rules.isIgnored(root.resolve("docs/old/draft.tmp"), false));
+    }
+
+    @Test
+    void doubleStarSpansDirectories() {
+        IgnoreRules rules = rules("a/**/b");
+
+        assertTrue(rules.isIgnored(root.resolve("a/b"), false));
+        assertTrue(rules.isIgnored(root.resolve("a/x/y/b"), false));
+        assertFalse(rules.isIgnored(root.resolve("c/a/x/b"), false));
+    }
+
+    @Test
+    void trailingSlashMatchesOnlyDirectories() {
+        IgnoreRules rules = rules("cache/");
+
+        assertTrue(rules.isIgnored(root.resolve("cache"), true));
+        assertTrue(rules.isIgnored(root.resolve("a/cache"), true));
+        assertFalse(rules.isIgnored(root.resolve("cache"), false));
+    }
+
+    @Test
+    void laterRuleWinsWithinOneFile() {
+        IgnoreRules reinclude = rules("*.log", "!keep.log");
+        assertTrue(reinclude.isIgnored(root.resolve("other.log"), false));
+        assertFalse(reinclude.isIgnored(root.resolve("keep.log"), false));
+
+        // 反向規則寫在前面時會被後面的排除規則蓋過
+        IgnoreRules overridden = rules("!keep.log", "*.log");
+        assertTrue(overridden.isIgnored(root.resolve("keep.log"), false));
+    }
+
+    @Test
+    void commentsAndEscapesAreNotRules() {
+        IgnoreRules rules = rules("# *.txt", "\\#notes", "\\!important");
+
+        assertFalse(rules.isIgnored(root.resolve("readme.txt"), false));
+        assertTrue(rules.isIgnored(root.resolve("#notes"), false));
+        assertTrue(rules.isIgnored(root.resolve("!important"), false));
+    }
+
+    @Test
+    void nestedIgnoreFileOverridesTheParent() throws IOException {
+        Files.writeString(root.resolve(IgnoreRules.FILE_NAME), "*.tmp\n");
+        Path sub = Files.createDirectory(root.resolve("sub"));
+        Files.writeString(sub.resolve(IgnoreRules.FILE_NAME), "!important.tmp\n/local\n");
+
+        IgnoreRules top = IgnoreRules.forRoot(root, false, null, null);
+        IgnoreRules nested = top.forDirectory(sub);
+
+        assertTrue(nested.isIgnored(sub.resolve("other.tmp"), false));
+        assertFalse(nested.isIgnored(sub.resolve("important.tmp"), false));
+        assertTrue(top.isIgnored(root.resolve("important.tmp"), false));
+
+        // 子目錄的錨定規則以子目錄為基準
+        assertTrue(nested.isIgnored(sub.resolve("local"), true));
+        assertFalse(nested.isIgnored(sub.resolve("deeper/local"), true));
+    }
+
+    @Test
+    void directoryWithoutIgnoreFileKeepsTheParentRules() throws IOException {
+        Path sub = Files.createDirectory(root.resolve("plain"));
+        IgnoreRules top = rules("*.tmp");
+
+        assertSame(top, top.forDirectory(sub));
+    }
+
+    private IgnoreRules rules(String... globs) {
+        return IgnoreRules.forRoot(root, false, List.of(globs), null);
+    }
+}
@@ -0,0 +1,151 @@
+package com.docindex.extraction;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PDF 分頁提取的字元上限：單次與平行提取都只保留全文的前 maxChars 個字元
+ */
+class PdfPageExtractorTest {
+
+    private static final int PAGES = 12;
+    private static final int THREADS = 3;
+
+    @TempDir
+    Path tempDir;
+
+    private File pdf;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        pdf = tempDir.resolve("sample.pdf").toFile();
+        try (PDDocument document = new PDDocument()) {
+            for (int p = 1; p <= PAGES; p++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 12);
+                    content.setLeading(14);
+                    content.newLineAtOffset(50, 700);
+                    for (int line = 1; line <= 5; line++) {
+                        content.showText("page " + p + " line " + line + " lorem ipsum dolor sit amet");
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            document.save(pdf);
+        }
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void extractRangeRecordsEveryPage() throws IOException {
+        PdfPageExtractor.PageText pages;
+        try (PDDocument document = PdfPageExtractor.load(pdf, 0)) {
+            pages = PdfPageExtractor.extractRange(document, 1, PAGES, -1);
+        }
+
+        assertFalse(pages.truncated);
+        assertEquals(PAGES, pages.pageOffsets.length);
+        assertEquals(0, pages.pageOffsets[0]);
+        for (int p = 1; p <= PAGES; p++) {
+            assertTrue(pages.text.startsWith("page " + p + " line 1", pages.pageOffsets[p - 1]));
+        }
+    }
+
+    @Test
+    void extractRangeStopsAtTheLimit() throws IOException {
+        PdfPageExtractor.PageText full;
+        PdfPageExtractor.PageText limited;
+        try (PDDocument document = PdfPageExtractor.load(pdf, 0)) {
+            full = PdfPageExtractor.extractRange(document, 1, PAGES, -1);
+            limited = PdfPageExtractor.extractRange(document, 1, PAGES, 300);
+        }
+
+        assertTrue(limited.truncated);
+        assertEquals(300, limited.text.length());
+        assertEquals(full.text.substring(0, 300), limited.text);
+        // 沒有走到的頁面位移指向全文結尾
+        assertEquals(300, limited.pageOffsets[PAGES - 1]);
+    }
+
+    @Test
+    void parallelExtractionMatchesSingleRangeWithoutLimit() throws Exception {
+        PdfPageExtractor.PageText single;
+        try (PDDocument document = PdfPageExtractor.load(pdf, 0)) {
+            single = PdfPageExtractor.extractRange(document, 1, PAGES, -1);
+        }
+        PdfPageExtractor.PageText parallel = PdfPageExtractor.extractParallel(pdf, PAGES, pool, THREADS, -1);
+
+        assertFalse(parallel.truncated);
+        assertEquals(single.text, parallel.text);
+        assertArrayEquals(single.pageOffsets, parallel.pageOffsets);
+    }
+
+    @Test
+    void parallelExtractionKeepsExactlyTheFirstMaxChars() throws Exception {
+        PdfPageExtractor.PageText full = PdfPageExtractor.extractParallel(pdf, PAGES, pool, THREADS, -1);
+        int maxChars = full.text.length() / 3;
+
+        // 各範圍完成的先後每次不同，保留的文字量不能跟著改變
+        for (int run = 0; run < 20; run++) {
+            PdfPageExtractor.PageText limited = PdfPageExtractor.extractParallel(pdf, PAGES, pool, THREADS, maxChars);
+
+            assertTrue(limited.truncated);
+            assertEquals(maxChars, limited.text.length());
+            assertEquals(full.text.substring(0, maxChars), limited.text);
+            for (int p = 0; p < PAGES; p++) {
+                assertEquals(Math.min(full.pageOffsets[p], maxChars), limited.pageOffsets[p]);
+            }
+        }
+    }
+
+    @Test
+    void budgetShrinksOnlyByFinishedEarlierRanges() {
+        PdfPageExtractor.SharedBudget budget = new PdfPageExtractor.SharedBudget(10, 3);
+
+        assertEquals(10, budget.limit(2));
+        budget.completed(2, 10);
+        // 頁碼在後面的範圍不影響前面的範圍
+        assertEquals(10, budget.limit(0));
+        assertEquals(10, budget.limit(1));
+
+        budget.completed(0, 4);
+        assertEquals(6, budget.limit(1));
+        budget.completed(1, 8);
+        assertEquals(0, budget.limit(2));
+    }
+
+    @Test
+    void unlimitedBudgetHasNoLimit() {
+        PdfPageExtractor.SharedBudget budget = new PdfPageExtractor.SharedBudget(-1, 2);
+
+        budget.completed(0, 1_000_000);
+        assertEquals(-1, budget.limit(1));
+    }
+}
@@ -0,0 +1,58 @@
+package com.docindex.extraction;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 達到字元上限時寫入可容納的部分並丟出 LimitReachedException
+ */
+class StringBuilderWriterTest {
+
+    @Test
+    void unlimitedWriterKeepsEverything() throws IOException {
+        StringBuilder buffer = new StringBuilder();
+        StringBuilderWriter writer = new StringBuilderWriter(buffer);
+
+        writer.write("hello ");
+        writer.write("world".toCharArray());
+
+        assertEquals("hello world", buffer.toString());
+    }
+
+    @Test
+    void maxCharsKeepsThePrefixAndStops() throws IOException {
+        StringBuilder buffer = new StringBuilder();
+        StringBuilderWriter writer = new StringBuilderWriter(buffer, 8);
+
+        writer.write("hello ");
+        assertThrows(StringBuilderWriter.LimitReachedException.class, () -> writer.write("world"));
+        assertEquals("hello wo", buffer.toString());
+
+        // 已達上限後不再寫入
+        assertThrows(StringBuilderWriter.LimitReachedException.class, () -> writer.write("!".toCharArray()));
+        assertEquals("hello wo", buffer.toString());
+    }
+
+    @Test
+    void writersSharingABudgetStayWithinItTogether() throws IOException {
+        int[] remaining = {10};
+        StringBuilderWriter.Budget budget = len -> {
+            int granted = Math.min(len, remaining[0]);
+            remaining[0] -= granted;
+            return granted;
+        };
+        StringBuilder first = new StringBuilder();
+        StringBuilder second = new StringBuilder();
+
+        new StringBuilderWriter(first, budget).write("abcdef");
+        StringBuilderWriter other = new StringBuilderWriter(second, budget);
+        assertThrows(StringBuilderWriter.LimitReachedException.class, () -> other.write("ghijkl"));
+
+        assertEquals("abcdef", first.toString());
+        assertEquals("ghij", second.toString());
+    }
+}
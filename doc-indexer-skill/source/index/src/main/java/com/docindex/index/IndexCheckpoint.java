@@ -0,0 +1,117 @@
+package com.docindex.index;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 索引作業進度（存放在 Lucene 提交的使用者資料中）
+ *
+ * 每次 checkpoint 提交都會寫入目前的作業 ID、來源路徑、狀態與已索引數量。
+ * 最後一次提交的狀態不是 complete 時，表示上次作業中斷，可用 --resume 繼續。
+ */
+public class IndexCheckpoint {
+
+    public static final String STATUS_RUNNING = "running";
+    public static final String STATUS_INTERRUPTED = "interrupted";
+    public static final String STATUS_COMPLETE = "complete";
+
+    private static final String KEY_RUN_ID = "docindex.runId";
+    private static final String KEY_SOURCE = "docindex.source";
+    private static final String KEY_STATUS = "docindex.status";
+    private static final String KEY_FULL = "docindex.full";
+    private static final String KEY_STARTED_AT = "docindex.startedAt";
+    private static final String KEY_CHECKPOINT_AT = "docindex.checkpointAt";
+    private static final String KEY_INDEXED = "docindex.indexedCount";
+
+    private final String runId;
+    private final String source;
+    private final boolean full;
+    private final Instant startedAt;
+    private final int previousIndexed;
+    // 讀取時的狀態（新作業為 null）
+    private final String lastStatus;
+
+    private IndexCheckpoint(String runId, String source, boolean full, Instant startedAt, int previousIndexed,
+                            String lastStatus) {
+        this.runId = runId;
+        this.source = source;
+        this.full = full;
+        this.startedAt = startedAt;
+        this.previousIndexed = previousIndexed;
+        this.lastStatus = lastStatus;
+    }
+
+    /**
+     * 開始新的索引作業
+     */
+    public static IndexCheckpoint start(String source, boolean full) {
+        return new IndexCheckpoint(UUID.randomUUID().toString(), source, full, Instant.now(), 0, null);
+    }
+
+    /**
+     * 讀取索引最後一次提交的進度（索引不存在或沒有進度資料時回傳 null）
+     */
+    public static IndexCheckpoint read(Path indexPath) throws IOException {
+        Map<String, String> userData = LuceneIndexer.readCommitUserData(indexPath);
+        String runId = userData.get(KEY_RUN_ID);
+        if (runId == null) {
+            return null;
+        }
+        Instant startedAt;
+        try {
+            startedAt = Instant.parse(userData.get(KEY_STARTED_AT));
+        } catch (RuntimeException e) {
+            startedAt = Instant.now();
+        }
+        int indexed;
+        try {
+            indexed = Integer.parseInt(userData.get(KEY_INDEXED));
+        } catch (NumberFormatException e) {
+            indexed = 0;
+        }
+        return new IndexCheckpoint(runId, userData.get(KEY_SOURCE), Boolean.parseBoolean(userData.get(KEY_FULL)),
+            startedAt, indexed, userData.get(KEY_STATUS));
+    }
+
+    /**
+     * 上次作業是否未完成
+     */
+    public boolean isIncomplete() {
+        return lastStatus != null && !STATUS_COMPLETE.equals(lastStatus);
+    }
+
+    /**
+     * 延續中斷的作業（保留作業 ID 與累計數量）
+     */
+    public IndexCheckpoint resume() {
+        return new IndexCheckpoint(runId, source, full, startedAt, previousIndexed, null);
+    }
+
+    /**
+     * 產生提交使用者資料
+     *
+     * @param indexedThisRun 本次程序已索引的檔案數（會加上先前中斷作業的數量）
+     */
+    public Map<String, String> toUserData(String status, int indexedThisRun) {
+        Map<String, String> userData = new LinkedHashMap<>();
+        userData.put(KEY_RUN_ID, runId);
+        userData.put(KEY_SOURCE, source);
+        userData.put(KEY_STATUS, status);
+        userData.put(KEY_FULL, Boolean.toString(full));
+        userData.put(KEY_STARTED_AT, startedAt.toString());
+        userData.put(KEY_CHECKPOINT_AT, Instant.now().toString());
+        userData.put(KEY_INDEXED, Integer.toString(previousIndexed + indexedThisRun));
+        return userData;
+    }
+
+    public String getRunId() { return runId; }
+    public String getSource() { return source; }
+    public boolean isFull() { return full; }
+    public Instant getStartedAt() { return startedAt; }
+    public int getPreviousIndexed() { return previousIndexed; }
+    public String getLastStatus() { return lastStatus; }
+}
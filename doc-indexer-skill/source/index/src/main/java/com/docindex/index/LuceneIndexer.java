@@ -0,0 +1,831 @@
+package com.docindex.index;
+
+import com.docindex.core.ExtractionLimits;
+import com.docindex.model.DocumentInfo;
+import com.docindex.model.SearchResult;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
+import org.apache.lucene.codecs.lucene99.Lucene99Codec;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.*;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.*;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.LengthGoalBreakIterator;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.StringHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.text.BreakIterator;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Lucene 索引與搜尋服務
+ */
+public class LuceneIndexer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(LuceneIndexer.class);
+
+    // 索引全部內容，不限制長度；摘要由索引中儲存的前段原文與詞位移產生
+    // 上下文摘要長度
+    private static final int CONTEXT_LENGTH = 300;
+    // 儲存供摘要使用的原文長度上限（只在此範圍內找最佳段落）
+    private static final int STORED_TEXT_CHARS = 100_000;
+
+    // 每頁儲存的內容長度（用於匹配頁碼）
+    private static final int PAGE_HEAD_CHARS = 2000;
+
+    // 清除過期文件時每批刪除的數量
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    // 搜尋結果快取的查詢數（同一個 reader 內有效）
+    private static final int RESULT_CACHE_SIZE = 256;
+
+    // 欄位名稱常數
+    public static final String FIELD_ID = "id";
+    public static final String FIELD_FILE_PATH = "filePath";
+    public static final String FIELD_FILE_NAME = "fileName";
+    public static final String FIELD_CONTENT = "content";  // 舊版索引的內容欄位（沒有詞位移）
+    public static final String FIELD_TEXT = "text";        // 內容（含詞位移，並儲存前段原文）
+    public static final String FIELD_CONTENT_TYPE = "contentType";
+    public static final String FIELD_FILE_SIZE = "fileSize";
+    public static final String FIELD_LAST_MODIFIED = "lastModified";
+    public static final String FIELD_INDEXED_AT = "indexedAt";
+    public static final String FIELD_METADATA = "metadata";
+    public static final String FIELD_PAGE_COUNT = "pageCount";
+    public static final String FIELD_STORED_CONTENT = "storedContent";
+    public static final String FIELD_PAGE_CONTENTS = "pageContents";  // 分頁內容（用 |PAGE:n| 分隔）
+
+    // 多欄位搜尋的欄位與權重
+    // （同時查詢 content，重新索引前的舊文件仍可搜尋）
+    private static final String[] SEARCH_FIELDS = {FIELD_TEXT, FIELD_CONTENT, FIELD_FILE_NAME, FIELD_METADATA};
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(
+        FIELD_FILE_NAME, 3.0f,  // 檔名權重 x3
+        FIELD_TEXT, 1.0f,       // 內容權重 x1
+        FIELD_CONTENT, 1.0f,
+        FIELD_METADATA, 1.5f    // 元數據權重 x1.5
+    );
+
+    // 搜尋與列表結果需要的儲存欄位（不載入摘要用的原文）
+    private static final Set<String> RESULT_FIELDS = Set.of(
+        FIELD_ID, FIELD_FILE_PATH, FIELD_FILE_NAME, FIELD_CONTENT_TYPE, FIELD_FILE_SIZE, FIELD_LAST_MODIFIED,
+        FIELD_INDEXED_AT, FIELD_PAGE_COUNT, FIELD_PAGE_CONTENTS, FIELD_METADATA + "_" + ExtractionLimits.METADATA_KEY);
+
+    // 內容欄位：記錄詞位移，摘要直接由位移定位，不需重新分詞
+    private static final FieldType TEXT_WITH_OFFSETS = new FieldType(TextField.TYPE_NOT_STORED);
+    static {
+        TEXT_WITH_OFFSETS.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        TEXT_WITH_OFFSETS.freeze();
+    }
+
+    private final Directory directory;
+    // 第一次寫入或解析查詢時才建立（載入分詞詞典），list / stats 不需要
+    private volatile Analyzer analyzer;
+    private volatile IndexWriter indexWriter;
+    private SearcherManager searcherManager;
+    // searcherManager 是否由 IndexWriter 開啟（近即時）；兩種都由擁有者呼叫 refreshSearcher() 重新整理
+    private boolean nrtSearcher;
+
+    // 搜尋結果快取：查詢 → 結果，reader 改變（有新的提交或重新整理）時清空
+    private final Map<String, List<SearchResult>> resultCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<SearchResult>> eldest) {
+            return size() > RESULT_CACHE_SIZE;
+        }
+    };
+    // 快取結果所屬 reader 的快取鍵（不持有 reader 本身，管理員換新後舊的 reader 可以釋放）
+    private IndexReader.CacheKey resultCacheKey;
+
+    public LuceneIndexer(Path indexPath) throws IOException {
+        this.directory = FSDirectory.open(indexPath);
+    }
+
+    /**
+     * 取得分析器
+     */
+    private Analyzer analyzer() {
+        Analyzer result = analyzer;
+        if (result == null) {
+            synchronized (this) {
+                result = analyzer;
+                if (result == null) {
+                    // 使用 SmartChineseAnalyzer 進行中文分詞
+                    result = new SmartChineseAnalyzer();
+                    analyzer = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 檢查索引目錄中是否已有索引
+     */
+    public static boolean indexExists(Path indexPath) throws IOException {
+        try (Directory dir = FSDirectory.open(indexPath)) {
+            return DirectoryReader.indexExists(dir);
+        }
+    }
+
+    /**
+     * 開啟索引寫入器
+     *
+     * IndexWriter 本身是執行緒安全的，開啟後可由多個索引執行緒同時呼叫 indexDocument。
+     */
+    public synchronized void openWriter() throws IOException {
+        if (indexWriter != null) {
+            return;
+        }
+        IndexWriterConfig config = new IndexWriterConfig(analyzer());
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        // 多執行緒同時寫入時加大緩衝，減少小 segment flush
+        config.setRAMBufferSizeMB(64);
+        // 儲存欄位以 DEFLATE 壓縮（摘要用的原文佔大部分儲存空間）
+        config.setCodec(new Lucene99Codec(Lucene99Codec.Mode.BEST_COMPRESSION));
+        this.indexWriter = new IndexWriter(directory, config);
+    }
+
+    /**
+     * 索引單一文件
+     */
+    public void indexDocument(DocumentInfo docInfo) throws IOException {
+        ensureWriter();
+
+        Document doc = new Document();
+
+        // ID (用於更新/刪除)
+        doc.add(new StringField(FIELD_ID, docInfo.getId(), Field.Store.YES));
+
+        // 檔案路徑 (精確匹配)
+        doc.add(new StringField(FIELD_FILE_PATH, docInfo.getFilePath(), Field.Store.YES));
+
+        // 檔案名稱 (可搜尋)
+        doc.add(new TextField(FIELD_FILE_NAME, docInfo.getFileName(), Field.Store.YES));
+
+        // 內容 (全文搜尋) - 索引全部內容，不限制長度
+        // 全文以 Reader 交給 Lucene，不組成 String；先讀一遍收集要儲存的前段原文與每頁開頭
+        Reader contentReader = null;
+        if (docInfo.getContentLength() > 0) {
+            ContentSummary summary = new ContentSummary(docInfo.getPageOffsets(), PAGE_HEAD_CHARS);
+            try (Reader in = docInfo.openContent()) {
+                summary.read(in);
+            }
+            contentReader = docInfo.openContent();
+            // 索引完整內容（不限制長度），記錄詞位移
+            doc.add(new Field(FIELD_TEXT, contentReader, TEXT_WITH_OFFSETS));
+            // 儲存前段原文供摘要使用（與索引內容同一起點，位移可直接對應）
+            doc.add(new StoredField(FIELD_TEXT, summary.storedPrefix()));
+            if (summary.pageData() != null) {
+                doc.add(new StoredField(FIELD_PAGE_CONTENTS, summary.pageData()));
+            }
+        } else if (docInfo.getStoredPageCount() > 0) {
+            // 沒有內容但有分頁資訊：每頁皆為空
+            doc.add(new StoredField(FIELD_PAGE_CONTENTS,
+                new ContentSummary(docInfo.getPageOffsets(), PAGE_HEAD_CHARS).pageData()));
+        }
+
+        // 頁數
+        String pageCount = docInfo.getMetadata("pageCount");
+        if (pageCount != null && !pageCount.isEmpty()) {
+            try {
+                int pages = Integer.parseInt(pageCount);
+                doc.add(new IntPoint(FIELD_PAGE_COUNT, pages));
+                doc.add(new StoredField(FIELD_PAGE_COUNT, pages));
+            } catch (NumberFormatException e) {
+                // 忽略無效的頁數
+            }
+        }
+
+        // 內容類型
+        if (docInfo.getContentType() != null) {
+            doc.add(new StringField(FIELD_CONTENT_TYPE, docInfo.getContentType(), Field.Store.YES));
+        }
+
+        // 檔案大小
+        doc.add(new LongPoint(FIELD_FILE_SIZE, docInfo.getFileSize()));
+        doc.add(new StoredField(FIELD_FILE_SIZE, docInfo.getFileSize()));
+
+        // 時間戳記
+        if (docInfo.getLastModified() != null) {
+            doc.add(new LongPoint(FIELD_LAST_MODIFIED, docInfo.getLastModified().toEpochMilli()));
+            doc.add(new StoredField(FIELD_LAST_MODIFIED, docInfo.getLastModified().toString()));
+        }
+
+        if (docInfo.getIndexedAt() != null) {
+            doc.add(new StoredField(FIELD_INDEXED_AT, docInfo.getIndexedAt().toString()));
+        }
+
+        // 元數據 (JSON 格式儲存)
+        if (docInfo.getMetadata() != null && !docInfo.getMetadata().isEmpty()) {
+            for (Map.Entry<String, String> entry : docInfo.getMetadata().entrySet()) {
+                doc.add(new StoredField(FIELD_METADATA + "_" + entry.getKey(), entry.getValue()));
+                // 也加入可搜尋欄位
+                doc.add(new TextField(FIELD_METADATA, entry.getValue(), Field.Store.NO));
+            }
+        }
+
+        // 使用 updateDocument 來處理重複文件
+        try {
+            indexWriter.updateDocument(new Term(FIELD_ID, docInfo.getId()), doc);
+        } finally {
+            if (contentReader != null) {
+                contentReader.close();
+            }
+        }
+        logger.info("Indexed document: {}", docInfo.getFileName());
+    }
+
+    /**
+     * 批次索引
+     */
+    public int indexDocuments(List<DocumentInfo> documents) throws IOException {
+        int count = 0;
+        for (DocumentInfo doc : documents) {
+            try {
+                indexDocument(doc);
+                count++;
+            } catch (Exception e) {
+                logger.error("Failed to index document: {}", doc.getFilePath(), e);
+            }
+        }
+        commit();
+        return count;
+    }
+
+    /**
+     * 刪除文件索引
+     */
+    public void deleteDocument(String documentId) throws IOException {
+        ensureWriter();
+        indexWriter.deleteDocuments(new Term(FIELD_ID, documentId));
+    }
+
+    /**
+     * 清除過期文件
+     *
+     * 依序走訪 filePath 欄位的詞彙（不載入全部文件），對位於 pathPrefix 之下的路徑呼叫 isStale，
+     * 判定為過期者分批刪除。pathPrefix 為空字串時檢查整個索引。
+     *
+     * @return 刪除的文件數
+     */
+    public int deleteStaleDocuments(String pathPrefix, Predicate<String> isStale) throws IOException {
+        ensureWriter();
+
+        int removed = 0;
+        List<Term> batch = new ArrayList<>();
+        String dirPrefix = pathPrefix.endsWith(File.separator) ? pathPrefix : pathPrefix + File.separator;
+        BytesRef prefixBytes = new BytesRef(pathPrefix);
+
+        // 從 writer 開啟 NRT reader，才能看到本次尚未提交的新增文件
+        try (DirectoryReader reader = DirectoryReader.open(indexWriter)) {
+            Terms terms = MultiTerms.getTerms(reader, FIELD_FILE_PATH);
+            if (terms == null) {
+                return 0;
+            }
+            Bits liveDocs = MultiBits.getLiveDocs(reader);
+
+            TermsEnum termsEnum = terms.iterator();
+            if (termsEnum.seekCeil(prefixBytes) == TermsEnum.SeekStatus.END) {
+                return 0;
+            }
+
+            PostingsEnum postings = null;
+            do {
+                BytesRef term = termsEnum.term();
+                if (!StringHelper.startsWith(term, prefixBytes)) {
+                    break;
+                }
+
+                String filePath = term.utf8ToString();
+                // 排除 /a/bc 這類只是字串前綴相同的路徑
+                if (!pathPrefix.isEmpty() && !filePath.equals(pathPrefix) && !filePath.startsWith(dirPrefix)) {
+                    continue;
+                }
+
+                // 已刪除但尚未合併的文件仍會留在詞典中
+                postings = termsEnum.postings(postings, PostingsEnum.NONE);
+                if (!hasLiveDoc(postings, liveDocs)) {
+                    continue;
+                }
+
+                if (isStale.test(filePath)) {
+                    batch.add(new Term(FIELD_FILE_PATH, BytesRef.deepCopyOf(term)));
+                    if (batch.size() >= DELETE_BATCH_SIZE) {
+                        indexWriter.deleteDocuments(batch.toArray(new Term[0]));
+                        removed += batch.size();
+                        batch.clear();
+                    }
+                }
+            } while (termsEnum.next() != null);
+        }
+
+        if (!batch.isEmpty()) {
+            indexWriter.deleteDocuments(batch.toArray(new Term[0]));
+            removed += batch.size();
+        }
+
+        logger.info("Removed {} stale documents under {}", removed, pathPrefix.isEmpty() ? "(all)" : pathPrefix);
+        return removed;
+    }
+
+    private static boolean hasLiveDoc(PostingsEnum postings, Bits liveDocs) throws IOException {
+        int doc;
+        while ((doc = postings.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+            if (liveDocs == null || liveDocs.get(doc)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 搜尋文件
+     */
+    public List<SearchResult> search(String queryString, int maxResults) throws Exception {
+        List<SearchResult> results = new ArrayList<>();
+
+        SearcherManager manager = searcherManager();
+        IndexSearcher searcher = acquireSearcher(manager);
+        try {
+            // 同一個 reader 上重複的查詢直接回傳先前的結果
+            String cacheKey = maxResults + "\u0000" + queryString;
+            List<SearchResult> cached = cachedResults(searcher.getIndexReader(), cacheKey);
+            if (cached != null) {
+                return copyResults(cached);
+            }
+
+            // 多欄位搜尋，設定欄位權重
+            MultiFieldQueryParser parser = new MultiFieldQueryParser(SEARCH_FIELDS, analyzer(), FIELD_BOOSTS);
+            parser.setDefaultOperator(QueryParser.Operator.OR);
+
+            Query query = parser.parse(queryString);
+            TopDocs topDocs = searcher.search(query, maxResults);
+            String[] snippets = highlight(searcher, query, topDocs);
+
+            for (int i = 0; i < topDocs.scoreDocs.length; i++) {
+                ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+                Document doc = searcher.storedFields().document(scoreDoc.doc, RESULT_FIELDS);
+                SearchResult result = new SearchResult();
+
+                result.setDocumentId(doc.get(FIELD_ID));
+                result.setFilePath(doc.get(FIELD_FILE_PATH));
+                result.setFileName(doc.get(FIELD_FILE_NAME));
+                result.setContentType(doc.get(FIELD_CONTENT_TYPE));
+                result.setScore(scoreDoc.score);
+
+                // 檔案大小
+                IndexableField fileSizeField = doc.getField(FIELD_FILE_SIZE);
+                if (fileSizeField != null) {
+                    result.setFileSize(fileSizeField.numericValue().longValue());
+                }
+
+                // 修改日期
+                result.setLastModified(doc.get(FIELD_LAST_MODIFIED));
+
+                // 索引日期
+                result.setIndexedAt(doc.get(FIELD_INDEXED_AT));
+
+                // 頁數
+                IndexableField pageCountField = doc.getField(FIELD_PAGE_COUNT);
+                if (pageCountField != null) {
+                    result.setPageCount(pageCountField.numericValue().intValue());
+                }
+
+                // 提取時達到上限
+                result.setTruncated(doc.get(FIELD_METADATA + "_" + ExtractionLimits.METADATA_KEY));
+
+                // 摘要（重新索引前的舊文件沒有儲存原文，為 null）
+                result.setSnippet(snippets[i]);
+
+                // 找出匹配的頁碼
+                String pageContents = doc.get(FIELD_PAGE_CONTENTS);
+                if (pageContents != null) {
+                    List<Integer> matchedPages = findMatchedPages(pageContents, queryString);
+                    result.setMatchedPages(matchedPages);
+                }
+
+                results.add(result);
+            }
+            cacheResults(searcher.getIndexReader(), cacheKey, results);
+        } finally {
+            releaseSearcher(manager, searcher);
+        }
+
+        return copyResults(results);
+    }
+
+    /**
+     * 取得所有已索引的文件
+     */
+    public List<SearchResult> listAllDocuments(int maxResults) throws IOException {
+        List<SearchResult> results = new ArrayList<>();
+
+        SearcherManager manager = searcherManager();
+        IndexSearcher searcher = acquireSearcher(manager);
+        try {
+            TopDocs topDocs = searcher.search(new MatchAllDocsQuery(), maxResults);
+
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                Document doc = searcher.storedFields().document(scoreDoc.doc, RESULT_FIELDS);
+                SearchResult result = new SearchResult();
+
+                result.setDocumentId(doc.get(FIELD_ID));
+                result.setFilePath(doc.get(FIELD_FILE_PATH));
+                result.setFileName(doc.get(FIELD_FILE_NAME));
+                result.setContentType(doc.get(FIELD_CONTENT_TYPE));
+                result.setScore(scoreDoc.score);
+
+                // 檔案大小
+                IndexableField fileSizeField = doc.getField(FIELD_FILE_SIZE);
+                if (fileSizeField != null) {
+                    result.setFileSize(fileSizeField.numericValue().longValue());
+                }
+
+                // 修改日期
+                result.setLastModified(doc.get(FIELD_LAST_MODIFIED));
+
+                // 頁數
+                IndexableField pageCountField = doc.getField(FIELD_PAGE_COUNT);
+                if (pageCountField != null) {
+                    result.setPageCount(pageCountField.numericValue().intValue());
+                }
+
+                // 提取時達到上限
+                result.setTruncated(doc.get(FIELD_METADATA + "_" + ExtractionLimits.METADATA_KEY));
+
+                results.add(result);
+            }
+        } finally {
+            releaseSearcher(manager, searcher);
+        }
+
+        return results;
+    }
+
+    /**
+     * 取得索引統計資訊
+     */
+    public Map<String, Object> getStats() throws IOException {
+        Map<String, Object> stats = new HashMap<>();
+
+        SearcherManager manager = searcherManager();
+        IndexSearcher searcher = acquireSearcher(manager);
+        try {
+            IndexReader reader = searcher.getIndexReader();
+            stats.put("totalDocuments", reader.numDocs());
+            stats.put("deletedDocuments", reader.numDeletedDocs());
+            stats.put("maxDocuments", reader.maxDoc());
+        } finally {
+            releaseSearcher(manager, searcher);
+        }
+
+        return stats;
+    }
+
+    /**
+     * 取得搜尋器管理員，尚未開啟時開啟唯讀的管理員（之後的呼叫重複使用同一個 reader）
+     */
+    private synchronized SearcherManager searcherManager() throws IOException {
+        if (searcherManager == null) {
+            searcherManager = new SearcherManager(directory, null);
+            nrtSearcher = false;
+        }
+        return searcherManager;
+    }
+
+    /**
+     * 借用搜尋器（不檢查新的提交，由擁有者呼叫 refreshSearcher() 決定重新整理時機）
+     */
+    private static IndexSearcher acquireSearcher(SearcherManager manager) throws IOException {
+        return manager.acquire();
+    }
+
+    private static void releaseSearcher(SearcherManager manager, IndexSearcher searcher) throws IOException {
+        manager.release(searcher);
+    }
+
+    /**
+     * 取得快取的搜尋結果（reader 已改變時清空快取並回傳 null）
+     */
+    private List<SearchResult> cachedResults(IndexReader reader, String key) {
+        IndexReader.CacheKey readerKey = cacheKey(reader);
+        synchronized (resultCache) {
+            if (readerKey == null || resultCacheKey != readerKey) {
+                resultCache.clear();
+                resultCacheKey = readerKey;
+                return null;
+            }
+            return resultCache.get(key);
+        }
+    }
+
+    private void cacheResults(IndexReader reader, String key, List<SearchResult> results) {
+        IndexReader.CacheKey readerKey = cacheKey(reader);
+        synchronized (resultCache) {
+            if (readerKey != null && resultCacheKey == readerKey) {
+                resultCache.put(key, results);
+            }
+        }
+    }
+
+    /**
+     * reader 的快取鍵（不支援快取的 reader 回傳 null，不快取結果）
+     */
+    private static IndexReader.CacheKey cacheKey(IndexReader reader) {
+        IndexReader.CacheHelper helper = reader.getReaderCacheHelper();
+        return helper != null ? helper.getKey() : null;
+    }
+
+    /**
+     * 複製結果（呼叫端會填入摘要，不可修改快取中的物件）
+     */
+    private static List<SearchResult> copyResults(List<SearchResult> results) {
+        List<SearchResult> copies = new ArrayList<>(results.size());
+        for (SearchResult result : results) {
+            copies.add(result.copy());
+        }
+        return copies;
+    }
+
+    /**
+     * 以詞位移從儲存的原文找出最佳段落作為摘要（與 scoreDocs 順序對應，沒有原文的文件為 null）
+     */
+    private String[] highlight(IndexSearcher searcher, Query query, TopDocs topDocs) throws IOException {
+        if (topDocs.scoreDocs.length == 0) {
+            return new String[0];
+        }
+        UnifiedHighlighter highlighter = UnifiedHighlighter.builder(searcher, analyzer())
+            .withMaxLength(STORED_TEXT_CHARS)
+            .withBreakIterator(() -> LengthGoalBreakIterator.createClosestToLength(
+                BreakIterator.getSentenceInstance(Locale.ROOT), CONTEXT_LENGTH))
+            // 不加標記，關鍵字高亮由 CLI 處理
+            .withFormatter(new DefaultPassageFormatter("", "", "...", false))
+            .build();
+        String[] snippets = highlighter.highlight(FIELD_TEXT, query, topDocs, 1);
+        for (int i = 0; i < snippets.length; i++) {
+            if (snippets[i] != null) {
+                snippets[i] = snippets[i].replaceAll("\\s+", " ").trim();
+            }
+        }
+        return snippets;
+    }
+
+    /**
+     * 逐段讀取全文，收集摘要用的前段原文與每頁開頭（與 DocumentInfo.getPage 相同：去除前後空白後截斷）
+     */
+    private static final class ContentSummary {
+        private final int[] pageOffsets;
+        private final int maxPageChars;
+        private final StringBuilder prefix = new StringBuilder();
+        private final StringBuilder pageData;
+        private final StringBuilder head = new StringBuilder();
+        private boolean truncated;     // 全文超過 STORED_TEXT_CHARS
+        private int page = -1;         // 目前所在頁（-1 表示第一頁之前）
+        private boolean moreText;      // 目前頁在 head 之後仍有非空白字元
+        private int position;
+        private boolean finished;
+
+        ContentSummary(int[] pageOffsets, int maxPageChars) {
+            this.pageOffsets = pageOffsets;
+            this.maxPageChars = maxPageChars;
+            this.pageData = pageOffsets != null && pageOffsets.length > 0 ? new StringBuilder() : null;
+        }
+
+        void read(Reader in) throws IOException {
+            char[] buf = new char[8192];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                for (int i = 0; i < n; i++) {
+                    accept(buf[i]);
+                }
+            }
+        }
+
+        private void accept(char c) {
+            if (prefix.length() < STORED_TEXT_CHARS) {
+                prefix.append(c);
+            } else {
+                truncated = true;
+            }
+            if (pageData != null) {
+                while (page + 1 < pageOffsets.length && position >= pageOffsets[page + 1]) {
+                    nextPage();
+                }
+                if (page >= 0) {
+                    if (head.length() < maxPageChars) {
+                        // 略過頁首空白
+                        if (head.length() > 0 || !Character.isWhitespace(c)) {
+                            head.append(c);
+                        }
+                    } else if (!Character.isWhitespace(c)) {
+                        moreText = true;
+                    }
+                }
+            }
+            position++;
+        }
+
+        private void nextPage() {
+            if (page >= 0) {
+                endPage();
+            }
+            page++;
+            head.setLength(0);
+            moreText = false;
+        }
+
+        private void endPage() {
+            // 頁尾空白在截斷前去除：head 之後沒有其他文字時才去掉 head 結尾的空白
+            int end = head.length();
+            if (!moreText) {
+                while (end > 0 && Character.isWhitespace(head.charAt(end - 1))) {
+                    end--;
+                }
+            }
+            pageData.append("|PAGE:").append(page + 1).append("|");
+            pageData.append(head, 0, end);
+        }
+
+        /**
+         * 摘要用的前段原文（不截斷代理對）
+         */
+        String storedPrefix() {
+            int end = prefix.length();
+            if (truncated && end > 0 && Character.isHighSurrogate(prefix.charAt(end - 1))) {
+                end--;
+            }
+            return prefix.substring(0, end);
+        }
+
+        /**
+         * 分頁內容（用 |PAGE:n| 分隔；沒有分頁資訊時為 null）
+         */
+        String pageData() {
+            if (pageData == null) {
+                return null;
+            }
+            if (!finished) {
+                // 剩下的頁（包括位移超出全文長度的頁）
+                while (page + 1 < pageOffsets.length) {
+                    nextPage();
+                }
+                endPage();
+                finished = true;
+            }
+            return pageData.toString();
+        }
+    }
+
+    /**
+     * 找出匹配的頁碼
+     */
+    private List<Integer> findMatchedPages(String pageContents, String query) {
+        List<Integer> matchedPages = new ArrayList<>();
+        String[] queryTerms = query.toLowerCase().split("\\s+");
+
+        // 解析分頁內容
+        String[] parts = pageContents.split("\\|PAGE:");
+        for (String part : parts) {
+            if (part.isEmpty()) continue;
+
+            int pipePos = part.indexOf('|');
+            if (pipePos == -1) continue;
+
+            try {
+                int pageNum = Integer.parseInt(part.substring(0, pipePos));
+                String pageText = part.substring(pipePos + 1).toLowerCase();
+
+                // 檢查每個查詢詞是否在此頁出現
+                for (String term : queryTerms) {
+                    String cleanTerm = term.replaceAll("[^\\p{L}\\p{N}]", "");
+                    if (!cleanTerm.isEmpty() && pageText.contains(cleanTerm)) {
+                        if (!matchedPages.contains(pageNum)) {
+                            matchedPages.add(pageNum);
+                        }
+                        break;
+                    }
+                }
+            } catch (NumberFormatException e) {
+                // 忽略解析錯誤
+            }
+        }
+
+        Collections.sort(matchedPages);
+        return matchedPages;
+    }
+
+    private void ensureWriter() throws IOException {
+        if (indexWriter == null) {
+            openWriter();
+        }
+    }
+
+    /**
+     * 取得近即時（NRT）搜尋器管理員
+     *
+     * 由 IndexWriter 開啟，呼叫 refreshSearcher() 後即可看到尚未提交的變更
+     * （不會在每次搜尋時自動重新整理，開啟近即時 reader 需要先寫出記憶體中的文件）。
+     * 先前已開啟唯讀的管理員時改為近即時的管理員。
+     */
+    public synchronized SearcherManager getSearcherManager() throws IOException {
+        if (searcherManager != null && !nrtSearcher) {
+            // 借出中的搜尋器仍可使用，歸還時才釋放舊的 reader
+            searcherManager.close();
+            searcherManager = null;
+        }
+        if (searcherManager == null) {
+            ensureWriter();
+            searcherManager = new SearcherManager(indexWriter, null);
+            nrtSearcher = true;
+        }
+        return searcherManager;
+    }
+
+    /**
+     * 開啟唯讀的搜尋器管理員（常駐搜尋服務使用）
+     *
+     * 直接由目錄開啟，不取得寫入鎖，index 與 watch 可以同時寫入；
+     * 之後的 search / listAllDocuments / getStats 重複使用同一個 reader，
+     * 呼叫 refreshSearcher() 後才會看到新的提交（常駐服務定期呼叫，每次查詢不需列出索引目錄）。
+     * 第一次搜尋時也會自動開啟，這裡提前開啟以便及早發現索引錯誤。
+     */
+    public SearcherManager openSearcher() throws IOException {
+        return searcherManager();
+    }
+
+    /**
+     * 重新整理搜尋器，讓新的變更可被搜尋（無變更時不會重新開啟）
+     */
+    public void refreshSearcher() throws IOException {
+        SearcherManager manager;
+        synchronized (this) {
+            manager = searcherManager;
+        }
+        if (manager != null) {
+            manager.maybeRefresh();
+        }
+    }
+
+    /**
+     * 提交變更
+     */
+    public void commit() throws IOException {
+        if (indexWriter != null) {
+            indexWriter.commit();
+        }
+    }
+
+    /**
+     * 提交變更並寫入提交使用者資料（即使沒有文件變更也會產生新的提交點）
+     */
+    public void commit(Map<String, String> userData) throws IOException {
+        ensureWriter();
+        indexWriter.setLiveCommitData(new HashMap<>(userData).entrySet());
+        indexWriter.commit();
+    }
+
+    /**
+     * 讀取最後一次提交的使用者資料（索引不存在時回傳空 Map）
+     */
+    public static Map<String, String> readCommitUserData(Path indexPath) throws IOException {
+        try (Directory dir = FSDirectory.open(indexPath)) {
+            if (!DirectoryReader.indexExists(dir)) {
+                return Collections.emptyMap();
+            }
+            return SegmentInfos.readLatestCommit(dir).getUserData();
+        }
+    }
+
+    /**
+     * 清除所有索引
+     */
+    public void clearIndex() throws IOException {
+        ensureWriter();
+        indexWriter.deleteAll();
+        indexWriter.commit();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (searcherManager != null) {
+            searcherManager.close();
+        }
+        if (indexWriter != null) {
+            indexWriter.close();
+        }
+        if (analyzer != null) {
+            analyzer.close();
+        }
+        directory.close();
+    }
+}
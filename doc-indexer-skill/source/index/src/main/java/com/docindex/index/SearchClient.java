@@ -0,0 +1,157 @@
+package com.docindex.index;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 常駐搜尋服務的用戶端
+ *
+ * 依索引目錄中的 serve.json 找到執行中的 SearchServer，以 HTTP 送出 JSON-RPC 請求。
+ * 找不到服務或連線失敗時由呼叫端改在本程序執行（不需要事先確認服務是否存在）。
+ */
+public class SearchClient {
+
+    // 本機連線應立即建立，逾時代表服務已無回應
+    private static final int CONNECT_TIMEOUT_MILLIS = 500;
+    private static final int READ_TIMEOUT_MILLIS = 120_000;
+
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    /**
+     * 服務回傳的 JSON-RPC 錯誤（例如查詢語法錯誤），與連線失敗區分
+     */
+    public static final class RemoteException extends Exception {
+        private final int code;
+
+        RemoteException(int code, String message) {
+            super(message);
+            this.code = code;
+        }
+
+        public int getCode() {
+            return code;
+        }
+    }
+
+    private final long pid;
+    private final int port;
+    private final String token;
+
+    private SearchClient(long pid, int port, String token) {
+        this.pid = pid;
+        this.port = port;
+        this.token = token;
+    }
+
+    /**
+     * 取得索引目錄的常駐服務；沒有 serve.json 或服務程序已結束時回傳 null
+     */
+    public static SearchClient find(Path indexPath) {
+        try {
+            SearchClient client = read(indexPath.resolve(SearchServer.DISCOVERY_FILE));
+            if (client == null || !ProcessHandle.of(client.pid).map(ProcessHandle::isAlive).orElse(false)) {
+                return null;
+            }
+            return client;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 讀取服務資訊檔（檔案不存在或內容不完整時回傳 null）
+     */
+    static SearchClient read(Path file) throws IOException {
+        String json;
+        try {
+            json = Files.readString(file, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        try {
+            JsonObject info = JsonParser.parseString(json).getAsJsonObject();
+            if (!info.has("pid") || !info.has("port") || !info.has("token")) {
+                return null;
+            }
+            return new SearchClient(info.get("pid").getAsLong(), info.get("port").getAsInt(),
+                info.get("token").getAsString());
+        } catch (JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    public long getPid() {
+        return pid;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * 呼叫服務方法，回傳 result
+     *
+     * @throws IOException     無法連線或回應不正確（呼叫端應改在本程序執行）
+     * @throws RemoteException 服務回傳錯誤
+     */
+    public JsonElement call(String method, JsonObject params) throws IOException, RemoteException {
+        JsonObject request = new JsonObject();
+        request.addProperty("jsonrpc", "2.0");
+        request.addProperty("id", NEXT_ID.getAndIncrement());
+        request.addProperty("method", method);
+        request.add("params", params != null ? params : new JsonObject());
+        byte[] body = request.toString().getBytes(StandardCharsets.UTF_8);
+
+        HttpURLConnection connection = (HttpURLConnection)
+            new URL("http", "127.0.0.1", port, SearchServer.RPC_PATH).openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+            connection.setRequestProperty("Authorization", "Bearer " + token);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+
+            int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Search daemon returned HTTP " + status);
+            }
+            JsonObject response;
+            try (InputStream in = connection.getInputStream()) {
+                response = JsonParser.parseString(new String(in.readAllBytes(), StandardCharsets.UTF_8)).getAsJsonObject();
+            } catch (JsonParseException | IllegalStateException e) {
+                throw new IOException("Invalid response from search daemon", e);
+            }
+
+            if (response.has("error") && response.get("error").isJsonObject()) {
+                JsonObject error = response.getAsJsonObject("error");
+                throw new RemoteException(error.has("code") ? error.get("code").getAsInt() : SearchServer.SERVER_ERROR,
+                    error.has("message") && error.get("message").isJsonPrimitive()
+                        ? error.get("message").getAsString() : "Unknown error");
+            }
+            if (!response.has("result")) {
+                throw new IOException("Invalid response from search daemon");
+            }
+            return response.get("result");
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.docindex.index;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 常駐搜尋服務：以 JSON-RPC 2.0 提供 search / list / stats / read
+ *
+ * 兩種通道：
+ * - HTTP：只綁定 127.0.0.1（預設隨機埠），POST /rpc，需帶 serve.json 中的 token；
+ *   啟動後在索引目錄寫入 serve.json（pid、埠號、token，只有擁有者可讀），CLI 據此改用常駐服務
+ * - stdio：每行一個請求、每行一個回應，適合由呼叫端直接持有子程序
+ *
+ * 方法的參數與結果與對應命令的選項與 --json 輸出相同，另有 ping 與 shutdown。
+ */
+public class SearchServer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(SearchServer.class);
+
+    /** 索引目錄中的服務資訊檔 */
+    public static final String DISCOVERY_FILE = "serve.json";
+    /** HTTP 請求路徑 */
+    public static final String RPC_PATH = "/rpc";
+
+    // JSON-RPC 錯誤碼
+    static final int PARSE_ERROR = -32700;
+    static final int INVALID_REQUEST = -32600;
+    public static final int METHOD_NOT_FOUND = -32601;
+    static final int INVALID_PARAMS = -32602;
+    static final int SERVER_ERROR = -32000;
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private final SearchService service;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final AtomicInteger active = new AtomicInteger();
+    private volatile long lastRequestNanos = System.nanoTime();
+
+    private HttpServer http;
+    private ExecutorService httpPool;
+    private Path discoveryFile;
+    private String token;
+
+    public SearchServer(SearchService service) {
+        this.service = service;
+    }
+
+    /**
+     * 啟動 HTTP 通道並寫入 serve.json
+     *
+     * @param port    綁定的埠號（0 表示隨機）
+     * @param threads 同時處理的請求數
+     */
+    public void startHttp(int port, int threads) throws IOException {
+        token = HexFormat.of().formatHex(randomBytes(16));
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        AtomicInteger counter = new AtomicInteger();
+        httpPool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "serve-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        http.setExecutor(httpPool);
+        http.createContext(RPC_PATH, this::handleHttp);
+        http.start();
+
+        discoveryFile = service.getIndexPath().resolve(DISCOVERY_FILE);
+        writeDiscoveryFile(discoveryFile, getPort(), token);
+    }
+
+    public int getPort() {
+        return http.getAddress().getPort();
+    }
+
+    /**
+     * 以 stdin/stdout 處理請求，直到輸入結束或收到 shutdown
+     */
+    public void serveStdio(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        String line;
+        while (!isStopped() && (line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonObject response = handle(line);
+            // 沒有 id 的通知不回應
+            if (response != null) {
+                writer.write(GSON.toJson(response));
+                writer.newLine();
+                writer.flush();
+            }
+        }
+        stop();
+    }
+
+    /**
+     * 等待 shutdown 請求，或閒置超過 idleMillis（0 表示不限）後返回
+     */
+    public void awaitShutdown(long idleMillis) throws InterruptedException {
+        while (!stopped.await(1, TimeUnit.SECONDS)) {
+            if (idleMillis > 0 && active.get() == 0
+                    && System.nanoTime() - lastRequestNanos > TimeUnit.MILLISECONDS.toNanos(idleMillis)) {
+                logger.info("Idle for {} ms, stopping", idleMillis);
+                return;
+            }
+        }
+    }
+
+    public void stop() {
+        stopped.countDown();
+    }
+
+    public boolean isStopped() {
+        return stopped.getCount() == 0;
+    }
+
+    private void handleHttp(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String auth = exchange.getRequestHeaders().getFirst("Authorization");
+            // 固定時間比較，不從回應時間洩漏 token 內容
+            if (auth == null || !MessageDigest.isEqual(auth.getBytes(StandardCharsets.UTF_8),
+                    ("Bearer " + token).getBytes(StandardCharsets.UTF_8))) {
+                exchange.sendResponseHeaders(401, -1);
+                return;
+            }
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            JsonObject response = handle(body);
+            if (response == null) {
+                exchange.sendResponseHeaders(204, -1);
+                return;
+            }
+            byte[] bytes = GSON.toJson(response).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * 處理一個 JSON-RPC 請求（通知回傳 null）
+     */
+    JsonObject handle(String body) {
+        active.incrementAndGet();
+        lastRequestNanos = System.nanoTime();
+        try {
+            JsonObject request;
+            try {
+                JsonElement parsed = JsonParser.parseString(body);
+                if (!parsed.isJsonObject()) {
+                    return error(null, INVALID_REQUEST, "Request must be a JSON object");
+                }
+                request = parsed.getAsJsonObject();
+            } catch (JsonParseException e) {
+                return error(null, PARSE_ERROR, "Parse error: " + e.getMessage());
+            }
+
+            JsonElement id = request.get("id");
+            if (!request.has("method") || !request.get("method").isJsonPrimitive()) {
+                return error(id, INVALID_REQUEST, "Missing method");
+            }
+            JsonObject params = request.has("params") && request.get("params").isJsonObject()
+                ? request.getAsJsonObject("params") : new JsonObject();
+
+            JsonObject response;
+            try {
+                Object result = call(request.get("method").getAsString(), params);
+                response = new JsonObject();
+                response.addProperty("jsonrpc", "2.0");
+                response.add("id", id);
+                response.add("result", GSON.toJsonTree(result));
+            } catch (RpcError e) {
+                response = error(id, e.code, e.getMessage());
+            } catch (Exception e) {
+                logger.debug("Request failed: {}", body, e);
+                response = error(id, SERVER_ERROR, e.getMessage() != null ? e.getMessage() : e.toString());
+            }
+            return id == null ? null : response;
+        } finally {
+            lastRequestNanos = System.nanoTime();
+            active.decrementAndGet();
+        }
+    }
+
+    private Object call(String method, JsonObject params) throws Exception {
+        switch (method) {
+            case "search":
+                return service.search(requireString(params, "query"),
+                    intParam(params, "maxResults", 30), doubleParam(params, "minScore", 1.0));
+            case "list":
+                return service.list(intParam(params, "maxResults", 100));
+            case "stats":
+                return service.stats();
+            case "read":
+                if (!service.canRead()) {
+                    // 精簡版沒有提取器，由用戶端在本程序讀取
+                    throw new RpcError(METHOD_NOT_FOUND, "Method not available in the search-only build: read");
+                }
+                return service.read(requireString(params, "path"), intParam(params, "limit", 5000));
+            case "ping":
+                return Map.of("pid", ProcessHandle.current().pid(), "indexPath", service.getIndexPath().toString());
+            case "shutdown":
+                stop();
+                return Map.of("status", "stopping");
+            default:
+                throw new RpcError(METHOD_NOT_FOUND, "Method not found: " + method);
+        }
+    }
+
+    private static String requireString(JsonObject params, String name) throws RpcError {
+        JsonElement value = params.get(name);
+        if (value == null || !value.isJsonPrimitive()) {
+            throw new RpcError(INVALID_PARAMS, "Missing parameter: " + name);
+        }
+        return value.getAsString();
+    }
+
+    private static int intParam(JsonObject params, String name, int defaultValue) throws RpcError {
+        JsonElement value = params.get(name);
+        try {
+            return value == null || value.isJsonNull() ? defaultValue : value.getAsInt();
+        } catch (RuntimeException e) {
+            throw new RpcError(INVALID_PARAMS, "Invalid parameter: " + name);
+        }
+    }
+
+    private static double doubleParam(JsonObject params, String name, double defaultValue) throws RpcError {
+        JsonElement value = params.get(name);
+        try {
+            return value == null || value.isJsonNull() ? defaultValue : value.getAsDouble();
+        } catch (RuntimeException e) {
+            throw new RpcError(INVALID_PARAMS, "Invalid parameter: " + name);
+        }
+    }
+
+    private static JsonObject error(JsonElement id, int code, String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("code", code);
+        error.addProperty("message", message);
+        JsonObject response = new JsonObject();
+        response.addProperty("jsonrpc", "2.0");
+        response.add("id", id);
+        response.add("error", error);
+        return response;
+    }
+
+    /**
+     * 寫入服務資訊（先寫暫存檔再改名，讀取端不會看到寫到一半的檔案）
+     *
+     * 暫存檔建立時就只有擁有者可讀寫，token 寫入前不會有其他使用者可讀的時間點。
+     */
+    private static void writeDiscoveryFile(Path file, int port, String token) throws IOException {
+        JsonObject info = new JsonObject();
+        info.addProperty("pid", ProcessHandle.current().pid());
+        info.addProperty("port", port);
+        info.addProperty("token", token);
+        info.addProperty("startedAt", Instant.now().toString());
+        Path temp;
+        try {
+            // token 只給同一個使用者讀取
+            temp = Files.createTempFile(file.getParent(), DISCOVERY_FILE, ".tmp",
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            // 非 POSIX 檔案系統（createTempFile 預設也只給擁有者存取）
+            temp = Files.createTempFile(file.getParent(), DISCOVERY_FILE, ".tmp");
+        }
+        try {
+            Files.writeString(temp, GSON.toJson(info), StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new SecureRandom().nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * 停止 HTTP 通道並移除 serve.json（已被其他服務覆寫時保留）
+     */
+    @Override
+    public synchronized void close() {
+        stop();
+        if (http != null) {
+            http.stop(0);
+            http = null;
+            httpPool.shutdownNow();
+            try {
+                SearchClient current = SearchClient.read(discoveryFile);
+                if (current != null && current.getPid() == ProcessHandle.current().pid()) {
+                    Files.deleteIfExists(discoveryFile);
+                }
+            } catch (IOException e) {
+                logger.debug("Failed to remove {}", discoveryFile, e);
+            }
+        }
+    }
+
+    /**
+     * 帶 JSON-RPC 錯誤碼的請求錯誤
+     */
+    private static final class RpcError extends Exception {
+        final int code;
+
+        RpcError(int code, String message) {
+            super(message);
+            this.code = code;
+        }
+    }
+}
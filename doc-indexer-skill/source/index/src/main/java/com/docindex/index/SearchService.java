@@ -0,0 +1,271 @@
+package com.docindex.index;
+
+import com.docindex.core.DocumentReader;
+import com.docindex.model.DocumentInfo;
+import com.docindex.model.SearchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * search / list / stats / read 的查詢邏輯
+ *
+ * CLI 直接使用時每個命令開啟一次；常駐搜尋服務（SearchServer）則在整個程序期間保持
+ * 索引 reader、中文分詞器與文件讀取器開啟，每個請求只需執行查詢本身。
+ * 回傳內容與命令的 --json 輸出相同。執行緒安全。
+ *
+ * 摘要由索引中儲存的原文產生；重新索引前的舊文件與 read 需要讀取原始檔案，
+ * 由呼叫端提供 DocumentReader（完整版使用 Tika）。只含搜尋的精簡版不提供，
+ * 舊文件沒有摘要，read 回傳錯誤。
+ */
+public class SearchService implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
+
+    // 上下文摘要長度
+    private static final int CONTEXT_LENGTH = 300;
+    // 讀取檔案內容的最大長度（用於產生舊文件的摘要）
+    private static final int MAX_READ_LENGTH = 500000;  // 500KB
+
+    private final Path indexPath;
+    private final LuceneIndexer indexer;
+    private final DocumentReader reader;
+    private final boolean ownsIndexer;
+    private ScheduledExecutorService refresher;
+
+    private SearchService(Path indexPath, LuceneIndexer indexer, DocumentReader reader, boolean ownsIndexer) {
+        this.indexPath = indexPath;
+        this.indexer = indexer;
+        this.reader = reader;
+        this.ownsIndexer = ownsIndexer;
+    }
+
+    /**
+     * 開啟索引（唯讀，不取得寫入鎖）
+     *
+     * @param reader 讀取原始檔案產生摘要與 read 結果（可為 null）
+     */
+    public static SearchService open(Path indexPath, DocumentReader reader) throws IOException {
+        LuceneIndexer indexer = new LuceneIndexer(indexPath);
+        try {
+            indexer.openSearcher();
+        } catch (IOException | RuntimeException e) {
+            indexer.close();
+            throw e;
+        }
+        return new SearchService(indexPath, indexer, reader, true);
+    }
+
+    /**
+     * 使用呼叫端已開啟的 indexer（watch 以近即時搜尋器回應查詢，未提交的變更也搜尋得到）
+     *
+     * close() 不會關閉 indexer，由呼叫端負責。
+     */
+    public static SearchService attach(Path indexPath, LuceneIndexer indexer, DocumentReader reader) {
+        return new SearchService(indexPath, indexer, reader, false);
+    }
+
+    /**
+     * 每隔 intervalMillis 檢查新的提交並重新整理搜尋器（常駐服務使用）
+     *
+     * 查詢本身不檢查提交，單次命令開啟的 reader 已是最新的，不需要呼叫。
+     */
+    public synchronized SearchService refreshEvery(long intervalMillis) {
+        if (refresher == null && intervalMillis > 0) {
+            refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "searcher-refresh");
+                t.setDaemon(true);
+                return t;
+            });
+            refresher.scheduleWithFixedDelay(() -> {
+                try {
+                    indexer.refreshSearcher();
+                } catch (Exception e) {
+                    logger.warn("Searcher refresh failed: {}", e.getMessage());
+                }
+            }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    public Path getIndexPath() {
+        return indexPath;
+    }
+
+    /**
+     * 是否能讀取原始檔案（產生摘要與 read）
+     */
+    public boolean canRead() {
+        return reader != null;
+    }
+
+    /**
+     * 搜尋並從原始檔案產生摘要
+     */
+    public Map<String, Object> search(String query, int maxResults, double minScore) throws Exception {
+        List<SearchResult> results = indexer.search(query, maxResults);
+
+        // 過濾低於最低分數閾值的結果
+        if (minScore > 0) {
+            results = results.stream()
+                .filter(r -> r.getScore() >= minScore)
+                .collect(Collectors.toList());
+        }
+
+        // 摘要由索引產生；重新索引前的舊文件沒有儲存原文，改從原始檔案產生
+        if (reader != null) {
+            for (SearchResult result : results) {
+                if (result.getSnippet() == null) {
+                    result.setSnippet(generateSnippetFromFile(reader, result.getFilePath(), query));
+                }
+            }
+        }
+
+        Map<String, Object> output = new LinkedHashMap<>();
+        output.put("query", query);
+        output.put("minScore", minScore);
+        output.put("totalResults", results.size());
+        output.put("results", results);
+        return output;
+    }
+
+    /**
+     * 列出已索引的文件
+     */
+    public Map<String, Object> list(int maxResults) throws IOException {
+        List<SearchResult> results = indexer.listAllDocuments(maxResults);
+
+        Map<String, Object> output = new LinkedHashMap<>();
+        output.put("totalDocuments", results.size());
+        output.put("documents", results);
+        return output;
+    }
+
+    /**
+     * 索引統計
+     */
+    public Map<String, Object> stats() throws IOException {
+        Map<String, Object> stats = indexer.getStats();
+        stats.put("indexPath", indexPath.toString());
+        return stats;
+    }
+
+    /**
+     * 讀取檔案內容
+     *
+     * @param limit 最多回傳的字元數（0 表示只受預設提取上限限制）
+     */
+    public Map<String, Object> read(String filePath, int limit) throws Exception {
+        if (reader == null) {
+            throw new UnsupportedOperationException("read is not available in the search-only build");
+        }
+        Path path = Paths.get(filePath).toAbsolutePath();
+        if (!Files.exists(path)) {
+            throw new IllegalArgumentException("File does not exist: " + filePath);
+        }
+
+        return toReadResult(reader.read(path, limit));
+    }
+
+    /**
+     * read 的結果格式
+     */
+    public static Map<String, Object> toReadResult(DocumentInfo doc) {
+        Map<String, Object> output = new LinkedHashMap<>();
+        output.put("filePath", doc.getFilePath());
+        output.put("fileName", doc.getFileName());
+        output.put("contentType", doc.getContentType());
+        output.put("fileSize", doc.getFileSize());
+        output.put("content", doc.getContent());
+        output.put("metadata", doc.getMetadata());
+        return output;
+    }
+
+    /**
+     * 從原始檔案產生上下文摘要
+     */
+    private static String generateSnippetFromFile(DocumentReader reader, String filePath, String query) {
+        try {
+            Path path = Paths.get(filePath);
+            if (!Files.exists(path)) {
+                return "(檔案不存在)";
+            }
+
+            DocumentInfo doc = reader.read(path, MAX_READ_LENGTH);
+            String content = doc.getContent();
+            if (content == null || content.isEmpty()) {
+                return "";
+            }
+
+            return createSnippet(content, query, CONTEXT_LENGTH);
+        } catch (Exception e) {
+            return "(無法讀取檔案)";
+        }
+    }
+
+    /**
+     * 產生搜尋結果摘要
+     */
+    private static String createSnippet(String content, String query, int maxLength) {
+        if (content == null || content.isEmpty()) {
+            return "";
+        }
+
+        // 簡化查詢詞
+        String[] queryTerms = query.toLowerCase().split("\\s+");
+        String lowerContent = content.toLowerCase();
+
+        // 找到第一個匹配的位置
+        int matchPos = -1;
+        for (String term : queryTerms) {
+            String cleanTerm = term.replaceAll("[^\\p{L}\\p{N}]", "");
+            if (!cleanTerm.isEmpty()) {
+                int pos = lowerContent.indexOf(cleanTerm);
+                if (pos != -1 && (matchPos == -1 || pos < matchPos)) {
+                    matchPos = pos;
+                }
+            }
+        }
+
+        // 從匹配位置前後擷取摘要
+        int start = matchPos > 0 ? Math.max(0, matchPos - 50) : 0;
+        int end = Math.min(content.length(), start + maxLength);
+
+        String snippet = content.substring(start, end).trim();
+
+        // 加上省略號
+        if (start > 0) snippet = "..." + snippet;
+        if (end < content.length()) snippet = snippet + "...";
+
+        return snippet.replaceAll("\\s+", " ");
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (refresher != null) {
+                refresher.shutdownNow();
+                try {
+                    // 等待進行中的重新整理結束再關閉 reader
+                    refresher.awaitTermination(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                refresher = null;
+            }
+        }
+        if (ownsIndexer) {
+            indexer.close();
+        }
+    }
+}
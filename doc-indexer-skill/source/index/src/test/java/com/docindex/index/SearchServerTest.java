@@ -0,0 +1,99 @@
+package com.docindex.index;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * 常駐服務的 HTTP 通道只接受帶正確 token 的請求
+ */
+class SearchServerTest {
+
+    private static final String PING = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"ping\"}";
+
+    @TempDir
+    Path tempDir;
+
+    private Path indexPath;
+    private LuceneIndexer indexer;
+    private SearchServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        indexPath = Files.createDirectories(tempDir.resolve("index"));
+        indexer = new LuceneIndexer(indexPath);
+        server = new SearchServer(SearchService.attach(indexPath, indexer, null));
+        server.startHttp(0, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+        indexer.close();
+    }
+
+    @Test
+    void requestWithoutTokenIsRejected() throws IOException {
+        assertEquals(HttpURLConnection.HTTP_UNAUTHORIZED, post(null));
+    }
+
+    @Test
+    void requestWithWrongTokenIsRejected() throws IOException {
+        String token = token();
+
+        assertEquals(HttpURLConnection.HTTP_UNAUTHORIZED, post("Bearer " + token + "0"));
+        assertEquals(HttpURLConnection.HTTP_UNAUTHORIZED, post("Bearer " + token.substring(1)));
+        assertEquals(HttpURLConnection.HTTP_UNAUTHORIZED, post(token));
+    }
+
+    @Test
+    void requestWithTokenFromDiscoveryFileIsServed() throws Exception {
+        assertEquals(HttpURLConnection.HTTP_OK, post("Bearer " + token()));
+
+        SearchClient client = SearchClient.read(indexPath.resolve(SearchServer.DISCOVERY_FILE));
+        assertNotNull(client);
+        JsonElement result = client.call("ping", null);
+        assertEquals(ProcessHandle.current().pid(), result.getAsJsonObject().get("pid").getAsLong());
+    }
+
+    private String token() throws IOException {
+        String json = Files.readString(indexPath.resolve(SearchServer.DISCOVERY_FILE), StandardCharsets.UTF_8);
+        return JsonParser.parseString(json).getAsJsonObject().get("token").getAsString();
+    }
+
+    /**
+     * 以指定的 Authorization 標頭（null 表示不帶）送出 ping，回傳 HTTP 狀態碼
+     */
+    private int post(String authorization) throws IOException {
+        byte[] body = PING.getBytes(StandardCharsets.UTF_8);
+        HttpURLConnection connection = (HttpURLConnection)
+            new URL("http", "127.0.0.1", server.getPort(), SearchServer.RPC_PATH).openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            if (authorization != null) {
+                connection.setRequestProperty("Authorization", authorization);
+            }
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+}